@@ -9,7 +9,15 @@
  */
 
 import java.io.*;
-
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import batch.*;
+import generator.*;
 import grid.*;
 import solver.*;
 
@@ -35,6 +43,23 @@ public class RmitSudoku
      * @param args the command line arguments
      */
     public static void main(String[] args) {
+        // pull out the optional "--name=value" arguments, the rest are positional
+        HashMap<String, String> options = new HashMap<>();
+        args = splitOptions(args, options);
+
+        if (options.containsKey("batch")) {
+            runBatch(args, options);
+            return;
+        }
+        if (options.containsKey("generate")) {
+            runGenerate(args, options);
+            return;
+        }
+        if (options.containsKey("convert")) {
+            runConvert(args);
+            return;
+        }
+
         // read command line arguments
 	    if (args.length < 4) {
 	        System.err.println("Incorrect number of arguments.\n");
@@ -90,11 +115,25 @@ public class RmitSudoku
         assert(grid != null);
         assert(solver != null);
 
+        configureSolver(solver, options);
+
+        // cell ordering heuristic for the backtracking solvers
+        String orderingName = null;
+        if (solver instanceof BackTrackingSolver) {
+            orderingName = ((BackTrackingSolver) solver).getOrdering().getName();
+        }
+        else if (solver instanceof KillerBackTrackingSolver) {
+            orderingName = ((KillerBackTrackingSolver) solver).getOrdering().getName();
+        }
+
+        // deduce what cells can be before searching
+        solver = wrapSolver(solver, options);
+
         // start timer
         long startTime = System.nanoTime();
 
-        // load grid
-        try {
+        // load grid, and open the store of earlier runs' solutions if one is given
+        try (SolutionStore store = openStore(options)) {
             grid.initGrid(initGridFilename);
 
             // visualise initial grid
@@ -104,8 +143,33 @@ public class RmitSudoku
                 System.out.println(grid);
             }
 
-            // run solver
-            boolean bSolvedSuccess = solver.solve(grid);
+            // count solutions first, counting leaves the grid as it was loaded
+            if (options.containsKey("count")) {
+                String limitName = options.get("count");
+                long limit = limitName.equals("true") || limitName.equals("all")
+                    ? SolutionCount.ALL : Long.parseLong(limitName);
+                SolutionCount count = solver.countSolutions(grid, limit, 0);
+                System.out.println("solutions = " + count.getCount()
+                    + (count.isLimitReached() ? " (limit reached)" : "")
+                    + (count.isUnique() ? " (unique)" : "") + "\n");
+                // restart the timer, so the time taken is of the solve
+                startTime = System.nanoTime();
+            }
+
+            // look the puzzle up in the store before solving, and log what the solver finds
+            SudokuSolver entry = store == null ? solver : new StoringSolver(solver, store);
+
+            // run solver, within the limits if any are given
+            SolveBudget budget = newBudget(options);
+            boolean bSolvedSuccess;
+            SolveResult result = null;
+            if (budget == null) {
+                bSolvedSuccess = entry.solve(grid);
+            }
+            else {
+                result = entry.solve(grid, budget);
+                bSolvedSuccess = result.isSolved();
+            }
 
             // stop timer
             long endTime = System.nanoTime();
@@ -113,6 +177,9 @@ public class RmitSudoku
             if (bSolvedSuccess) {
                 System.out.println("Solution found!\n");
             }
+            else if (result != null && !result.isFinished()) {
+                System.out.println("Gave up - " + result.getStatus().getName() + "!\n");
+            }
             else {
                 System.out.println("No solution found!\n");
             }
@@ -128,13 +195,37 @@ public class RmitSudoku
             System.out.println("time taken = "
                 + ((double)(endTime - startTime)) / Math.pow(10, 9) + " sec.\n");
 
+            if (store != null) {
+                System.out.println((((StoringSolver) entry).isLastHit() ? "found in store" : "not in store")
+                    + ", store: " + store + "\n");
+            }
+
+            // display search effort, for comparing heuristics
+            if (solver.getNodeCount() > 0) {
+                System.out.println("nodes explored"
+                    + (orderingName != null ? " (" + orderingName + ")" : "")
+                    + " = " + solver.getNodeCount() + "\n");
+            }
+            if (options.containsKey("stats")) {
+                System.out.println("search stats: " + solver.getStats() + "\n");
+            }
+            PortfolioSolver portfolio = PortfolioSolver.find(solver);
+            if (portfolio != null && portfolio.getLastWinner() != null) {
+                System.out.println("won by " + portfolio.getLastWinner() + "\n");
+            }
+            if (solver instanceof PropagatingSolver) {
+                System.out.println("propagation: "
+                    + ((PropagatingSolver) solver).getPropagationStats() + "\n");
+            }
+
 
             // Check and validate solution
-            if (grid.validate()) {
+            GridValidator.Violation violation = grid.findViolation();
+            if (violation == null) {
                 System.out.println("Valid solution.");
             }
             else {
-                System.out.println("Invalid solution.");
+                System.out.println("Invalid solution - " + violation + ".");
             }
 
 
@@ -163,14 +254,454 @@ public class RmitSudoku
 
         System.err.println(progName + ": [grid fileName] [game type] [solver type] [visualisation] <output filename>");
         System.err.println("[game type] = {sudoku | killer}");
-        System.err.println("[solver type] (for Sudoku) = {backtracking | algorx | dancing}");
-        System.err.println("[solver type] (for Killer Sudoku) = {backtracking | advanced}");
+        System.err.println("[solver type] (for Sudoku) = {backtracking | algorx | dancing | portfolio}");
+        System.err.println("[solver type] (for Killer Sudoku) = {backtracking | advanced | portfolio}");
+        System.err.println("              portfolio races the other solvers on copies of the grid, the first to finish wins");
         System.err.println("<visualisation> = <y | n>");
+        System.err.println("options: --ordering={first | mrv | mrv-degree} (backtracking solvers only)");
+        System.err.println("         --tie-break={first | random} [--seed=<n>] (dancing links only)");
+        System.err.println("         --parallelism=<n> [--split-depth=<d>] (dancing links only, search on n threads)");
+        System.err.println("         --stats (print nodes, updates, max depth and time to first solution)");
+        System.err.println("         --count[=<n | all>] (count solutions up to n before solving, 2 checks uniqueness)");
+        System.err.println("         --timeout=<sec> --max-nodes=<n> (give up on a puzzle past either limit, also in batch mode)");
+        System.err.println("         --propagate[={prepass | node}] (singles, locked candidates and naked pairs before the search,");
+        System.err.println("           or at every node instead of the solver's search, sudoku only)");
+        System.err.println("         --store=<directory> (look puzzles up in a store of earlier runs' solutions before solving,");
+        System.err.println("           and log new results to it, also in batch mode)");
+        System.err.println(progName + " --batch [directory | glob | puzzles file] [game type] [solver type] <results filename>");
+        System.err.println("         puzzles in one file are separated by blank lines, one result line per puzzle:");
+        System.err.println("         id, status {solved | unsolved | invalid | error}, time taken (sec), nodes explored");
+        System.err.println("         --threads=<n> [--queue=<n>] [--unordered] (solve n puzzles at a time)");
+        System.err.println("         --solutions=<filename> [--append] [--fsync-every=<n>] (write solved grids, in result order)");
+        System.err.println("         --cache[=<n>] (keep the last n solutions, default 1024, and answer relabelled, transposed");
+        System.err.println("           or row/column permuted copies of their puzzles from them, sudoku up to 9x9)");
+        System.err.println(progName + " --generate [game type] [grid dimension] [number of puzzles] <output filename>");
+        System.err.println("         puzzles have a unique solution and are separated by blank lines, options:");
+        System.err.println("         --difficulty={easy | medium | hard | expert} --seed=<n> --symmetric");
+        System.err.println("         --min-givens=<n> (sudoku) --max-cage=<n> (killer, default 4)");
+        System.err.println(progName + " --convert [.in/.exp directory | glob | file] [binary filename.sdb]");
+        System.err.println(progName + " --convert [binary filename.sdb] <output filename | directory>");
 
 	    System.exit(1);
     } // end of usage()
 
 
+    /**
+     * Applies the solver options (cell ordering, column tie-breaking) to a solver.
+     * Options that do not apply to the solver are ignored.
+     *
+     * @param solver Solver to configure.
+     * @param options Options from the command line.
+     */
+    private static void configureSolver(SudokuSolver solver, HashMap<String, String> options) {
+        // cell ordering heuristic for the backtracking solvers
+        if (options.containsKey("ordering")) {
+            CellOrdering ordering = CellOrdering.fromName(options.get("ordering"));
+            if (ordering == null) {
+                System.err.println("Unknown cell ordering specified.\n");
+                usage(progName);
+            }
+            if (solver instanceof BackTrackingSolver) {
+                ((BackTrackingSolver) solver).setOrdering(ordering);
+            }
+            else if (solver instanceof KillerBackTrackingSolver) {
+                ((KillerBackTrackingSolver) solver).setOrdering(ordering);
+            }
+        }
+
+        // column tie-breaking for the dancing links solver
+        if (options.containsKey("tie-break")) {
+            String tieBreak = options.get("tie-break");
+            if (!tieBreak.equals("first") && !tieBreak.equals("random")) {
+                System.err.println("Unknown tie-break specified.\n");
+                usage(progName);
+            }
+            if (solver instanceof DancingLinksSolver && tieBreak.equals("random")) {
+                Random random = options.containsKey("seed")
+                    ? new Random(Long.parseLong(options.get("seed"))) : new Random();
+                ((DancingLinksSolver) solver).setTieBreak(random);
+            }
+        }
+
+        // parallel search for the dancing links solver
+        if (solver instanceof DancingLinksSolver) {
+            if (options.containsKey("parallelism")) {
+                ((DancingLinksSolver) solver).setParallelism(Integer.parseInt(options.get("parallelism")));
+            }
+            if (options.containsKey("split-depth")) {
+                ((DancingLinksSolver) solver).setSplitDepth(Integer.parseInt(options.get("split-depth")));
+            }
+        }
+    } // end of configureSolver()
+
+
+    /**
+     * Builds the limits of a solve from the options.
+     *
+     * @param options Options from the command line.
+     * @return The budget, or null if no limits are given.
+     */
+    private static SolveBudget newBudget(HashMap<String, String> options) {
+        if (!options.containsKey("timeout") && !options.containsKey("max-nodes")) {
+            return null;
+        }
+
+        SolveBudget budget = new SolveBudget();
+        try {
+            if (options.containsKey("timeout")) {
+                double seconds = Double.parseDouble(options.get("timeout"));
+                budget.setTimeLimit((long) (seconds * Math.pow(10, 9)), TimeUnit.NANOSECONDS);
+            }
+            if (options.containsKey("max-nodes")) {
+                budget.setNodeLimit(Long.parseLong(options.get("max-nodes")));
+            }
+        }
+        catch (IllegalArgumentException e) {
+            System.err.println("Bad limit specified. " + e.getMessage() + "\n");
+            usage(progName);
+        }
+
+        return budget;
+    } // end of newBudget()
+
+
+    /**
+     * Builds the solution cache of a batch from the options.
+     *
+     * @param options Options from the command line.
+     * @return The cache, or null if caching is not asked for.
+     */
+    private static SolutionCache newCache(HashMap<String, String> options) {
+        if (!options.containsKey("cache")) {
+            return null;
+        }
+
+        String capacity = options.get("cache");
+        try {
+            return new SolutionCache(capacity.equals("true") ? 1024 : Integer.parseInt(capacity));
+        }
+        catch (IllegalArgumentException e) {
+            System.err.println("Bad cache capacity specified. " + e.getMessage() + "\n");
+            usage(progName);
+        }
+
+        return null;
+    } // end of newCache()
+
+
+    /**
+     * Opens the solution store named by the options.
+     *
+     * @param options Options from the command line.
+     * @return The store, or null if no store is given.
+     * @throws IOException If the store cannot be opened.
+     */
+    private static SolutionStore openStore(HashMap<String, String> options) throws IOException {
+        if (!options.containsKey("store") || options.get("store").equals("true")) {
+            return null;
+        }
+
+        return new SolutionStore(Paths.get(options.get("store")));
+    } // end of openStore()
+
+
+    /**
+     * Wraps the solver in constraint propagation if asked for, as a pre-pass or at every
+     * search node.
+     *
+     * @param solver Solver, already configured.
+     * @param options Options from the command line.
+     * @return The solver to run.
+     */
+    private static SudokuSolver wrapSolver(SudokuSolver solver, HashMap<String, String> options) {
+        if (!options.containsKey("propagate")) {
+            return solver;
+        }
+
+        String mode = options.get("propagate");
+        if (!mode.equals("true") && !mode.equals("prepass") && !mode.equals("node")) {
+            System.err.println("Unknown propagation mode specified.\n");
+            usage(progName);
+        }
+        PropagatingSolver propagating = new PropagatingSolver(solver);
+        propagating.setEveryNode(mode.equals("node"));
+
+        return propagating;
+    } // end of wrapSolver()
+
+
+    /**
+     * Batch mode - solves every puzzle of a directory, glob or multi-puzzle file in this JVM,
+     * reusing one grid and solver, and writes one result line per puzzle.
+     *
+     * @param args Positional arguments - batch, game type, solver type and an optional
+     *             results filename (stdout if not given).
+     * @param options Options from the command line.
+     */
+    private static void runBatch(String[] args, HashMap<String, String> options) {
+        if (args.length < 3) {
+            System.err.println("Incorrect number of arguments.\n");
+            usage(progName);
+        }
+
+        int threads = Integer.parseInt(options.getOrDefault("threads", "1"));
+        if (threads < 1) {
+            System.err.println("Number of threads must be at least 1.\n");
+            usage(progName);
+        }
+
+        int syncEvery = Integer.parseInt(options.getOrDefault("fsync-every", "0"));
+        if (syncEvery < 0) {
+            System.err.println("Number of solutions between syncs must not be negative.\n");
+            usage(progName);
+        }
+
+        try (PuzzleSource source = PuzzleSource.open(args[0]);
+             PrintWriter out = args.length > 3
+                 ? new PrintWriter(new BufferedWriter(new FileWriter(args[3])))
+                 : new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+             GridWriter solutions = options.containsKey("solutions")
+                 ? new GridWriter(Paths.get(options.get("solutions")), options.containsKey("append"), syncEvery)
+                 : null;
+             SolutionStore store = openStore(options)) {
+
+            // one cache for every worker, so a puzzle solved by one is found by all
+            SolutionCache cache = newCache(options);
+
+            // summary on stderr, so it never mixes with the result lines
+            if (threads == 1) {
+                BatchRunner runner = newBatchRunner(args[1], args[2], options, cache, store);
+                runner.setSolutionWriter(solutions);
+                runner.run(source, out);
+                System.err.println(runner.getSummary());
+            }
+            else {
+                // check the game and solver types here, as usage() exits, then every worker
+                // thread gets its own grid and solver
+                newBatchRunner(args[1], args[2], options, cache, store);
+                int queueCapacity = Integer.parseInt(options.getOrDefault("queue", String.valueOf(4 * threads)));
+                ParallelBatchRunner runner = new ParallelBatchRunner(
+                    () -> newBatchRunner(args[1], args[2], options, cache, store), threads, queueCapacity,
+                    !options.containsKey("unordered"));
+                runner.setSolutionWriter(solutions);
+                runner.run(source, out);
+                System.err.println(runner.getSummary());
+            }
+            if (cache != null) {
+                System.err.println("cache: " + cache);
+            }
+            if (store != null) {
+                System.err.println("store: " + store);
+            }
+        }
+        catch (IOException e) {
+            System.err.println("IOExeption occurred. " + e.getMessage());
+        }
+    } // end of runBatch()
+
+
+    /**
+     * Generate mode - writes puzzles with a unique solution in the .in format, separated by
+     * blank lines so the output can be solved in batch mode.
+     *
+     * @param args Positional arguments - game type, grid dimension, number of puzzles and an
+     *             optional output filename (stdout if not given).
+     * @param options Options from the command line.
+     */
+    private static void runGenerate(String[] args, HashMap<String, String> options) {
+        if (args.length < 3) {
+            System.err.println("Incorrect number of arguments.\n");
+            usage(progName);
+        }
+
+        String gameType = args[0];
+        if (!gameType.equals("sudoku") && !gameType.equals("killer")) {
+            System.err.println("Unknown game type specified.\n");
+            usage(progName);
+        }
+        int gridDimension = Integer.parseInt(args[1]);
+        int puzzleCount = Integer.parseInt(args[2]);
+
+        Difficulty wanted = null;
+        if (options.containsKey("difficulty")) {
+            wanted = Difficulty.fromName(options.get("difficulty"));
+            if (wanted == null) {
+                System.err.println("Unknown difficulty specified.\n");
+                usage(progName);
+            }
+        }
+
+        Random random = options.containsKey("seed")
+            ? new Random(Long.parseLong(options.get("seed"))) : new Random();
+        PuzzleGenerator generator = new PuzzleGenerator(random);
+        generator.setSymmetric(options.containsKey("symmetric"));
+        generator.setMinGivens(Integer.parseInt(options.getOrDefault("min-givens", "0")));
+        generator.setMaxCageSize(Integer.parseInt(options.getOrDefault("max-cage", "4")));
+
+        // start timer
+        long startTime = System.nanoTime();
+        int[] ratings = new int[Difficulty.values().length];
+        int attempts = 0;
+
+        try (PrintWriter out = args.length > 3
+                 ? new PrintWriter(new BufferedWriter(new FileWriter(args[3])))
+                 : new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)))) {
+
+            for (int p = 0; p < puzzleCount; p++) {
+                GeneratedPuzzle puzzle;
+                do {
+                    // give up on a difficulty the generator hardly ever makes at this size
+                    if (++attempts > 100 * (p + 1)) {
+                        System.err.println("Gave up after " + attempts + " attempts, "
+                            + p + " puzzles generated.");
+                        return;
+                    }
+                    puzzle = gameType.equals("sudoku")
+                        ? generator.generateStandard(gridDimension)
+                        : generator.generateKiller(gridDimension);
+                } while (wanted != null && puzzle.getDifficulty() != wanted);
+
+                if (p > 0) {
+                    out.println();
+                }
+                puzzle.write(out);
+                ratings[puzzle.getDifficulty().ordinal()]++;
+            }
+        }
+        catch (IOException e) {
+            System.err.println("IOExeption occurred. " + e.getMessage());
+            return;
+        }
+
+        // summary on stderr, so it never mixes with the puzzles
+        long endTime = System.nanoTime();
+        StringBuilder summary = new StringBuilder("puzzles = " + puzzleCount + ", attempts = " + attempts
+            + ", time taken = " + ((double)(endTime - startTime)) / Math.pow(10, 9) + " sec");
+        for (Difficulty difficulty : Difficulty.values()) {
+            summary.append(", ").append(difficulty.getName()).append(" = ")
+                .append(ratings[difficulty.ordinal()]);
+        }
+        System.err.println(summary);
+    } // end of runGenerate()
+
+
+    /**
+     * Convert mode - text puzzles and solutions (.in and .exp, a directory, glob or
+     * multi-puzzle file) to a binary file ending in .sdb, or a binary file back to text.
+     *
+     * @param args Positional arguments - input and output.  Text output goes to one file
+     *             per record if the output is a directory, to stdout if not given.
+     */
+    private static void runConvert(String[] args) {
+        if (args.length < 1 || (!args[0].endsWith(".sdb") && args.length < 2)) {
+            System.err.println("Incorrect number of arguments.\n");
+            usage(progName);
+        }
+
+        FormatConverter converter = new FormatConverter();
+        try {
+            if (!args[0].endsWith(".sdb")) {
+                try (PuzzleSource source = PuzzleSource.open(args[0]);
+                     BinaryPuzzleWriter writer = new BinaryPuzzleWriter(Paths.get(args[1]))) {
+                    converter.toBinary(source, writer);
+                    System.err.println("records = " + writer.size());
+                }
+            }
+            else {
+                try (BinaryPuzzleFile file = new BinaryPuzzleFile(Paths.get(args[0]))) {
+                    if (args.length > 1 && Files.isDirectory(Paths.get(args[1]))) {
+                        converter.toText(file, Paths.get(args[1]));
+                    }
+                    else {
+                        try (PrintWriter out = args.length > 1
+                                 ? new PrintWriter(new BufferedWriter(new FileWriter(args[1])))
+                                 : new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)))) {
+                            converter.toText(file, out);
+                        }
+                    }
+                    System.err.println("records = " + file.size());
+                }
+            }
+        }
+        catch (IOException e) {
+            System.err.println("IOExeption occurred. " + e.getMessage());
+        }
+    } // end of runConvert()
+
+
+    /**
+     * Construct the grid and solver for a batch, with the solver options applied.
+     *
+     * @param gameType Type of game.
+     * @param solverType Type of solver.
+     * @param options Options from the command line.
+     * @param cache Solution cache to look up before solving, null for none.
+     * @param store Solution store to look up before the cache and log results to, null for none.
+     * @return Batch runner using the new grid and solver.
+     */
+    private static BatchRunner newBatchRunner(String gameType, String solverType,
+        HashMap<String, String> options, SolutionCache cache, SolutionStore store) {
+        SolverGridPair pair = new SolverGridPair();
+
+        switch (gameType) {
+            case "sudoku":
+                initSudokuSolver(solverType, pair);
+                break;
+            case "killer":
+                initKillerSolver(solverType, pair);
+                break;
+            default:
+                System.err.println("Unknown game type specified.\n");
+                usage(progName);
+        }
+        configureSolver(pair.solver, options);
+
+        SudokuSolver solver = wrapSolver(pair.solver, options);
+        if (cache != null) {
+            solver = new CachingSolver(solver, cache);
+        }
+        if (store != null) {
+            solver = new StoringSolver(solver, store);
+        }
+
+        BatchRunner runner = new BatchRunner(pair.grid, solver);
+        // every runner gets its own budget, the clock is per solve
+        runner.setBudget(newBudget(options));
+
+        return runner;
+    } // end of newBatchRunner()
+
+
+    /**
+     * Separates the optional "--name=value" arguments from the positional ones.
+     * An option without a value (e.g. "--flag") is stored with the value "true".
+     *
+     * @param args Command line arguments.
+     * @param options Used to return the options found (return by reference).
+     * @return The positional arguments, in their original order.
+     */
+    private static String[] splitOptions(String[] args, HashMap<String, String> options) {
+        ArrayList<String> positional = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                int equals = arg.indexOf('=');
+                if (equals == -1) {
+                    options.put(arg.substring(2), "true");
+                }
+                else {
+                    options.put(arg.substring(2, equals), arg.substring(equals + 1));
+                }
+            }
+            else {
+                positional.add(arg);
+            }
+        }
+
+        return positional.toArray(new String[0]);
+    } // end of splitOptions()
+
+
     /**
      * Contruct appropriate grid and solver for (standard) Sudoku.
      *
@@ -198,6 +729,10 @@ public class RmitSudoku
                 grid = new StdSudokuGrid();
                 solver = new DancingLinksSolver();
                 break;
+            case "portfolio":
+                grid = new StdSudokuGrid();
+                solver = newSudokuPortfolio();
+                break;
             default:
                 System.err.println("Unknown solver type specified.\n");
                 usage(progName);
@@ -231,6 +766,10 @@ public class RmitSudoku
                 grid = new KillerSudokuGrid();
                 solver = new KillerAdvancedSolver();
                 break;
+            case "portfolio":
+                grid = new KillerSudokuGrid();
+                solver = newKillerPortfolio();
+                break;
             default:
                 System.err.println("Unknown solver type specified.\n");
                 usage(progName);
@@ -241,6 +780,41 @@ public class RmitSudoku
     } // end of initKillerSolver()
 
 
+    /**
+     * Construct the solvers raced for (standard) Sudoku - each search, and dancing links
+     * with a seeded random column tie-break as well as the first.
+     *
+     * @return The portfolio.
+     */
+    private static PortfolioSolver newSudokuPortfolio() {
+        PortfolioSolver portfolio = new PortfolioSolver();
+
+        portfolio.add("backtracking", new BackTrackingSolver());
+        portfolio.add("algorx", new AlgorXSolver());
+        portfolio.add("dancing", new DancingLinksSolver());
+        portfolio.add("dancing-random", new DancingLinksSolver(new Random(1)));
+
+        return portfolio;
+    } // end of newSudokuPortfolio()
+
+
+    /**
+     * Construct the solvers raced for Killer Sudoku - backtracking in row-major and MRV
+     * order, and the advanced solver.
+     *
+     * @return The portfolio.
+     */
+    private static PortfolioSolver newKillerPortfolio() {
+        PortfolioSolver portfolio = new PortfolioSolver();
+
+        portfolio.add("backtracking", new KillerBackTrackingSolver());
+        portfolio.add("backtracking-mrv", new KillerBackTrackingSolver(CellOrdering.MRV));
+        portfolio.add("advanced", new KillerAdvancedSolver());
+
+        return portfolio;
+    } // end of newKillerPortfolio()
+
+
     /**
      * Inner class used to return a pair of values.
      * Note on core teaching servers javafx.util.Pair isn't available.
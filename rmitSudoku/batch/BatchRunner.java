@@ -0,0 +1,187 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package batch;
+
+import grid.GridValidator;
+import grid.GridWriter;
+import grid.SudokuGrid;
+import solver.CachingSolver;
+import solver.PortfolioSolver;
+import solver.SolveBudget;
+import solver.SolveResult;
+import solver.StoringSolver;
+import solver.SudokuSolver;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+
+/**
+ * Solves every puzzle of a batch in one JVM.  The grid and solver are reused for all the
+ * puzzles, so their arrays (and the solver's matrices and tables) are only allocated when the
+ * grid size changes, and the JIT warm-up is paid once.  One result line is written per puzzle
+ * as soon as it is solved, and the solved grid can be streamed to a solutions file.
+ */
+public class BatchRunner {
+
+    private final SudokuGrid grid;
+    private final SudokuSolver solver;
+
+    private final BatchSummary summary;
+
+    // Where solved grids are written, null if they are not
+    private GridWriter solutionWriter;
+    // Limits of each solve, null if unlimited
+    private SolveBudget budget;
+
+
+    /**
+     * Constructor
+     *
+     * @param grid   grid every puzzle is loaded into
+     * @param solver solver used for every puzzle
+     */
+    public BatchRunner(SudokuGrid grid, SudokuSolver solver) {
+
+        this.grid = grid;
+        this.solver = solver;
+        summary = new BatchSummary();
+
+    } // end of BatchRunner()
+
+
+    /**
+     * Writes the grid of every solved puzzle, in result order, when running the batch
+     *
+     * @param solutionWriter where solved grids are written, null to not write them
+     */
+    public void setSolutionWriter(GridWriter solutionWriter) {
+        this.solutionWriter = solutionWriter;
+    }
+
+
+    /**
+     * Limits the solve of every puzzle, so one pathological puzzle cannot stall the batch
+     *
+     * @param budget limits of each solve, not shared with other runners; null for none
+     */
+    public void setBudget(SolveBudget budget) {
+        this.budget = budget;
+    }
+
+
+    /**
+     * Solves every puzzle of the source, writing a result line for each
+     *
+     * @param source puzzles to solve
+     * @param out    where the result lines are written
+     * @throws IOException if the source cannot be read, or a solution cannot be written
+     */
+    public void run(PuzzleSource source, PrintWriter out) throws IOException {
+
+        Puzzle puzzle;
+        while ((puzzle = source.next()) != null) {
+            PuzzleResult result = solve(puzzle);
+            summary.record(result);
+            out.println(result);
+            if (solutionWriter != null && result.getStatus() == PuzzleResult.Status.SOLVED) {
+                solutionWriter.write(grid);
+            }
+        }
+        out.flush();
+
+    } // end of run()
+
+
+    /**
+     * Loads and solves one puzzle
+     *
+     * @param puzzle puzzle to solve
+     * @return its result
+     */
+    public PuzzleResult solve(Puzzle puzzle) {
+
+        try {
+            grid.initGrid(puzzle.getBytes());
+        } catch (RuntimeException e) {
+            // Malformed input - a bad number, or lines missing
+            return new PuzzleResult(puzzle.getId(), PuzzleResult.Status.ERROR, 0, 0, e.toString());
+        }
+
+        long startTime = System.nanoTime();
+        boolean solved;
+        try {
+            if (budget == null) {
+                solved = solver.solve(grid);
+            } else {
+                SolveResult result = solver.solve(grid, budget);
+                if (!result.isFinished()) {
+                    return new PuzzleResult(puzzle.getId(), givenUp(result.getStatus()), result.getTime(),
+                            result.getNodes(), null);
+                }
+                solved = result.isSolved();
+            }
+        } catch (RuntimeException | StackOverflowError e) {
+            // A puzzle the solver does not support, e.g. too many symbols for the cage tables,
+            // or one that recurses deeper than the thread's stack
+            return new PuzzleResult(puzzle.getId(), PuzzleResult.Status.ERROR, System.nanoTime() - startTime,
+                    solver.getNodeCount(), e.toString());
+        }
+        long endTime = System.nanoTime();
+
+        PuzzleResult.Status status;
+        GridValidator.Violation violation = null;
+        if (!solved) {
+            status = PuzzleResult.Status.UNSOLVED;
+        } else if ((violation = grid.findViolation()) == null) {
+            status = PuzzleResult.Status.SOLVED;
+        } else {
+            status = PuzzleResult.Status.INVALID;
+        }
+
+        // An invalid result says which constraint its grid breaks, a stored or cached one
+        // where it came from, and a raced one which solver won
+        String message = null;
+        PortfolioSolver portfolio = PortfolioSolver.find(solver);
+        SudokuSolver cached = solver instanceof StoringSolver ? ((StoringSolver) solver).getSolver() : solver;
+        if (violation != null) {
+            message = violation.toString();
+        } else if (solver instanceof StoringSolver && ((StoringSolver) solver).isLastHit()) {
+            message = "from store";
+        } else if (cached instanceof CachingSolver && ((CachingSolver) cached).isLastHit()) {
+            message = "from cache";
+        } else if (portfolio != null && portfolio.getLastWinner() != null) {
+            message = "won by " + portfolio.getLastWinner();
+        }
+        return new PuzzleResult(puzzle.getId(), status, endTime - startTime, solver.getNodeCount(), message);
+
+    } // end of solve()
+
+
+    private static PuzzleResult.Status givenUp(SolveResult.Status status) {
+
+        switch (status) {
+            case TIMED_OUT:
+                return PuzzleResult.Status.TIMED_OUT;
+            case NODE_LIMIT:
+                return PuzzleResult.Status.NODE_LIMIT;
+            default:
+                return PuzzleResult.Status.CANCELLED;
+        }
+
+    } // end of givenUp()
+
+
+    public BatchSummary getSummary() {
+        return summary;
+    }
+
+    public SudokuGrid getGrid() {
+        return grid;
+    }
+
+
+} // end of class BatchRunner
@@ -0,0 +1,74 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package batch;
+
+
+/**
+ * Running totals of a batch - the number of results of each status and the total solver time.
+ */
+public class BatchSummary {
+
+    private final int[] statusCounts;
+    private long totalTime;
+
+
+    /**
+     * Constructor
+     */
+    public BatchSummary() {
+
+        statusCounts = new int[PuzzleResult.Status.values().length];
+
+    } // end of BatchSummary()
+
+
+    /**
+     * Adds a result to the totals
+     *
+     * @param result result of a puzzle
+     */
+    public void record(PuzzleResult result) {
+
+        statusCounts[result.getStatus().ordinal()]++;
+        totalTime += result.getTime();
+
+    } // end of record()
+
+
+    public int getCount(PuzzleResult.Status status) {
+        return statusCounts[status.ordinal()];
+    }
+
+
+    /**
+     * @return nanoseconds spent in the solvers, summed over all puzzles (and threads)
+     */
+    public long getTotalTime() {
+        return totalTime;
+    }
+
+
+    /**
+     * One line summary
+     *
+     * @return puzzle count, count of each status and total solver time
+     */
+    @Override
+    public String toString() {
+
+        int total = 0;
+        StringBuilder counts = new StringBuilder();
+        for (PuzzleResult.Status status : PuzzleResult.Status.values()) {
+            total += statusCounts[status.ordinal()];
+            counts.append(", ").append(status.getName()).append(" = ").append(statusCounts[status.ordinal()]);
+        }
+
+        return "puzzles = " + total + counts + ", solver time = " + totalTime / Math.pow(10, 9) + " sec.";
+
+    } // end of toString()
+
+
+} // end of class BatchSummary
@@ -0,0 +1,165 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package batch;
+
+import grid.BinaryPuzzleFile;
+import grid.BinaryPuzzleWriter;
+import grid.KillerSudokuGrid;
+import grid.StdSudokuGrid;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.TreeSet;
+
+
+/**
+ * Converts between the text formats (.in puzzles and .exp solutions, one or many per file)
+ * and the binary format.  The kind of each text puzzle is told from its lines: a solution's
+ * first line is a comma separated row, a killer puzzle's third line is its cage count, and
+ * anything else is a standard puzzle.
+ */
+public class FormatConverter {
+
+    private final StdSudokuGrid stdGrid;
+    private final KillerSudokuGrid killerGrid;
+
+
+    /**
+     * Constructor
+     */
+    public FormatConverter() {
+
+        stdGrid = new StdSudokuGrid();
+        killerGrid = new KillerSudokuGrid();
+
+    } // end of FormatConverter()
+
+
+    /**
+     * Converts every puzzle and solution of a batch into binary records
+     *
+     * @param source text puzzles and solutions
+     * @param writer binary file to add them to
+     * @return number of records written
+     * @throws IOException if a file cannot be read or written
+     */
+    public int toBinary(PuzzleSource source, BinaryPuzzleWriter writer) throws IOException {
+
+        int records = 0;
+        Puzzle puzzle;
+        while ((puzzle = source.next()) != null) {
+            List<String> lines = puzzle.getLines();
+            try {
+                if (lines.get(0).indexOf(',') != -1) {
+                    writeSolution(lines, writer);
+                } else if (lines.size() > 2 && lines.get(2).indexOf(',') == -1) {
+                    killerGrid.initGrid(puzzle.getBytes());
+                    writer.writePuzzle(killerGrid);
+                } else {
+                    stdGrid.initGrid(puzzle.getBytes());
+                    writer.writePuzzle(stdGrid);
+                }
+            } catch (RuntimeException e) {
+                throw new IOException(puzzle.getId() + ": " + e.getMessage(), e);
+            }
+            records++;
+        }
+
+        return records;
+
+    } // end of toBinary()
+
+
+    /**
+     * Writes every record of a binary file as text, separated by blank lines so the output can
+     * be read back as a batch
+     *
+     * @param file binary file
+     * @param out  where the text is written
+     */
+    public void toText(BinaryPuzzleFile file, PrintWriter out) {
+
+        for (int r = 0; r < file.size(); r++) {
+            if (r > 0) {
+                out.println();
+            }
+            for (String line : file.toLines(r)) {
+                out.println(line);
+            }
+        }
+        out.flush();
+
+    } // end of toText()
+
+
+    /**
+     * Writes every record of a binary file as a text file of its own in a directory, numbered
+     * in record order - record-000001.in for puzzles, record-000001.exp for solutions
+     *
+     * @param file binary file
+     * @param dir  directory to write to
+     * @throws IOException if a file cannot be written
+     */
+    public void toText(BinaryPuzzleFile file, Path dir) throws IOException {
+
+        for (int r = 0; r < file.size(); r++) {
+            String extension = file.getKind(r) == BinaryPuzzleFile.SOLUTION ? ".exp" : ".in";
+            Files.write(dir.resolve(String.format("record-%06d%s", r + 1, extension)), file.toLines(r));
+        }
+
+    } // end of toText()
+
+
+    /**
+     * Writes a .exp solution - comma separated rows, the symbols taken as 1 to n unless other
+     * values appear
+     */
+    private static void writeSolution(List<String> lines, BinaryPuzzleWriter writer) throws IOException {
+
+        int gridDimension = lines.size();
+        short[] cells = new short[gridDimension * gridDimension];
+        TreeSet<Integer> values = new TreeSet<>();
+
+        for (int i = 0; i < gridDimension; i++) {
+            String[] row = lines.get(i).trim().split(",");
+            if (row.length != gridDimension) {
+                throw new IllegalArgumentException("row " + i + " has " + row.length + " cells, expected "
+                        + gridDimension);
+            }
+            for (int j = 0; j < gridDimension; j++) {
+                cells[i * gridDimension + j] = Short.parseShort(row[j].trim());
+                values.add((int) cells[i * gridDimension + j]);
+            }
+        }
+
+        int[] symbols = new int[gridDimension];
+        if (values.first() >= 1 && values.last() <= gridDimension) {
+            for (int k = 0; k < gridDimension; k++) {
+                symbols[k] = k + 1;
+            }
+        } else {
+            if (values.size() > gridDimension) {
+                throw new IllegalArgumentException("more than " + gridDimension + " different values");
+            }
+            int k = 0;
+            for (int value : values) {
+                symbols[k++] = value;
+            }
+            // Symbols the solution never uses are unknown, any distinct values do
+            for (int extra = values.last() + 1; k < gridDimension; k++) {
+                symbols[k] = extra++;
+            }
+        }
+
+        writer.writeCells(BinaryPuzzleFile.SOLUTION, gridDimension, symbols, cells, Integer.MIN_VALUE);
+
+    } // end of writeSolution()
+
+
+} // end of class FormatConverter
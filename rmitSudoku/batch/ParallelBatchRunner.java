@@ -0,0 +1,336 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package batch;
+
+import grid.GridWriter;
+import grid.SudokuGrid;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+
+/**
+ * Solves the puzzles of a batch on several threads.
+ * Solvers keep their search state in fields, so each worker thread gets its own BatchRunner
+ * (grid and solver) from the factory and keeps it for the whole batch.  The calling thread
+ * reads the puzzles into a bounded queue and the workers take the next puzzle as soon as they
+ * are free, so a slow puzzle never holds up the others.  Results are written in input order,
+ * or as soon as each is ready.  At most queueCapacity + threads puzzles are read but not yet
+ * written at any time, which bounds the memory used however large the batch.
+ * Solved grids can be streamed to a solutions file too, in the same order as the results; a
+ * worker copies its grid's cells before taking the next puzzle.
+ * A puzzle whose solve throws an exception or overflows the stack gets an ERROR result.  Any
+ * other failure kills its worker: the puzzle still gets an ERROR result, and the run stops
+ * and throws the failure rather than waiting on a worker that is gone.
+ */
+public class ParallelBatchRunner {
+
+    // Tells a worker there are no more puzzles
+    private static final Job END = new Job(-1, null);
+
+    private final Supplier<BatchRunner> runnerFactory;
+    private final int threads;
+    private final int queueCapacity;
+    private final boolean ordered;
+
+    // Output state, guarded by this
+    private final BatchSummary summary;
+    private final HashMap<Long, Finished> waiting;
+    private long nextToWrite;
+    private PrintWriter out;
+    private Semaphore window;
+    // Where solved grids are written, null if they are not, and the first failure to write one
+    private GridWriter solutionWriter;
+    private IOException writeError;
+    // First failure that killed a worker, and whether run() may still be interrupted by one
+    private Throwable failure;
+    private boolean running;
+
+
+    /**
+     * Constructor
+     *
+     * @param runnerFactory creates the grid and solver of one worker thread
+     * @param threads       number of worker threads
+     * @param queueCapacity number of puzzles read ahead of the workers
+     * @param ordered       whether results are written in input order, rather than as they finish
+     */
+    public ParallelBatchRunner(Supplier<BatchRunner> runnerFactory, int threads, int queueCapacity, boolean ordered) {
+
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Threads and queue capacity must be at least 1");
+        }
+
+        this.runnerFactory = runnerFactory;
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.ordered = ordered;
+        summary = new BatchSummary();
+        waiting = new HashMap<>();
+
+    } // end of ParallelBatchRunner()
+
+
+    /**
+     * Writes the grid of every solved puzzle, in result order, when running the batch
+     *
+     * @param solutionWriter where solved grids are written, null to not write them
+     */
+    public void setSolutionWriter(GridWriter solutionWriter) {
+        this.solutionWriter = solutionWriter;
+    }
+
+
+    /**
+     * Solves every puzzle of the source, writing a result line for each
+     *
+     * @param source puzzles to solve
+     * @param out    where the result lines are written
+     * @throws IOException if the source cannot be read, a solution cannot be written, or the
+     *                     run is interrupted
+     * @throws Error       the failure that killed a worker, after its puzzle's result is written
+     */
+    public void run(PuzzleSource source, PrintWriter out) throws IOException {
+
+        BlockingQueue<Job> queue = new ArrayBlockingQueue<>(queueCapacity);
+        Thread reader = Thread.currentThread();
+        synchronized (this) {
+            this.out = out;
+            nextToWrite = 0;
+            writeError = null;
+            failure = null;
+            running = true;
+        }
+        window = new Semaphore(queueCapacity + threads);
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            workers.execute(() -> work(queue, reader));
+        }
+
+        try {
+            long sequence = 0;
+            Puzzle puzzle;
+            while ((puzzle = source.next()) != null) {
+                window.acquire();
+                queue.put(new Job(sequence++, puzzle));
+            }
+
+            for (int t = 0; t < threads; t++) {
+                queue.put(END);
+            }
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            // A dying worker interrupts the reader too, its failure is thrown below
+            synchronized (this) {
+                if (failure == null) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Batch interrupted");
+                }
+            }
+            // The other workers still write the puzzles they are part way through
+            try {
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException again) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Batch interrupted");
+            }
+
+        } finally {
+            // Stop the workers if reading failed, they are blocked on the queue
+            workers.shutdownNow();
+            synchronized (this) {
+                running = false;
+                out.flush();
+            }
+        }
+
+        synchronized (this) {
+            if (failure != null) {
+                // Clear the dying worker's interrupt, if it came after the reader stopped waiting
+                Thread.interrupted();
+                throw rethrow(failure);
+            }
+            if (writeError != null) {
+                throw writeError;
+            }
+        }
+
+    } // end of run()
+
+
+    /**
+     * Throws the failure that killed a worker as it is if unchecked, in an IOException if not
+     */
+    private static IOException rethrow(Throwable failure) {
+
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+
+        return new IOException("Batch worker failed", failure);
+
+    } // end of rethrow()
+
+
+    /**
+     * Worker loop - solves puzzles from the queue with the worker's own grid and solver
+     *
+     * @param queue  puzzles to solve
+     * @param reader thread running the batch, interrupted if the worker dies
+     */
+    private void work(BlockingQueue<Job> queue, Thread reader) {
+
+        // Puzzle taken from the queue whose result is not written yet
+        Job pending = null;
+
+        try {
+            BatchRunner runner = runnerFactory.get();
+            while ((pending = queue.take()) != END) {
+                Job job = pending;
+                PuzzleResult result;
+                try {
+                    result = runner.solve(job.puzzle);
+                } catch (RuntimeException | StackOverflowError e) {
+                    result = new PuzzleResult(job.puzzle.getId(), PuzzleResult.Status.ERROR, 0, 0, e.toString());
+                }
+
+                // The grid is reloaded by the next puzzle, so keep a copy of the solution
+                short[] cells = null;
+                if (solutionWriter != null && result.getStatus() == PuzzleResult.Status.SOLVED) {
+                    SudokuGrid grid = runner.getGrid();
+                    cells = new short[grid.getGridDimension() * grid.getGridDimension()];
+                    grid.copyCells(cells);
+                }
+                pending = null;
+                write(job.sequence, new Finished(result, cells, runner.getGrid().getGridDimension()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            // Ordered output waits for every result, so the puzzle gets one before the run stops
+            if (pending != null && pending != END) {
+                write(pending.sequence, new Finished(new PuzzleResult(pending.puzzle.getId(),
+                        PuzzleResult.Status.ERROR, 0, 0, e.toString()), null, 0));
+            }
+            fail(e, reader);
+        }
+
+    } // end of work()
+
+
+    /**
+     * Records the failure that killed a worker, and wakes the reader to stop the run
+     */
+    private synchronized void fail(Throwable e, Thread reader) {
+
+        if (failure == null) {
+            failure = e;
+            if (running) {
+                reader.interrupt();
+            }
+        }
+
+    } // end of fail()
+
+
+    /**
+     * Writes a result, or holds it back until every earlier result is written if ordered
+     *
+     * @param sequence position of the puzzle in the batch
+     * @param finished result of the puzzle, and its solution if written
+     */
+    private synchronized void write(long sequence, Finished finished) {
+
+        summary.record(finished.result);
+
+        if (!ordered) {
+            output(finished);
+            return;
+        }
+
+        waiting.put(sequence, finished);
+        while ((finished = waiting.remove(nextToWrite)) != null) {
+            output(finished);
+            nextToWrite++;
+        }
+
+    } // end of write()
+
+
+    /**
+     * Writes the result line and the solution, and lets another puzzle be read
+     */
+    private void output(Finished finished) {
+
+        out.println(finished.result);
+        if (finished.cells != null && writeError == null) {
+            try {
+                solutionWriter.write(finished.cells, finished.gridDimension);
+            } catch (IOException e) {
+                writeError = e;
+            }
+        }
+        window.release();
+
+    } // end of output()
+
+
+    public synchronized BatchSummary getSummary() {
+        return summary;
+    }
+
+
+    /**
+     * A puzzle and its position in the batch
+     */
+    private static class Job {
+
+        private final long sequence;
+        private final Puzzle puzzle;
+
+        Job(long sequence, Puzzle puzzle) {
+            this.sequence = sequence;
+            this.puzzle = puzzle;
+        }
+
+    } // end of class Job
+
+
+    /**
+     * A result, and the solved cells if solutions are written
+     */
+    private static class Finished {
+
+        private final PuzzleResult result;
+        private final short[] cells;
+        private final int gridDimension;
+
+        Finished(PuzzleResult result, short[] cells, int gridDimension) {
+            this.result = result;
+            this.cells = cells;
+            this.gridDimension = gridDimension;
+        }
+
+    } // end of class Finished
+
+
+} // end of class ParallelBatchRunner
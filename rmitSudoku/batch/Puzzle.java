@@ -0,0 +1,76 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package batch;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * One puzzle of a batch - its id and the bytes of its input, in the same format as a
+ * single .in file.  The bytes are a slice of the batch file, decoded by the grid's parser.
+ */
+public class Puzzle {
+
+    private final String id;
+    private final ByteBuffer bytes;
+
+
+    /**
+     * Constructor
+     *
+     * @param id    id reported in the results, the file name (plus "#n" for the n-th puzzle of
+     *              a multi-puzzle file)
+     * @param bytes bytes of the puzzle, from position to limit
+     */
+    public Puzzle(String id, ByteBuffer bytes) {
+
+        this.id = id;
+        this.bytes = bytes;
+
+    } // end of Puzzle()
+
+
+    /**
+     * Splits the puzzle into lines, for tools that look at the text rather than solve it
+     *
+     * @return lines of the puzzle
+     */
+    public List<String> getLines() {
+
+        ArrayList<String> lines = new ArrayList<>();
+        for (String line : StandardCharsets.US_ASCII.decode(getBytes()).toString().split("\r?\n")) {
+            if (!line.trim().isEmpty()) {
+                lines.add(line);
+            }
+        }
+
+        return lines;
+
+    } // end of getLines()
+
+
+    /* ********************************************************* */
+
+    // Getters
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the puzzle's bytes, a view of its own so readers never move each other's position
+     */
+    public ByteBuffer getBytes() {
+        return bytes.duplicate();
+    }
+
+    /* ********************************************************* */
+
+
+} // end of class Puzzle
@@ -0,0 +1,122 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package batch;
+
+
+/**
+ * Outcome of solving one puzzle of a batch, written as one tab separated line:
+ * id, status, time taken (sec) and nodes explored.
+ */
+public class PuzzleResult {
+
+    /**
+     * How solving a puzzle ended
+     */
+    public enum Status {
+        // Solved, and the solution validates
+        SOLVED("solved"),
+        // The solver found no solution
+        UNSOLVED("unsolved"),
+        // The solver claimed a solution that does not validate
+        INVALID("invalid"),
+        // The puzzle could not be read
+        ERROR("error"),
+        // The solver gave up at the time limit
+        TIMED_OUT("timeout"),
+        // The solver gave up at the node limit
+        NODE_LIMIT("node-limit"),
+        // The solve was cancelled
+        CANCELLED("cancelled");
+
+        private final String name;
+
+        Status(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    } // end of enum Status
+
+
+    private final String id;
+    private final Status status;
+    private final long time;
+    private final long nodes;
+    // Reason for an ERROR, constraint an INVALID grid breaks, store or cache hit, or winning
+    // portfolio configuration - null if none
+    private final String message;
+
+
+    /**
+     * Constructor
+     *
+     * @param id      puzzle id
+     * @param status  how solving ended
+     * @param time    nanoseconds spent in the solver
+     * @param nodes   search nodes explored
+     * @param message reason for an ERROR, the constraint an INVALID grid breaks, whether the
+     *                solution came from a store or a cache, or the configuration that won a race, null
+     *                otherwise
+     */
+    public PuzzleResult(String id, Status status, long time, long nodes, String message) {
+
+        this.id = id;
+        this.status = status;
+        this.time = time;
+        this.nodes = nodes;
+        this.message = message;
+
+    } // end of PuzzleResult()
+
+
+    /* ********************************************************* */
+
+    // Getters
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /* ********************************************************* */
+
+
+    @Override
+    public String toString() {
+
+        StringBuilder line = new StringBuilder();
+
+        line.append(id).append('\t')
+                .append(status.getName()).append('\t')
+                .append(time / Math.pow(10, 9)).append('\t')
+                .append(nodes);
+        if (message != null) {
+            line.append('\t').append(message);
+        }
+
+        return line.toString();
+
+    } // end of toString()
+
+
+} // end of class PuzzleResult
@@ -0,0 +1,283 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+
+/**
+ * Streams the puzzles of a batch, one at a time, so a batch of any size is never held in
+ * memory.  A batch is a directory (every .in file in it), a glob on the file name (e.g.
+ * "sampleGames/std_*.in"), or a single file.  Every file may hold several puzzles separated
+ * by blank lines, each in the usual .in format.
+ * Puzzles are never decoded into lines - small files are read whole, large ones are
+ * memory-mapped a window at a time, and each puzzle is a slice of the file's bytes that the
+ * grid's PuzzleParser decodes directly.
+ */
+public class PuzzleSource implements Closeable {
+
+    // Files larger than this are memory-mapped rather than read whole
+    private static final long MAP_THRESHOLD = 1 << 20;
+    // Bytes of a large file mapped at once, unless a puzzle needs more
+    private static final long MAP_WINDOW = 1 << 26;
+
+    private final Iterator<Path> files;
+
+    // File being read, null between files, and the channel it is mapped through if large
+    private ByteBuffer data;
+    private FileChannel channel;
+    // Offset in the file of data's first byte, size of the file, and next byte of data to scan
+    private long dataStart;
+    private long fileSize;
+    private int scan;
+    private String fileId;
+    private int blockIndex;
+    // Next puzzle of the current file, read ahead to know whether the file holds more than one
+    private ByteBuffer pending;
+
+
+    /**
+     * Constructor
+     *
+     * @param files files of the batch, in the order they are solved
+     */
+    public PuzzleSource(Iterable<Path> files) {
+
+        this.files = files.iterator();
+
+    } // end of PuzzleSource()
+
+
+    /**
+     * Opens a batch
+     *
+     * @param spec directory, glob or file
+     * @return source of the batch's puzzles
+     * @throws IOException if the directory cannot be listed or the file does not exist
+     */
+    public static PuzzleSource open(String spec) throws IOException {
+
+        Path path = Paths.get(spec);
+        ArrayList<Path> files = new ArrayList<>();
+
+        if (Files.isDirectory(path)) {
+            files.addAll(list(path, "*.in"));
+        } else if (isGlob(spec)) {
+            Path dir = path.getParent() != null ? path.getParent() : Paths.get(".");
+            files.addAll(list(dir, path.getFileName().toString()));
+        } else if (Files.isRegularFile(path)) {
+            files.add(path);
+        } else {
+            throw new IOException("No such file or directory: " + spec);
+        }
+
+        return new PuzzleSource(files);
+
+    } // end of open()
+
+
+    /**
+     * Reads the next puzzle
+     *
+     * @return the puzzle, or null once the batch is exhausted
+     * @throws IOException if a file cannot be read
+     */
+    public Puzzle next() throws IOException {
+
+        while (true) {
+            if (data == null) {
+                if (!files.hasNext()) {
+                    return null;
+                }
+                openFile(files.next());
+                pending = readBlock();
+            }
+
+            ByteBuffer block = pending;
+            if (block == null) {
+                closeFile();
+                continue;
+            }
+
+            blockIndex++;
+            pending = readBlock();
+
+            // A file with one puzzle is known by its name alone
+            String id = blockIndex == 1 && pending == null ? fileId : fileId + "#" + blockIndex;
+            return new Puzzle(id, block);
+        }
+
+    } // end of next()
+
+
+    @Override
+    public void close() throws IOException {
+        closeFile();
+    }
+
+
+    /**
+     * Starts reading a file - read whole if small, the first window mapped if large
+     *
+     * @param file file to read
+     * @throws IOException if the file cannot be read
+     */
+    private void openFile(Path file) throws IOException {
+
+        fileId = file.getFileName().toString();
+        blockIndex = 0;
+        scan = 0;
+        dataStart = 0;
+        fileSize = Files.size(file);
+
+        if (fileSize > MAP_THRESHOLD) {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            map(0, MAP_WINDOW);
+        } else {
+            data = ByteBuffer.wrap(Files.readAllBytes(file));
+            fileSize = data.limit();
+        }
+
+    } // end of openFile()
+
+
+    /**
+     * Maps a window of the current large file.  Puzzles sliced from earlier windows stay valid.
+     *
+     * @param start offset in the file of the window
+     * @param size  bytes to map, fewer at the end of the file
+     * @throws IOException if the file cannot be mapped
+     */
+    private void map(long start, long size) throws IOException {
+
+        size = Math.min(size, fileSize - start);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException(fileId + ": puzzle too large to map");
+        }
+        data = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        dataStart = start;
+
+    } // end of map()
+
+
+    private void closeFile() throws IOException {
+
+        data = null;
+        pending = null;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+
+    } // end of closeFile()
+
+
+    /**
+     * Slices out the lines up to the next blank line or the end of the file, skipping leading
+     * blank lines
+     *
+     * @return the puzzle's bytes, or null at the end of the file
+     * @throws IOException if the next window of the file cannot be mapped
+     */
+    private ByteBuffer readBlock() throws IOException {
+
+        int blockStart = -1;
+        int lineStart = scan;
+
+        while (true) {
+            int lineEnd = lineStart;
+            while (lineEnd < data.limit() && data.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+
+            // The line runs past the mapped window - map again from the puzzle's first line
+            if (lineEnd == data.limit() && dataStart + data.limit() < fileSize) {
+                int from = blockStart == -1 ? lineStart : blockStart;
+                map(dataStart + from, Math.max(MAP_WINDOW, 2L * (data.limit() - from)));
+                lineStart -= from;
+                if (blockStart != -1) {
+                    blockStart = 0;
+                }
+                continue;
+            }
+
+            if (isBlank(lineStart, lineEnd)) {
+                if (blockStart != -1) {
+                    scan = lineEnd;
+                    return data.slice(blockStart, lineStart - blockStart);
+                }
+            } else if (blockStart == -1) {
+                blockStart = lineStart;
+            }
+
+            if (lineEnd == data.limit()) {
+                scan = lineEnd;
+                return blockStart == -1 ? null : data.slice(blockStart, lineEnd - blockStart);
+            }
+            lineStart = lineEnd + 1;
+        }
+
+    } // end of readBlock()
+
+
+    /**
+     * Whether a line holds nothing but whitespace, as String.trim() sees it
+     */
+    private boolean isBlank(int from, int to) {
+
+        for (int b = from; b < to; b++) {
+            if ((data.get(b) & 0xFF) > ' ') {
+                return false;
+            }
+        }
+
+        return true;
+
+    } // end of isBlank()
+
+
+    /**
+     * Lists the files of a directory matching a glob, sorted by name
+     *
+     * @param dir  directory
+     * @param glob glob on the file name
+     * @return matching files
+     * @throws IOException if the directory cannot be listed
+     */
+    private static ArrayList<Path> list(Path dir, String glob) throws IOException {
+
+        ArrayList<Path> files = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, glob)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(null);
+
+        return files;
+
+    } // end of list()
+
+
+    private static boolean isGlob(String spec) {
+        return spec.indexOf('*') != -1 || spec.indexOf('?') != -1 || spec.indexOf('[') != -1 || spec.indexOf('{') != -1;
+    }
+
+
+} // end of class PuzzleSource
@@ -0,0 +1,41 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Runs the benchmarks with the usual JMH command line, adding the GC profiler so every result
+ * comes with its allocation rate (gc.alloc.rate.norm is bytes allocated per operation).
+ * Give -prof to use other profilers instead, and -lp to list them.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()
+                || commandLine.shouldListWithParams() || commandLine.shouldListResultFormats()) {
+            // Listing only - let JMH's own main print it
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+
+        new Runner(options.build()).run();
+
+    } // end of main()
+
+} // end of class BenchmarkMain
@@ -0,0 +1,76 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package benchmarks;
+
+import grid.SudokuGrid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Time to load a puzzle into a grid - parsing lines already in memory, and reading the file
+ * as well.  The grid is reused, as in batch mode, so only the parse is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"easy-std-44-01.in", "easy-std-44-test.in", "easy-std-99-01.in", "easy-std-99-test.in",
+            "std_99.in", "std_99_cs.in", "std_1616.in",
+            "easy-killer-44-01.in", "easy-killer-99-01.in", "killer_99.in", "killer_99_cs.in"})
+    public String puzzle;
+
+    private List<String> lines;
+    private String filename;
+    private SudokuGrid grid;
+
+
+    @Setup
+    public void setup() {
+
+        lines = Samples.lines(puzzle);
+        filename = Samples.path(puzzle).toString();
+        grid = Samples.newGrid(puzzle);
+
+    } // end of setup()
+
+
+    @Benchmark
+    public SudokuGrid parseLines() {
+
+        grid.initGrid(lines);
+        return grid;
+
+    } // end of parseLines()
+
+
+    @Benchmark
+    public SudokuGrid readAndParse() throws IOException {
+
+        grid.initGrid(filename);
+        return grid;
+
+    } // end of readAndParse()
+
+
+} // end of class ParseBenchmark
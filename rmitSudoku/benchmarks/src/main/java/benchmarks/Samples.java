@@ -0,0 +1,93 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package benchmarks;
+
+import grid.KillerSudokuGrid;
+import grid.StdSudokuGrid;
+import grid.SudokuGrid;
+import solver.AlgorXSolver;
+import solver.BackTrackingSolver;
+import solver.DancingLinksSolver;
+import solver.KillerAdvancedSolver;
+import solver.KillerBackTrackingSolver;
+import solver.SudokuSolver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+
+/**
+ * Puzzles, grids and solvers for the benchmarks, by the names RmitSudoku uses.
+ * Puzzle files are read from the sampleGames directory, relative to the directory the
+ * benchmarks are run from (rmitSudoku), or from the directory in the sudoku.samples property.
+ */
+final class Samples {
+
+    private Samples() {
+    }
+
+
+    /**
+     * @param puzzle file name in sampleGames, e.g. "std_99.in"
+     * @return path of the file
+     */
+    static Path path(String puzzle) {
+        return Paths.get(System.getProperty("sudoku.samples", "sampleGames"), puzzle);
+    }
+
+
+    /**
+     * @param puzzle file name in sampleGames
+     * @return lines of the file
+     */
+    static List<String> lines(String puzzle) {
+
+        try {
+            return Files.readAllLines(path(puzzle));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + path(puzzle) + ", run from rmitSudoku", e);
+        }
+
+    } // end of lines()
+
+
+    /**
+     * @param puzzle file name in sampleGames, killer puzzles have "killer" in their name
+     * @return an empty grid of the puzzle's game type
+     */
+    static SudokuGrid newGrid(String puzzle) {
+        return puzzle.contains("killer") ? new KillerSudokuGrid() : new StdSudokuGrid();
+    }
+
+
+    /**
+     * @param solverType solver name as on the RmitSudoku command line
+     * @param killer     whether the solver is for killer Sudoku
+     * @return a new solver
+     */
+    static SudokuSolver newSolver(String solverType, boolean killer) {
+
+        switch (solverType) {
+            case "backtracking":
+                return killer ? new KillerBackTrackingSolver() : new BackTrackingSolver();
+            case "algorx":
+                return new AlgorXSolver();
+            case "dancing":
+                return new DancingLinksSolver();
+            case "advanced":
+                return new KillerAdvancedSolver();
+            default:
+                throw new IllegalArgumentException("Unknown solver " + solverType);
+        }
+
+    } // end of newSolver()
+
+
+} // end of class Samples
@@ -0,0 +1,195 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package benchmarks;
+
+import generator.PuzzleGenerator;
+import grid.StdSudokuGrid;
+import grid.SudokuGrid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import solver.SudokuSolver;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Time to solve a puzzle, per solver, puzzle file and grid size.
+ * The search benchmarks reuse one solver, so its structures are already built, as in batch
+ * mode; each call restores the grid to the puzzle (a copy of the cells) and solves it.  The
+ * cold benchmarks make a new solver every call, so they add the solver's build cost - the
+ * difference between the two is the structure build time.
+ * Grid sizes beyond the sample files are covered by generated puzzles, a fixed set per size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+    /**
+     * A puzzle loaded into a grid, and a solver that has solved it once
+     */
+    abstract static class Loaded {
+
+        String solverType;
+        boolean killer;
+        SudokuGrid grid;
+        short[] cells;
+        SudokuSolver sudokuSolver;
+
+        void load(String solverType, String puzzleName) {
+
+            this.solverType = solverType;
+            killer = puzzleName.contains("killer");
+            grid = Samples.newGrid(puzzleName);
+            grid.initGrid(Samples.lines(puzzleName));
+            cells = new short[grid.getGridDimension() * grid.getGridDimension()];
+            grid.copyCells(cells);
+
+            sudokuSolver = Samples.newSolver(solverType, killer);
+            if (!sudokuSolver.solve(grid)) {
+                throw new IllegalStateException(solverType + " cannot solve " + puzzleName);
+            }
+
+        } // end of load()
+
+    } // end of class Loaded
+
+
+    @State(Scope.Thread)
+    public static class StdPuzzle extends Loaded {
+
+        @Param({"backtracking", "algorx", "dancing"})
+        public String solver;
+
+        @Param({"easy-std-44-01.in", "easy-std-44-test.in", "easy-std-99-01.in", "easy-std-99-test.in",
+                "std_99.in", "std_99_cs.in", "std_1616.in"})
+        public String puzzle;
+
+        @Setup
+        public void setup() {
+            load(solver, puzzle);
+        }
+
+    } // end of class StdPuzzle
+
+
+    @State(Scope.Thread)
+    public static class KillerPuzzle extends Loaded {
+
+        @Param({"backtracking", "advanced"})
+        public String solver;
+
+        @Param({"easy-killer-44-01.in", "easy-killer-99-01.in", "killer_99.in", "killer_99_cs.in"})
+        public String puzzle;
+
+        @Setup
+        public void setup() {
+            load(solver, puzzle);
+        }
+
+    } // end of class KillerPuzzle
+
+
+    @State(Scope.Thread)
+    public static class Generated {
+
+        // Puzzles per size, solved in turn
+        private static final int PUZZLES = 16;
+
+        @Param({"backtracking", "algorx", "dancing"})
+        public String solver;
+
+        @Param({"4", "9", "16"})
+        public int gridSize;
+
+        private SudokuGrid grid;
+        private short[][] puzzles;
+        private SudokuSolver sudokuSolver;
+        private int next;
+
+        @Setup
+        public void setup() {
+
+            // Same seed every run, so every solver and run sees the same puzzles
+            PuzzleGenerator generator = new PuzzleGenerator(new Random(gridSize));
+            grid = new StdSudokuGrid();
+            puzzles = new short[PUZZLES][];
+            for (int p = 0; p < PUZZLES; p++) {
+                grid.initGrid(generator.generateStandard(gridSize).getLines());
+                puzzles[p] = new short[gridSize * gridSize];
+                grid.copyCells(puzzles[p]);
+            }
+
+            sudokuSolver = Samples.newSolver(solver, false);
+
+        } // end of setup()
+
+    } // end of class Generated
+
+
+    @Benchmark
+    public boolean searchStd(StdPuzzle state) {
+        return search(state);
+    }
+
+
+    @Benchmark
+    public boolean searchKiller(KillerPuzzle state) {
+        return search(state);
+    }
+
+
+    @Benchmark
+    public boolean searchGenerated(Generated state) {
+
+        state.grid.restoreCells(state.puzzles[state.next]);
+        state.next = (state.next + 1) % Generated.PUZZLES;
+        return state.sudokuSolver.solve(state.grid);
+
+    } // end of searchGenerated()
+
+
+    @Benchmark
+    public boolean coldSolveStd(StdPuzzle state) {
+        return coldSolve(state);
+    }
+
+
+    @Benchmark
+    public boolean coldSolveKiller(KillerPuzzle state) {
+        return coldSolve(state);
+    }
+
+
+    private static boolean search(Loaded state) {
+
+        state.grid.restoreCells(state.cells);
+        return state.sudokuSolver.solve(state.grid);
+
+    } // end of search()
+
+
+    private static boolean coldSolve(Loaded state) {
+
+        state.grid.restoreCells(state.cells);
+        return Samples.newSolver(state.solverType, state.killer).solve(state.grid);
+
+    } // end of coldSolve()
+
+
+} // end of class SolverBenchmark
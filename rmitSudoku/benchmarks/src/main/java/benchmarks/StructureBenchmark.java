@@ -0,0 +1,101 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package benchmarks;
+
+import grid.CageIndex;
+import grid.GridGeometry;
+import grid.PuzzleParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import solver.DancingLinksMatrix;
+import solver.ExactCoverEncoding;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Time to build the structures the solvers search over, which they build once per grid size
+ * (the exact cover matrix) or once per puzzle (the cage index of a killer grid).
+ * SolverBenchmark's cold solves give the build cost of the solvers that keep their
+ * structures private.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StructureBenchmark {
+
+    @State(Scope.Thread)
+    public static class Size {
+
+        @Param({"4", "9", "16", "25"})
+        public int gridSize;
+
+        private GridGeometry geometry;
+
+        @Setup
+        public void setup() {
+            geometry = GridGeometry.forDimension(gridSize);
+        }
+
+    } // end of class Size
+
+
+    @State(Scope.Thread)
+    public static class Cages {
+
+        @Param({"easy-killer-44-01.in", "easy-killer-99-01.in", "killer_99.in", "killer_99_cs.in"})
+        public String puzzle;
+
+        private PuzzleParser parser;
+        private int[] symbols;
+
+        @Setup
+        public void setup() {
+
+            parser = new PuzzleParser();
+            parser.parseKiller(parser.wrap(Samples.lines(puzzle)));
+            symbols = Arrays.copyOf(parser.getSymbols(), parser.getGridDimension());
+
+        } // end of setup()
+
+    } // end of class Cages
+
+
+    /**
+     * Dancing links matrix, as built by the dancing links and advanced killer solvers
+     */
+    @Benchmark
+    public DancingLinksMatrix exactCoverMatrix(Size size) {
+        return ExactCoverEncoding.buildDancingLinks(size.geometry);
+    }
+
+
+    /**
+     * Cage index, as built from the parsed offset tables when a killer puzzle is loaded
+     */
+    @Benchmark
+    public CageIndex cageIndex(Cages cages) {
+
+        PuzzleParser parser = cages.parser;
+        return new CageIndex(parser.getGridDimension(), cages.symbols, 0, parser.getCageCount(),
+                parser.getCageTotals(), parser.getCageStart(), parser.getCageCellList());
+
+    } // end of cageIndex()
+
+
+} // end of class StructureBenchmark
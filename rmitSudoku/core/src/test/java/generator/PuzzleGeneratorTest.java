@@ -0,0 +1,58 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package generator;
+
+import grid.StdSudokuGrid;
+import org.junit.jupiter.api.Test;
+import solver.DancingLinksSolver;
+
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Standard puzzle generation on large grids - with the node limit on each uniqueness check
+ * and the default cap on removals, 16x16 and 25x25 puzzles come out within seconds, and every
+ * puzzle still has one solution.
+ */
+class PuzzleGeneratorTest {
+
+    // Far more than either size takes, well short of the minutes a check without a limit can
+    private static final Duration TIME_LIMIT = Duration.ofSeconds(60);
+
+
+    /**
+     * Generates a standard puzzle within the time limit and checks it has one solution
+     */
+    private static void assertGeneratesUnique(int gridDimension, long seed) {
+
+        GeneratedPuzzle puzzle = assertTimeoutPreemptively(TIME_LIMIT,
+                () -> new PuzzleGenerator(new Random(seed)).generateStandard(gridDimension));
+
+        StdSudokuGrid grid = new StdSudokuGrid();
+        grid.initGrid(puzzle.getLines());
+        assertTrue(puzzle.getClues() < gridDimension * gridDimension);
+        assertTrue(new DancingLinksSolver().hasUniqueSolution(grid));
+
+    } // end of assertGeneratesUnique()
+
+
+    @Test
+    void generates16x16() {
+        assertGeneratesUnique(16, 1);
+    }
+
+
+    @Test
+    void generates25x25() {
+        assertGeneratesUnique(25, 1);
+    }
+
+
+} // end of class PuzzleGeneratorTest
@@ -0,0 +1,68 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package grid;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+/**
+ * Running cage state - a symbol held twice by a cage stays used until both copies leave, and
+ * values that are not symbols change the sum without touching the used bits.
+ */
+class CageIndexTest {
+
+    private static final int[] SYMBOLS = {1, 2, 3, 4};
+    private static final int EMPTY = 0;
+
+
+    /**
+     * A 4x4 grid with one cage over the top row, totalling 10
+     */
+    private static CageIndex topRowCage() {
+        return new CageIndex(4, SYMBOLS, EMPTY, 1, new int[]{10}, new int[]{0, 4}, new int[]{0, 1, 2, 3});
+    }
+
+
+    @Test
+    void duplicateSymbolStaysUsedUntilBothLeave() {
+
+        CageIndex index = topRowCage();
+        index.update(0, EMPTY, 3);
+        index.update(1, EMPTY, 3);
+        assertEquals(1L << 2, index.getCageUsed(0));
+
+        index.update(0, 3, EMPTY);
+        assertEquals(1L << 2, index.getCageUsed(0));
+        assertEquals(3, index.getCageSum(0));
+        assertEquals(3, index.getCageEmpty(0));
+
+        index.update(1, 3, 2);
+        assertEquals(1L << 1, index.getCageUsed(0));
+        assertEquals(2, index.getCageSum(0));
+
+    } // end of duplicateSymbolStaysUsedUntilBothLeave()
+
+
+    @Test
+    void invalidValueOnlyChangesSum() {
+
+        CageIndex index = topRowCage();
+        index.update(0, EMPTY, 2);
+        index.update(1, EMPTY, 9);
+        assertEquals(1L << 1, index.getCageUsed(0));
+        assertEquals(11, index.getCageSum(0));
+
+        index.update(1, 9, EMPTY);
+        assertEquals(1L << 1, index.getCageUsed(0));
+        assertEquals(2, index.getCageSum(0));
+        assertEquals(3, index.getCageEmpty(0));
+
+    } // end of invalidValueOnlyChangesSum()
+
+
+} // end of class CageIndexTest
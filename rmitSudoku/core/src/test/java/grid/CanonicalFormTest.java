@@ -0,0 +1,133 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package grid;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+
+/**
+ * Canonical forms of standard grids - copies under the Sudoku symmetry group share a form,
+ * and the form's transform maps a canonical solution back to each copy's own solution.
+ */
+class CanonicalFormTest {
+
+    static final int N = 9;
+    static final int[] SYMBOLS = {1, 2, 3, 4, 5, 6, 7, 8, 9};
+    static final int EMPTY = -1;
+
+    // Relabelling of the copies, symbol s becomes RELABEL[s - 1]
+    static final int[] RELABEL = {4, 9, 1, 7, 3, 8, 2, 6, 5};
+
+
+    /**
+     * A valid filled 9x9 grid
+     */
+    static short[] solution() {
+
+        short[] cells = new short[N * N];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                cells[i * N + j] = (short) ((i * 3 + i / 3 + j) % N + 1);
+            }
+        }
+
+        return cells;
+
+    } // end of solution()
+
+
+    /**
+     * The solution with about half the cells emptied, the same cells for the same seed
+     */
+    static short[] puzzle(long seed) {
+
+        short[] cells = solution();
+        Random random = new Random(seed);
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (random.nextBoolean()) {
+                cells[cell] = EMPTY;
+            }
+        }
+
+        return cells;
+
+    } // end of puzzle()
+
+
+    /**
+     * A copy of the grid transposed, with the top and bottom bands swapped, and relabelled
+     */
+    static short[] transform(short[] cells) {
+
+        short[] copy = new short[cells.length];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                // Row i of the copy is row i of the transpose, from the opposite band
+                int row = (2 - i / 3) * 3 + i % 3;
+                int value = cells[j * N + row];
+                copy[i * N + j] = (short) (value == EMPTY ? EMPTY : RELABEL[value - 1]);
+            }
+        }
+
+        return copy;
+
+    } // end of transform()
+
+
+    @Test
+    void transformedCopyHasEqualForm() {
+
+        GridCanonicalizer canonicalizer = new GridCanonicalizer();
+        CanonicalForm form = canonicalizer.canonicalize(puzzle(1), N, SYMBOLS, EMPTY);
+        CanonicalForm copy = canonicalizer.canonicalize(transform(puzzle(1)), N, SYMBOLS, EMPTY);
+
+        assertEquals(form, copy);
+        assertEquals(form.getHash(), copy.getHash());
+        assertArrayEquals(form.getCells(), copy.getCells());
+
+        assertNotEquals(form, canonicalizer.canonicalize(puzzle(2), N, SYMBOLS, EMPTY));
+
+    } // end of transformedCopyHasEqualForm()
+
+
+    @Test
+    void fromCanonicalInvertsToCanonical() {
+
+        CanonicalForm form = new GridCanonicalizer().canonicalize(puzzle(3), N, SYMBOLS, EMPTY);
+        short[] solution = solution();
+
+        short[] back = new short[N * N];
+        form.fromCanonical(form.toCanonical(solution), back);
+
+        assertArrayEquals(solution, back);
+
+    } // end of fromCanonicalInvertsToCanonical()
+
+
+    @Test
+    void canonicalSolutionMapsToEachCopy() {
+
+        GridCanonicalizer canonicalizer = new GridCanonicalizer();
+        CanonicalForm form = canonicalizer.canonicalize(puzzle(4), N, SYMBOLS, EMPTY);
+        CanonicalForm copy = canonicalizer.canonicalize(transform(puzzle(4)), N, SYMBOLS, EMPTY);
+
+        // Solved once through the original, mapped out through the copy's transform
+        short[] canonical = form.toCanonical(solution());
+        short[] copySolution = new short[N * N];
+        copy.fromCanonical(canonical, copySolution);
+
+        assertArrayEquals(transform(solution()), copySolution);
+
+    } // end of canonicalSolutionMapsToEachCopy()
+
+
+} // end of class CanonicalFormTest
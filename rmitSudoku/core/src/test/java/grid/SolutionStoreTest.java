@@ -0,0 +1,230 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package grid;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * The on-disk solution store - records survive a reopen, a torn tail is truncated, an index
+ * is only used with the log it was written for, and compaction and remapping keep every
+ * live record readable.
+ */
+class SolutionStoreTest {
+
+    @TempDir
+    Path directory;
+
+
+    private static byte[] key(int k) {
+        return ("puzzle " + k).getBytes();
+    }
+
+
+    private static short[] cells(int k) {
+
+        short[] cells = new short[16];
+        for (int c = 0; c < cells.length; c++) {
+            cells[c] = (short) (k + c);
+        }
+
+        return cells;
+
+    } // end of cells()
+
+
+    /**
+     * Log offset after the first record, when every record is of key(k) and cells(k)
+     */
+    private static long firstEnd() {
+        return SolutionStore.HEADER_SIZE + SolutionStore.RECORD_OVERHEAD + key(1).length + 2 * cells(1).length;
+    }
+
+
+    private Path log() {
+        return directory.resolve(SolutionStore.LOG_NAME);
+    }
+
+    private Path index() {
+        return directory.resolve(SolutionStore.INDEX_NAME);
+    }
+
+
+    @Test
+    void recordsSurviveReopen() throws IOException {
+
+        try (SolutionStore store = new SolutionStore(directory)) {
+            store.put(key(1), cells(1));
+            store.put(key(2), null);
+            store.put(key(3), cells(3));
+            store.put(key(3), cells(30));
+        }
+
+        try (SolutionStore store = new SolutionStore(directory)) {
+            assertArrayEquals(cells(1), store.get(key(1)));
+            assertEquals(0, store.get(key(2)).length);
+            assertArrayEquals(cells(30), store.get(key(3)));
+            assertNull(store.get(key(4)));
+            assertEquals(3, store.size());
+            assertEquals(1, store.getDeadRecords());
+        }
+
+    } // end of recordsSurviveReopen()
+
+
+    @Test
+    void tornTailIsTruncated() throws IOException {
+
+        try (SolutionStore store = new SolutionStore(directory)) {
+            store.put(key(1), cells(1));
+            store.put(key(2), cells(2));
+        }
+        long whole = Files.size(log());
+
+        // A copy of the last record cut short by a crash, logged after the index was written
+        byte[] bytes = Files.readAllBytes(log());
+        byte[] torn = Arrays.copyOfRange(bytes, (int) firstEnd(), bytes.length - 3);
+        Files.write(log(), torn, StandardOpenOption.APPEND);
+
+        try (SolutionStore store = new SolutionStore(directory)) {
+            assertEquals(whole, store.getLogSize());
+            assertArrayEquals(cells(1), store.get(key(1)));
+            assertArrayEquals(cells(2), store.get(key(2)));
+            store.put(key(3), cells(3));
+        }
+
+        try (SolutionStore store = new SolutionStore(directory)) {
+            assertArrayEquals(cells(3), store.get(key(3)));
+            assertEquals(3, store.size());
+        }
+
+    } // end of tornTailIsTruncated()
+
+
+    @Test
+    void recordFailingItsCrcIsTruncated() throws IOException {
+
+        try (SolutionStore store = new SolutionStore(directory)) {
+            store.put(key(1), cells(1));
+            store.put(key(2), cells(2));
+        }
+        long firstEnd = firstEnd();
+
+        // Without an index the whole log is scanned, and the second record's last cell is flipped
+        Files.delete(index());
+        byte[] bytes = Files.readAllBytes(log());
+        bytes[bytes.length - 5] ^= 1;
+        Files.write(log(), bytes);
+
+        try (SolutionStore store = new SolutionStore(directory)) {
+            assertEquals(firstEnd, store.getLogSize());
+            assertArrayEquals(cells(1), store.get(key(1)));
+            assertNull(store.get(key(2)));
+        }
+        assertEquals(firstEnd, Files.size(log()));
+
+    } // end of recordFailingItsCrcIsTruncated()
+
+
+    @Test
+    void indexOfAnotherLogIsIgnored(@TempDir Path other) throws IOException {
+
+        try (SolutionStore store = new SolutionStore(directory)) {
+            store.put(key(1), cells(1));
+        }
+        try (SolutionStore store = new SolutionStore(other)) {
+            store.put(key(7), cells(7));
+            store.put(key(8), cells(8));
+        }
+
+        // An index of another store's log, whose offsets mean nothing in this one
+        Files.copy(other.resolve(SolutionStore.INDEX_NAME), index(), StandardCopyOption.REPLACE_EXISTING);
+
+        try (SolutionStore store = new SolutionStore(directory)) {
+            assertEquals(1, store.size());
+            assertArrayEquals(cells(1), store.get(key(1)));
+            assertNull(store.get(key(7)));
+            assertNull(store.get(key(8)));
+        }
+
+    } // end of indexOfAnotherLogIsIgnored()
+
+
+    @Test
+    void compactionReplacesLog() throws IOException {
+
+        try (SolutionStore store = new SolutionStore(directory)) {
+            for (int k = 0; k < 10; k++) {
+                store.put(key(k), cells(k));
+            }
+        }
+        byte[] oldIndex = Files.readAllBytes(index());
+
+        long before;
+        try (SolutionStore store = new SolutionStore(directory)) {
+            // Each put leaves the previous record of key 0 dead, until compaction copies the live ones
+            for (int p = 0; p <= SolutionStore.COMPACT_MIN_DEAD; p++) {
+                store.put(key(0), cells(100 + p));
+            }
+            assertEquals(1, store.getCompactions());
+            assertTrue(store.getDeadRecords() < SolutionStore.COMPACT_MIN_DEAD);
+            before = store.getLogSize();
+            assertArrayEquals(cells(100 + SolutionStore.COMPACT_MIN_DEAD), store.get(key(0)));
+        }
+        assertFalse(Files.exists(directory.resolve(SolutionStore.LOG_NAME + ".tmp")));
+
+        // The index from before compaction belongs to the old log, so it must not be used
+        Files.write(index(), oldIndex);
+
+        try (SolutionStore store = new SolutionStore(directory)) {
+            assertEquals(before, store.getLogSize());
+            assertEquals(10, store.size());
+            assertArrayEquals(cells(100 + SolutionStore.COMPACT_MIN_DEAD), store.get(key(0)));
+            for (int k = 1; k < 10; k++) {
+                assertArrayEquals(cells(k), store.get(key(k)));
+            }
+        }
+
+    } // end of compactionReplacesLog()
+
+
+    @Test
+    void recordsAppendedAfterMappingAreRead() throws IOException {
+
+        try (SolutionStore store = new SolutionStore(directory)) {
+            store.put(key(1), cells(1));
+            assertArrayEquals(cells(1), store.get(key(1)));
+
+            // Logged past the end of the current map
+            for (int k = 2; k < 50; k++) {
+                store.put(key(k), cells(k));
+                assertArrayEquals(cells(k), store.get(key(k)));
+            }
+            store.compact();
+            store.put(key(50), cells(50));
+            for (int k = 1; k <= 50; k++) {
+                assertArrayEquals(cells(k), store.get(key(k)));
+            }
+        }
+
+    } // end of recordsAppendedAfterMappingAreRead()
+
+
+} // end of class SolutionStoreTest
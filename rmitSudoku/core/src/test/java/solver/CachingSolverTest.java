@@ -0,0 +1,128 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import grid.StdSudokuGrid;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Solutions cached by canonical form - a transformed copy of a solved puzzle is answered
+ * from the cache, mapped back into the copy's own symbols and positions.
+ */
+class CachingSolverTest {
+
+    private static final int N = 9;
+
+    // A puzzle with one solution, and the same puzzle transposed, with the top and bottom
+    // bands swapped, and relabelled
+    private static final String[] PUZZLE = {
+            "53..7....",
+            "6..195...",
+            ".98....6.",
+            "8...6...3",
+            "4..8.3..1",
+            "7...2...6",
+            ".6....28.",
+            "...419..5",
+            "....8..79"};
+    private static final int[] RELABEL = {4, 9, 1, 7, 3, 8, 2, 6, 5};
+
+
+    /**
+     * Input lines of a puzzle given as rows of digits, '.' for empty
+     */
+    private static List<String> lines(int[][] rows) {
+
+        List<String> lines = new ArrayList<>();
+        lines.add(String.valueOf(N));
+        lines.add("1 2 3 4 5 6 7 8 9");
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (rows[i][j] != 0) {
+                    lines.add(i + "," + j + " " + rows[i][j]);
+                }
+            }
+        }
+
+        return lines;
+
+    } // end of lines()
+
+
+    private static int[][] original() {
+
+        int[][] rows = new int[N][N];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                char c = PUZZLE[i].charAt(j);
+                rows[i][j] = c == '.' ? 0 : c - '0';
+            }
+        }
+
+        return rows;
+
+    } // end of original()
+
+
+    private static int[][] transformed() {
+
+        int[][] rows = original();
+        int[][] copy = new int[N][N];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                int value = rows[j][(2 - i / 3) * 3 + i % 3];
+                copy[i][j] = value == 0 ? 0 : RELABEL[value - 1];
+            }
+        }
+
+        return copy;
+
+    } // end of transformed()
+
+
+    @Test
+    void transformedCopyHitsCacheAndKeepsGivens() {
+
+        CachingSolver solver = new CachingSolver(new DancingLinksSolver(), new SolutionCache(16));
+
+        StdSudokuGrid grid = new StdSudokuGrid();
+        grid.initGrid(lines(original()));
+        assertTrue(solver.solve(grid));
+        assertFalse(solver.isLastHit());
+        assertTrue(grid.validate());
+
+        int[][] copy = transformed();
+        StdSudokuGrid copyGrid = new StdSudokuGrid();
+        copyGrid.initGrid(lines(copy));
+        assertTrue(solver.solve(copyGrid));
+        assertTrue(solver.isLastHit());
+        assertTrue(copyGrid.validate());
+
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                if (copy[i][j] != 0) {
+                    assertEquals(copy[i][j], copyGrid.getGridLoc(i, j), "given at " + i + "," + j);
+                }
+                // The copy's solution is the original's, transformed the same way
+                int value = grid.getGridLoc(j, (2 - i / 3) * 3 + i % 3);
+                assertEquals(RELABEL[value - 1], copyGrid.getGridLoc(i, j));
+            }
+        }
+
+        assertEquals(1, solver.getCache().getHits());
+
+    } // end of transformedCopyHitsCacheAndKeepsGivens()
+
+
+} // end of class CachingSolverTest
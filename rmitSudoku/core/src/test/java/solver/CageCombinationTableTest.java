@@ -0,0 +1,70 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Cage combinations - the memoised table gives the same entries as the precomputed one,
+ * including for symbol sets where 0 is a symbol and a cell can make up a sum of 0.
+ */
+class CageCombinationTableTest {
+
+    /**
+     * Compares every (sum, size, available) entry of both kinds of table for a symbol set
+     */
+    private static void assertMemoMatchesPrecompute(int[] symbols) {
+
+        CageCombinationTable precomputed = new CageCombinationTable(symbols, true);
+        CageCombinationTable memoised = new CageCombinationTable(symbols, false);
+
+        int maxSum = 0;
+        for (int symbol : symbols) {
+            maxSum += symbol;
+        }
+
+        for (long available = 0; available <= precomputed.getAllSymbols(); available++) {
+            for (int size = 0; size <= symbols.length; size++) {
+                for (int sum = 0; sum <= maxSum; sum++) {
+                    String entry = "sum " + sum + ", size " + size + ", available " + Long.toBinaryString(available);
+                    assertEquals(precomputed.canComplete(sum, size, available),
+                            memoised.canComplete(sum, size, available), entry);
+                    assertEquals(precomputed.completions(sum, size, available),
+                            memoised.completions(sum, size, available), entry);
+                }
+            }
+        }
+
+    } // end of assertMemoMatchesPrecompute()
+
+
+    @Test
+    void memoMatchesPrecompute() {
+        assertMemoMatchesPrecompute(new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+    }
+
+
+    @Test
+    void memoMatchesPrecomputeWithZeroSymbol() {
+
+        int[] symbols = {0, 1, 2, 3, 4, 5, 6, 7, 8};
+        assertMemoMatchesPrecompute(symbols);
+
+        // A sum of 0 over one cell is made up by the 0 symbol, over two cells by nothing
+        CageCombinationTable memoised = new CageCombinationTable(symbols, false);
+        assertTrue(memoised.canComplete(0, 1, memoised.getAllSymbols()));
+        assertEquals(1L, memoised.completions(0, 1, memoised.getAllSymbols()));
+        assertEquals(0L, memoised.completions(0, 2, memoised.getAllSymbols()));
+        assertEquals(0b11L, memoised.completions(1, 2, memoised.getAllSymbols()));
+
+    } // end of memoMatchesPrecomputeWithZeroSymbol()
+
+
+} // end of class CageCombinationTableTest
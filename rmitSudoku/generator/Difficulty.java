@@ -0,0 +1,81 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package generator;
+
+
+/**
+ * Difficulty rating of a generated puzzle, from the search nodes a solver needed to solve it.
+ * The solvers always branch on the most constrained choice, so a puzzle that only needs
+ * singles takes one node per empty cell; every node beyond that is a guess that was undone.
+ * The rating is the nodes per empty cell, so puzzles of different sizes are rated alike.
+ */
+public enum Difficulty {
+
+    // No guessing - solved by singles alone
+    EASY("easy", 1.0),
+    // A few guesses
+    MEDIUM("medium", 1.5),
+    // Guesses at a fair share of the cells
+    HARD("hard", 4.0),
+    // Deep searches
+    EXPERT("expert", Double.MAX_VALUE);
+
+
+    private final String name;
+    // Highest nodes per empty cell of the rating
+    private final double maxNodesPerCell;
+
+
+    Difficulty(String name, double maxNodesPerCell) {
+        this.name = name;
+        this.maxNodesPerCell = maxNodesPerCell;
+    }
+
+
+    public String getName() {
+        return name;
+    }
+
+
+    /**
+     * Rates a puzzle
+     *
+     * @param nodes      search nodes the solver took to solve the puzzle
+     * @param emptyCells number of cells the puzzle leaves empty
+     * @return the difficulty
+     */
+    public static Difficulty rate(long nodes, int emptyCells) {
+
+        // The root node fills no cell
+        double nodesPerCell = (double) (nodes - 1) / Math.max(emptyCells, 1);
+        for (Difficulty difficulty : values()) {
+            if (nodesPerCell <= difficulty.maxNodesPerCell) {
+                return difficulty;
+            }
+        }
+
+        return EXPERT;
+
+    } // end of rate()
+
+
+    /**
+     * Looks up a difficulty from its command line name
+     *
+     * @param name name of the difficulty, e.g. "hard"
+     * @return the difficulty, or null if the name is unknown
+     */
+    public static Difficulty fromName(String name) {
+        for (Difficulty difficulty : values()) {
+            if (difficulty.name.equals(name)) {
+                return difficulty;
+            }
+        }
+
+        return null;
+    } // end of fromName()
+
+} // end of enum Difficulty
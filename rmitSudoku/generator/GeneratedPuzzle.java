@@ -0,0 +1,79 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package generator;
+
+import java.io.PrintWriter;
+import java.util.List;
+
+
+/**
+ * A puzzle made by PuzzleGenerator, as the lines of its .in file, with its rating.
+ */
+public class GeneratedPuzzle {
+
+    private final List<String> lines;
+    // Givens of a standard puzzle, cages of a killer puzzle
+    private final int clues;
+    private final long nodes;
+    private final Difficulty difficulty;
+
+
+    /**
+     * Constructor
+     *
+     * @param lines      lines of the puzzle in the .in format
+     * @param clues      givens (standard) or cages (killer)
+     * @param nodes      search nodes the rating solver took
+     * @param difficulty rating from the nodes
+     */
+    public GeneratedPuzzle(List<String> lines, int clues, long nodes, Difficulty difficulty) {
+
+        this.lines = lines;
+        this.clues = clues;
+        this.nodes = nodes;
+        this.difficulty = difficulty;
+
+    } // end of GeneratedPuzzle()
+
+
+    /**
+     * Writes the puzzle in the .in format
+     *
+     * @param out where the lines are written
+     */
+    public void write(PrintWriter out) {
+
+        for (String line : lines) {
+            out.println(line);
+        }
+
+    } // end of write()
+
+
+    /* ********************************************************* */
+
+    // Getters
+
+    public List<String> getLines() {
+        return lines;
+    }
+
+    public int getClues() {
+        return clues;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    /* ********************************************************* */
+
+
+} // end of class GeneratedPuzzle
@@ -0,0 +1,512 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package generator;
+
+import grid.GridGeometry;
+import grid.KillerSudokuGrid;
+import grid.StdSudokuGrid;
+import solver.DancingLinksSolver;
+import solver.KillerAdvancedSolver;
+import solver.SolutionCount;
+import solver.SolveBudget;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Generates standard and killer Sudoku puzzles with a unique solution, in the .in format.
+ * A random full grid is made by filling the boxes on the diagonal (which share no row,
+ * column or box) with random permutations and letting dancing links, breaking column ties at
+ * random, complete it.  A standard puzzle then has its givens removed in random order, each
+ * removal kept only if the puzzle is still unique.  Each uniqueness check has a node limit, and
+ * one that runs out counts as not unique, so the given goes back rather than the generator
+ * stalling on one hard check; on large grids only some of the cells are tried at all, as every
+ * check there is expensive.  A killer puzzle has its cells grouped into
+ * random cages of distinct values; while it has two solutions, the cage of a cell where they
+ * differ is split, the cell becoming a cage of its own.
+ * Puzzles are rated by the nodes the solvers take to solve them (see Difficulty).  The
+ * generator reuses its grids and solvers, so it is not thread safe - use one per thread.
+ */
+public class PuzzleGenerator {
+
+    // Default node limit of each uniqueness check when removing givens
+    static final long DEFAULT_CHECK_NODE_LIMIT = 1 << 14;
+    // Grid dimension above which not every cell is tried for removal by default, and the
+    // default number of removals tried on those grids per cell
+    static final int FULL_REMOVAL_MAX_DIMENSION = 16;
+    static final double LARGE_REMOVAL_ATTEMPTS_PER_CELL = 0.5;
+
+    private final Random random;
+
+    // Removes givens in pairs opposite each other through the centre
+    private boolean symmetric;
+    // Stops removing givens once this few are left
+    private int minGivens;
+    // Node limit of each uniqueness check, and most removals tried (-1 for the default)
+    private final SolveBudget checkBudget;
+    private int maxRemovalAttempts;
+    // Largest killer cage
+    private int maxCageSize;
+
+    private final StdSudokuGrid stdGrid;
+    private final KillerSudokuGrid killerGrid;
+    // Random tie-break to complete full grids, leftmost for repeatable checks and ratings
+    private final DancingLinksSolver filler;
+    private final DancingLinksSolver stdChecker;
+    private final KillerAdvancedSolver killerChecker;
+
+
+    /**
+     * Constructor
+     *
+     * @param random random source of every choice, seed it to repeat a run
+     */
+    public PuzzleGenerator(Random random) {
+
+        this.random = random;
+        symmetric = false;
+        minGivens = 0;
+        maxCageSize = 4;
+        checkBudget = new SolveBudget();
+        checkBudget.setNodeLimit(DEFAULT_CHECK_NODE_LIMIT);
+        maxRemovalAttempts = -1;
+
+        stdGrid = new StdSudokuGrid();
+        killerGrid = new KillerSudokuGrid();
+        filler = new DancingLinksSolver(random);
+        stdChecker = new DancingLinksSolver();
+        killerChecker = new KillerAdvancedSolver();
+
+    } // end of PuzzleGenerator()
+
+
+    public void setSymmetric(boolean symmetric) {
+        this.symmetric = symmetric;
+    }
+
+
+    public void setMinGivens(int minGivens) {
+        this.minGivens = minGivens;
+    }
+
+
+    /**
+     * @param nodeLimit search nodes each uniqueness check may explore before the given it
+     *                  checks is put back
+     */
+    public void setCheckNodeLimit(long nodeLimit) {
+        checkBudget.setNodeLimit(nodeLimit);
+    }
+
+
+    /**
+     * @param maxRemovalAttempts most givens tried for removal per standard puzzle, -1 for every
+     *                           cell up to 16x16 and half the cells on larger grids
+     */
+    public void setMaxRemovalAttempts(int maxRemovalAttempts) {
+
+        if (maxRemovalAttempts < -1) {
+            throw new IllegalArgumentException("Removal attempts must be -1 or more");
+        }
+        this.maxRemovalAttempts = maxRemovalAttempts;
+
+    } // end of setMaxRemovalAttempts()
+
+
+    /**
+     * @param maxCageSize largest number of cells in a killer cage, at least 1
+     */
+    public void setMaxCageSize(int maxCageSize) {
+
+        if (maxCageSize < 1) {
+            throw new IllegalArgumentException("Cage size must be at least 1");
+        }
+        this.maxCageSize = maxCageSize;
+
+    } // end of setMaxCageSize()
+
+
+    /**
+     * Makes a random full grid
+     *
+     * @param gridDimension dimension of the grid, a perfect square
+     * @return cell values of the grid, symbols 1 to gridDimension
+     */
+    public short[] generateSolution(int gridDimension) {
+
+        int boxSize = (int) Math.sqrt(gridDimension);
+        if (boxSize * boxSize != gridDimension) {
+            throw new IllegalArgumentException("Grid dimension must be a perfect square");
+        }
+
+        // The boxes on the diagonal are independent of each other, but not every way of filling
+        // them completes (on a 4x4 grid many do not), so start again from new boxes until one does
+        int[] symbols = new int[gridDimension];
+        for (int attempt = 0; ; attempt++) {
+            if (attempt == 100) {
+                throw new IllegalStateException("Could not complete a grid of dimension " + gridDimension);
+            }
+
+            stdGrid.initGrid(header(gridDimension));
+            for (int box = 0; box < boxSize; box++) {
+                for (int k = 0; k < gridDimension; k++) {
+                    symbols[k] = k + 1;
+                }
+                shuffle(symbols);
+                for (int k = 0; k < gridDimension; k++) {
+                    int i = box * boxSize + k / boxSize;
+                    int j = box * boxSize + k % boxSize;
+                    stdGrid.setCell(i * gridDimension + j, symbols[k]);
+                }
+            }
+
+            if (filler.solve(stdGrid)) {
+                break;
+            }
+        }
+
+        short[] cells = new short[gridDimension * gridDimension];
+        stdGrid.copyCells(cells);
+
+        return cells;
+
+    } // end of generateSolution()
+
+
+    /**
+     * Makes a standard puzzle with a unique solution
+     *
+     * @param gridDimension dimension of the grid, a perfect square
+     * @return the puzzle
+     */
+    public GeneratedPuzzle generateStandard(int gridDimension) {
+
+        short[] solution = generateSolution(gridDimension);
+        int cells = solution.length;
+        int empty = stdGrid.getEmptyValue();
+
+        int attempts = maxRemovalAttempts != -1 ? maxRemovalAttempts
+                : gridDimension <= FULL_REMOVAL_MAX_DIMENSION ? cells
+                : (int) (cells * LARGE_REMOVAL_ATTEMPTS_PER_CELL);
+
+        // stdGrid holds the full grid, take givens away while the solution stays unique
+        int[] order = randomOrder(cells);
+        int givens = cells;
+        for (int cell : order) {
+            int twin = symmetric ? cells - 1 - cell : cell;
+            int removed = stdGrid.getCell(twin) == empty || twin == cell ? 1 : 2;
+            if (stdGrid.getCell(cell) == empty || givens - removed < minGivens) {
+                continue;
+            }
+            if (attempts-- == 0) {
+                break;
+            }
+
+            stdGrid.setCell(cell, empty);
+            stdGrid.setCell(twin, empty);
+            if (stdChecker.hasUniqueSolution(stdGrid, checkBudget)) {
+                givens -= removed;
+            } else {
+                stdGrid.setCell(cell, solution[cell]);
+                stdGrid.setCell(twin, solution[twin]);
+            }
+        }
+
+        List<String> lines = header(gridDimension);
+        for (int cell = 0; cell < cells; cell++) {
+            if (stdGrid.getCell(cell) != empty) {
+                lines.add(cell / gridDimension + "," + cell % gridDimension + " " + stdGrid.getCell(cell));
+            }
+        }
+
+        stdChecker.solve(stdGrid);
+        long nodes = stdChecker.getNodeCount();
+
+        return new GeneratedPuzzle(lines, givens, nodes, Difficulty.rate(nodes, cells - givens));
+
+    } // end of generateStandard()
+
+
+    /**
+     * Makes a killer puzzle with a unique solution
+     *
+     * @param gridDimension dimension of the grid, a perfect square
+     * @return the puzzle
+     */
+    public GeneratedPuzzle generateKiller(int gridDimension) {
+
+        short[] solution = generateSolution(gridDimension);
+        GridGeometry geometry = GridGeometry.forDimension(gridDimension);
+        int cells = solution.length;
+
+        // cage[cell] = cage number of the cell
+        int[] cage = new int[cells];
+        int cages = buildCages(solution, geometry, cage);
+
+        List<String> lines;
+        while (true) {
+            lines = killerLines(solution, gridDimension, cage, cages);
+            killerGrid.initGrid(lines);
+
+            SolutionCount count = killerChecker.countSolutions(killerGrid, 2, 2);
+            if (count.getCount() < 2) {
+                break;
+            }
+
+            // Split the cage of the first cell the two solutions disagree on
+            short[] first = count.getSolutions().get(0);
+            short[] second = count.getSolutions().get(1);
+            int cell = 0;
+            while (first[cell] == second[cell]) {
+                cell++;
+            }
+            cages = splitCage(geometry, cage, cages, cell);
+        }
+
+        killerChecker.solve(killerGrid);
+        long nodes = killerChecker.getNodeCount();
+
+        return new GeneratedPuzzle(lines, cages, nodes, Difficulty.rate(nodes, cells));
+
+    } // end of generateKiller()
+
+
+    /**
+     * Groups the cells into random connected cages, with no value repeated in a cage
+     *
+     * @param solution full grid
+     * @param geometry geometry of the grid
+     * @param cage     returns the cage number of every cell
+     * @return number of cages
+     */
+    private int buildCages(short[] solution, GridGeometry geometry, int[] cage) {
+
+        int gridDimension = geometry.getGridDimension();
+        int limit = Math.min(maxCageSize, gridDimension);
+        Arrays.fill(cage, -1);
+
+        int cages = 0;
+        int[] members = new int[limit];
+        int[] frontier = new int[4 * limit];
+        for (int start : randomOrder(cage.length)) {
+            if (cage[start] != -1) {
+                continue;
+            }
+
+            int size = 1 + random.nextInt(limit);
+            int memberCount = 0;
+            members[memberCount++] = start;
+            cage[start] = cages;
+
+            while (memberCount < size) {
+                // Unassigned neighbours whose value is not in the cage yet
+                int frontierSize = 0;
+                for (int m = 0; m < memberCount; m++) {
+                    int i = geometry.getRow(members[m]);
+                    int j = geometry.getCol(members[m]);
+                    frontierSize = addNeighbour(solution, geometry, cage, i - 1, j, members, memberCount,
+                            frontier, frontierSize);
+                    frontierSize = addNeighbour(solution, geometry, cage, i + 1, j, members, memberCount,
+                            frontier, frontierSize);
+                    frontierSize = addNeighbour(solution, geometry, cage, i, j - 1, members, memberCount,
+                            frontier, frontierSize);
+                    frontierSize = addNeighbour(solution, geometry, cage, i, j + 1, members, memberCount,
+                            frontier, frontierSize);
+                }
+                if (frontierSize == 0) {
+                    break;
+                }
+
+                int next = frontier[random.nextInt(frontierSize)];
+                members[memberCount++] = next;
+                cage[next] = cages;
+            }
+
+            cages++;
+        }
+
+        return cages;
+
+    } // end of buildCages()
+
+
+    /**
+     * Adds cell (i, j) to the frontier of a growing cage if it can join the cage
+     *
+     * @return new frontier size
+     */
+    private static int addNeighbour(short[] solution, GridGeometry geometry, int[] cage, int i, int j,
+                                    int[] members, int memberCount, int[] frontier, int frontierSize) {
+
+        int gridDimension = geometry.getGridDimension();
+        if (i < 0 || j < 0 || i >= gridDimension || j >= gridDimension) {
+            return frontierSize;
+        }
+
+        int cell = i * gridDimension + j;
+        if (cage[cell] != -1) {
+            return frontierSize;
+        }
+        for (int m = 0; m < memberCount; m++) {
+            if (solution[members[m]] == solution[cell]) {
+                return frontierSize;
+            }
+        }
+
+        // A cell next to two members is listed twice, which only weights the random choice
+        frontier[frontierSize++] = cell;
+
+        return frontierSize;
+
+    } // end of addNeighbour()
+
+
+    /**
+     * Takes a cell out of its cage into a cage of its own, and splits what is left of the cage
+     * into its connected parts
+     *
+     * @param geometry geometry of the grid
+     * @param cage     cage number of every cell, updated
+     * @param cages    number of cages
+     * @param cell     cell to take out
+     * @return new number of cages
+     */
+    private int splitCage(GridGeometry geometry, int[] cage, int cages, int cell) {
+
+        int gridDimension = geometry.getGridDimension();
+        int old = cage[cell];
+
+        // Unassign the old cage, then flood fill each part of it as a new cage
+        ArrayList<Integer> rest = new ArrayList<>();
+        for (int c = 0; c < cage.length; c++) {
+            if (cage[c] == old && c != cell) {
+                rest.add(c);
+                cage[c] = -1;
+            }
+        }
+        // The cell keeps the old number, so numbers stay contiguous
+        if (rest.isEmpty()) {
+            return cages;
+        }
+
+        int[] stack = new int[rest.size()];
+        for (int start : rest) {
+            if (cage[start] != -1) {
+                continue;
+            }
+
+            int top = 0;
+            stack[top++] = start;
+            cage[start] = cages;
+            while (top > 0) {
+                int c = stack[--top];
+                int i = geometry.getRow(c);
+                int j = geometry.getCol(c);
+                int[] neighbours = {i > 0 ? c - gridDimension : -1, i < gridDimension - 1 ? c + gridDimension : -1,
+                        j > 0 ? c - 1 : -1, j < gridDimension - 1 ? c + 1 : -1};
+                for (int n : neighbours) {
+                    if (n != -1 && cage[n] == -1 && rest.contains(n)) {
+                        cage[n] = cages;
+                        stack[top++] = n;
+                    }
+                }
+            }
+            cages++;
+        }
+
+        return cages;
+
+    } // end of splitCage()
+
+
+    /**
+     * Writes a killer puzzle in the .in format
+     *
+     * @param solution      full grid, for the cage sums
+     * @param gridDimension dimension of the grid
+     * @param cage          cage number of every cell
+     * @param cages         number of cages
+     * @return lines of the puzzle
+     */
+    private static List<String> killerLines(short[] solution, int gridDimension, int[] cage, int cages) {
+
+        int[] sums = new int[cages];
+        StringBuilder[] cells = new StringBuilder[cages];
+        for (int c = 0; c < cages; c++) {
+            cells[c] = new StringBuilder();
+        }
+        for (int cell = 0; cell < cage.length; cell++) {
+            sums[cage[cell]] += solution[cell];
+            cells[cage[cell]].append(' ').append(cell / gridDimension).append(',').append(cell % gridDimension);
+        }
+
+        List<String> lines = header(gridDimension);
+        lines.add(String.valueOf(cages));
+        for (int c = 0; c < cages; c++) {
+            lines.add(sums[c] + cells[c].toString());
+        }
+
+        return lines;
+
+    } // end of killerLines()
+
+
+    /**
+     * @param gridDimension dimension of the grid
+     * @return the first two lines of a puzzle - the dimension and the symbols 1 to gridDimension
+     */
+    private static List<String> header(int gridDimension) {
+
+        StringBuilder symbols = new StringBuilder();
+        for (int k = 1; k <= gridDimension; k++) {
+            symbols.append(k).append(k < gridDimension ? " " : "");
+        }
+
+        List<String> lines = new ArrayList<>();
+        lines.add(String.valueOf(gridDimension));
+        lines.add(symbols.toString());
+
+        return lines;
+
+    } // end of header()
+
+
+    /**
+     * @param cells number of cells
+     * @return the cell indexes in random order
+     */
+    private int[] randomOrder(int cells) {
+
+        int[] order = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            order[cell] = cell;
+        }
+        shuffle(order);
+
+        return order;
+
+    } // end of randomOrder()
+
+
+    /**
+     * Fisher-Yates shuffle
+     */
+    private void shuffle(int[] values) {
+
+        for (int l = values.length - 1; l > 0; l--) {
+            int swap = random.nextInt(l + 1);
+            int temp = values[l];
+            values[l] = values[swap];
+            values[swap] = temp;
+        }
+
+    } // end of shuffle()
+
+
+} // end of class PuzzleGenerator
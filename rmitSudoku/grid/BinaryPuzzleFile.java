@@ -0,0 +1,215 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+package grid;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Memory-mapped reader of the binary puzzle format, with random access by puzzle index.
+ * The format holds many puzzles (standard or killer) and solutions in one file, written by
+ * BinaryPuzzleWriter.  All numbers are big-endian.
+ *
+ *   header  "SDKB", version byte, 3 bytes padding
+ *   records one after the other, each:
+ *           kind byte (STANDARD, KILLER or SOLUTION), n byte, flags byte
+ *           n symbols as ints, only if flags has CUSTOM_SYMBOLS (otherwise 1 to n)
+ *           STANDARD, SOLUTION - the n * n cells, bitsPerCell(n) bits each (4 for 9x9, 5 for
+ *             16x16 and 25x25, 6 for 36x36), holding symbol index + 1 or 0 if empty, packed
+ *             from the low bit of each byte up
+ *           KILLER - cage count as a short, cage count + 1 offsets as shorts into the cell
+ *             list (cage c is cells offset[c] to offset[c + 1] - 1), a total per cage as an
+ *             int, then the cell list as shorts
+ *   index   offset of each record as a long
+ *   trailer index offset as a long, record count as an int, "SDKI"
+ *
+ * Files are mapped whole, so they are limited to 2 GB.
+ */
+public class BinaryPuzzleFile implements Closeable {
+
+    static final int MAGIC = 0x53444B42;
+    static final int INDEX_MAGIC = 0x53444B49;
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int TRAILER_SIZE = 16;
+
+    // Record kinds
+    public static final byte STANDARD = 0;
+    public static final byte KILLER = 1;
+    public static final byte SOLUTION = 2;
+
+    // Record flags
+    static final byte CUSTOM_SYMBOLS = 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int count;
+    private final int indexOffset;
+
+    // Decodes records for toLines()
+    private final PuzzleParser parser;
+
+
+    /**
+     * Opens and maps a file
+     *
+     * @param path file to read
+     * @throws IOException if the file cannot be read, or is not in the binary format
+     */
+    public BinaryPuzzleFile(Path path) throws IOException {
+
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(path + " is too large to map");
+            }
+            if (size < HEADER_SIZE + TRAILER_SIZE) {
+                throw new IOException(path + " is not a binary puzzle file");
+            }
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (map.getInt(0) != MAGIC || map.getInt((int) size - 4) != INDEX_MAGIC) {
+                throw new IOException(path + " is not a binary puzzle file");
+            }
+            if (map.get(4) != VERSION) {
+                throw new IOException(path + " has unknown version " + map.get(4));
+            }
+            indexOffset = (int) map.getLong((int) size - TRAILER_SIZE);
+            count = map.getInt((int) size - TRAILER_SIZE + 8);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        parser = new PuzzleParser();
+
+    } // end of BinaryPuzzleFile()
+
+
+    /**
+     * Bits each cell takes - enough for symbol index + 1 up to n, and 0 for empty
+     *
+     * @param gridDimension dimension of the grid
+     * @return bits per cell
+     */
+    public static int bitsPerCell(int gridDimension) {
+        return 32 - Integer.numberOfLeadingZeros(gridDimension);
+    }
+
+
+    /**
+     * @return number of records in the file
+     */
+    public int size() {
+        return count;
+    }
+
+
+    /**
+     * Finds a record without reading the ones before it
+     *
+     * @param index record index
+     * @return the record's bytes, from its kind byte on (the buffer is independent, limited to
+     *         the end of the records)
+     */
+    public ByteBuffer getRecord(int index) {
+
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Record " + index + " of " + count);
+        }
+
+        ByteBuffer record = map.duplicate();
+        record.position((int) map.getLong(indexOffset + 8 * index));
+        record.limit(index + 1 < count ? (int) map.getLong(indexOffset + 8 * (index + 1)) : indexOffset);
+
+        return record;
+
+    } // end of getRecord()
+
+
+    /**
+     * @param index record index
+     * @return kind of the record - STANDARD, KILLER or SOLUTION
+     */
+    public byte getKind(int index) {
+        return getRecord(index).get();
+    }
+
+
+    /**
+     * Decodes a record back into the text format it came from - a .in file for a puzzle, a
+     * .exp file (comma separated rows) for a solution
+     *
+     * @param index record index
+     * @return lines of the text
+     */
+    public List<String> toLines(int index) {
+
+        byte kind = parser.parseBinary(getRecord(index));
+        int gridDimension = parser.getGridDimension();
+        int[] symbols = parser.getSymbols();
+        List<String> lines = new ArrayList<>();
+
+        if (kind == SOLUTION) {
+            int[] values = new int[gridDimension * gridDimension];
+            for (int given = 0; given < parser.getGivenCount(); given++) {
+                values[parser.getGivenCells()[given]] = parser.getGivenValues()[given];
+            }
+            for (int i = 0; i < gridDimension; i++) {
+                StringBuilder row = new StringBuilder();
+                for (int j = 0; j < gridDimension; j++) {
+                    row.append(j == 0 ? "" : ",").append(values[i * gridDimension + j]);
+                }
+                lines.add(row.toString());
+            }
+            return lines;
+        }
+
+        lines.add(String.valueOf(gridDimension));
+        StringBuilder symbolLine = new StringBuilder();
+        for (int k = 0; k < gridDimension; k++) {
+            symbolLine.append(k == 0 ? "" : " ").append(symbols[k]);
+        }
+        lines.add(symbolLine.toString());
+
+        if (kind == KILLER) {
+            int[] start = parser.getCageStart();
+            int[] cells = parser.getCageCellList();
+            lines.add(String.valueOf(parser.getCageCount()));
+            for (int c = 0; c < parser.getCageCount(); c++) {
+                StringBuilder cage = new StringBuilder().append(parser.getCageTotals()[c]);
+                for (int l = start[c]; l < start[c + 1]; l++) {
+                    cage.append(' ').append(cells[l] / gridDimension).append(',').append(cells[l] % gridDimension);
+                }
+                lines.add(cage.toString());
+            }
+        } else {
+            for (int given = 0; given < parser.getGivenCount(); given++) {
+                int cell = parser.getGivenCells()[given];
+                lines.add(cell / gridDimension + "," + cell % gridDimension + " " + parser.getGivenValues()[given]);
+            }
+        }
+
+        return lines;
+
+    } // end of toLines()
+
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+
+} // end of class BinaryPuzzleFile
@@ -0,0 +1,325 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+package grid;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+
+/**
+ * Writes puzzles and solutions in the binary format (see BinaryPuzzleFile).
+ * Records are encoded into one reused buffer and written to the file in bulk when it fills;
+ * close() writes the index, so the file can only be read once closed.
+ */
+public class BinaryPuzzleWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // File written, null when encoding in memory
+    private final FileChannel channel;
+    private ByteBuffer buffer;
+
+    // File offset of each record, and of the end of the buffered bytes
+    private long[] offsets;
+    private int count;
+    private long position;
+
+
+    /**
+     * Creates (or replaces) a file and writes the header
+     *
+     * @param path file to write
+     * @throws IOException if the file cannot be created
+     */
+    public BinaryPuzzleWriter(Path path) throws IOException {
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        offsets = new long[64];
+
+        buffer.putInt(BinaryPuzzleFile.MAGIC);
+        buffer.put(BinaryPuzzleFile.VERSION);
+        buffer.put(new byte[BinaryPuzzleFile.HEADER_SIZE - 5]);
+
+    } // end of BinaryPuzzleWriter()
+
+
+    /**
+     * Constructor - writes records into a growing buffer instead of a file, see encodePuzzle()
+     */
+    private BinaryPuzzleWriter() {
+
+        channel = null;
+        buffer = ByteBuffer.allocate(256);
+        offsets = new long[1];
+
+    } // end of BinaryPuzzleWriter()
+
+
+    /**
+     * Encodes the puzzle a grid was loaded with as one record, the bytes writePuzzle() would
+     * write - equal puzzles have equal bytes, so they identify a puzzle, e.g. in SolutionStore
+     *
+     * @param grid loaded grid
+     * @return the record, from its kind byte on
+     */
+    public static byte[] encodePuzzle(SudokuGrid grid) {
+
+        BinaryPuzzleWriter writer = new BinaryPuzzleWriter();
+        try {
+            writer.writePuzzle(grid);
+        } catch (IOException e) {
+            // Never thrown, there is no file
+            throw new UncheckedIOException(e);
+        }
+
+        return Arrays.copyOf(writer.buffer.array(), writer.buffer.position());
+
+    } // end of encodePuzzle()
+
+
+    /**
+     * Writes the puzzle a grid was loaded with - its givens for standard Sudoku (the grid's
+     * current cells are ignored), its cages for killer Sudoku
+     *
+     * @param grid loaded grid
+     * @throws IOException if the file cannot be written
+     */
+    public void writePuzzle(SudokuGrid grid) throws IOException {
+
+        int gridDimension = grid.getGridDimension();
+        CageIndex cageIndex = grid.getCageIndex();
+        if (cageIndex == null) {
+            short[] cells = new short[gridDimension * gridDimension];
+            Arrays.fill(cells, (short) grid.getEmptyValue());
+            for (int given = 0; given < grid.getGivenCount(); given++) {
+                cells[grid.getGivenCell(given)] = (short) grid.getGivenValue(given);
+            }
+            writeCells(BinaryPuzzleFile.STANDARD, gridDimension, grid.getValidSymbolsList(), cells,
+                    grid.getEmptyValue());
+            return;
+        }
+
+        int cageCount = cageIndex.getCageCount();
+        int cellCount = 0;
+        for (int c = 0; c < cageCount; c++) {
+            cellCount += cageIndex.getCageCells(c).length;
+        }
+
+        ByteBuffer out = startRecord(BinaryPuzzleFile.KILLER, gridDimension, grid.getValidSymbolsList(),
+                2 + 2 * (cageCount + 1) + 4 * cageCount + 2 * cellCount);
+        out.putShort((short) cageCount);
+        int offset = 0;
+        for (int c = 0; c < cageCount; c++) {
+            out.putShort((short) offset);
+            offset += cageIndex.getCageCells(c).length;
+        }
+        out.putShort((short) offset);
+        for (int c = 0; c < cageCount; c++) {
+            out.putInt(cageIndex.getCageTotal(c));
+        }
+        for (int c = 0; c < cageCount; c++) {
+            for (int cell : cageIndex.getCageCells(c)) {
+                out.putShort((short) cell);
+            }
+        }
+
+    } // end of writePuzzle()
+
+
+    /**
+     * Writes the current cells of a grid as a solution
+     *
+     * @param grid solved grid
+     * @throws IOException if the file cannot be written
+     */
+    public void writeSolution(SudokuGrid grid) throws IOException {
+
+        short[] cells = new short[grid.getGridDimension() * grid.getGridDimension()];
+        grid.copyCells(cells);
+        writeCells(BinaryPuzzleFile.SOLUTION, grid.getGridDimension(), grid.getValidSymbolsList(), cells,
+                grid.getEmptyValue());
+
+    } // end of writeSolution()
+
+
+    /**
+     * Writes a standard puzzle or a solution from its cell values
+     *
+     * @param kind          STANDARD or SOLUTION
+     * @param gridDimension dimension of the grid, at most 255
+     * @param symbols       valid symbols
+     * @param cells         cell values, cell (i, j) at index i * gridDimension + j
+     * @param emptyValue    value of empty cells
+     * @throws IOException if the file cannot be written
+     */
+    public void writeCells(byte kind, int gridDimension, int[] symbols, short[] cells, int emptyValue)
+            throws IOException {
+
+        int bits = BinaryPuzzleFile.bitsPerCell(gridDimension);
+        int cellCount = gridDimension * gridDimension;
+        ByteBuffer out = startRecord(kind, gridDimension, symbols, (cellCount * bits + 7) / 8);
+
+        // Pack from the low bit up, flushing whole bytes
+        int window = 0;
+        int windowBits = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            int code = 0;
+            if (cells[cell] != emptyValue) {
+                code = symbolIndex(symbols, cells[cell]) + 1;
+                if (code == 0) {
+                    throw new IllegalArgumentException("Cell " + cell + " holds " + cells[cell]
+                            + ", which is not a symbol");
+                }
+            }
+            window |= code << windowBits;
+            windowBits += bits;
+            while (windowBits >= 8) {
+                out.put((byte) window);
+                window >>>= 8;
+                windowBits -= 8;
+            }
+        }
+        if (windowBits > 0) {
+            out.put((byte) window);
+        }
+
+    } // end of writeCells()
+
+
+    /**
+     * Records the offset of a new record, makes room for it and writes its kind, n, flags and
+     * symbols
+     *
+     * @param bodySize bytes of the record after the symbols
+     * @return buffer to write the rest of the record to
+     */
+    private ByteBuffer startRecord(byte kind, int gridDimension, int[] symbols, int bodySize) throws IOException {
+
+        if (gridDimension < 1 || gridDimension > 255) {
+            throw new IllegalArgumentException("Grid dimension must be 1 to 255");
+        }
+
+        boolean custom = false;
+        for (int k = 0; k < gridDimension; k++) {
+            custom |= symbols[k] != k + 1;
+        }
+
+        int size = 3 + (custom ? 4 * gridDimension : 0) + bodySize;
+        ensureRoom(size);
+
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, 2 * count);
+        }
+        offsets[count++] = position + buffer.position();
+
+        buffer.put(kind);
+        buffer.put((byte) gridDimension);
+        buffer.put(custom ? BinaryPuzzleFile.CUSTOM_SYMBOLS : 0);
+        if (custom) {
+            for (int k = 0; k < gridDimension; k++) {
+                buffer.putInt(symbols[k]);
+            }
+        }
+
+        return buffer;
+
+    } // end of startRecord()
+
+
+    /**
+     * Flushes the buffer if the next bytes do not fit, and grows it if they never would
+     */
+    private void ensureRoom(int size) throws IOException {
+
+        if (buffer.remaining() >= size) {
+            return;
+        }
+
+        // In memory, the records are kept until encodePuzzle() copies them
+        if (channel == null) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * buffer.capacity(), buffer.position() + size));
+            buffer.flip();
+            buffer = larger.put(buffer);
+            return;
+        }
+
+        flush();
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(size);
+        }
+
+    } // end of ensureRoom()
+
+
+    /**
+     * Writes the buffered bytes to the file
+     */
+    private void flush() throws IOException {
+
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+        buffer.clear();
+
+    } // end of flush()
+
+
+    private static int symbolIndex(int[] symbols, int value) {
+
+        for (int k = 0; k < symbols.length; k++) {
+            if (symbols[k] == value) {
+                return k;
+            }
+        }
+
+        return -1;
+
+    } // end of symbolIndex()
+
+
+    /**
+     * @return number of records written so far
+     */
+    public int size() {
+        return count;
+    }
+
+
+    /**
+     * Writes the index and trailer, and closes the file
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+
+        try {
+            long indexOffset = position + buffer.position();
+            for (int r = 0; r < count; r++) {
+                ensureRoom(8);
+                buffer.putLong(offsets[r]);
+            }
+            ensureRoom(BinaryPuzzleFile.TRAILER_SIZE);
+            buffer.putLong(indexOffset);
+            buffer.putInt(count);
+            buffer.putInt(BinaryPuzzleFile.INDEX_MAGIC);
+            flush();
+        } finally {
+            channel.close();
+        }
+
+    } // end of close()
+
+
+} // end of class BinaryPuzzleWriter
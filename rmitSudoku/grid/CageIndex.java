@@ -0,0 +1,221 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+package grid;
+
+import java.util.Arrays;
+
+
+/**
+ * Compiled form of the cages of a Killer Sudoku grid, built once when the grid is loaded so
+ * solvers never parse cage strings during search.
+ * Cells are addressed by cell index (i * gridDimension + j) and symbols by their index in the
+ * valid symbols list.  Besides the static layout (cage of each cell, cells and total of each
+ * cage) it keeps the running sum, used symbols and number of empty cells of every cage, which
+ * the grid updates whenever a cell is set.  A cage may hold a symbol more than once while a
+ * grid is part way through being set, so the used bit of a symbol is kept until the last copy
+ * of it leaves the cage.
+ */
+public class CageIndex {
+
+    private final int gridDimension;
+    private final int[] validSymbolsList;
+    private final int emptyValue;
+
+    // Symbol value -> symbol index, offset by the smallest symbol
+    private final int[] symbolLookup;
+    private final int minSymbol;
+
+    // Cage of each cell (-1 if none), and the cells and total of each cage
+    private final int[] cellCage;
+    private final int[][] cageCells;
+    private final int[] cageTotals;
+
+    // Running state of each cage
+    private final int[] cageSums;
+    private final long[] cageUsed;
+    private final int[] cageEmpty;
+    // Number of cells holding each symbol, indexed by cage * number of symbols + symbol index
+    private final int[] cageSymbolCounts;
+
+
+    /**
+     * Compiles the cages decoded by PuzzleParser
+     *
+     * @param gridDimension    dimension of the grid
+     * @param validSymbolsList valid symbols of the grid
+     * @param emptyValue       value the grid uses for an empty cell
+     * @param cageCount        number of cages
+     * @param cageTotals       total of each cage
+     * @param cageStart        offset of the first cell of each cage in cageCellList, and of the
+     *                         end of the last cage at cageStart[cageCount]
+     * @param cageCellList     cell indexes of all the cages, cage after cage
+     */
+    public CageIndex(int gridDimension, int[] validSymbolsList, int emptyValue, int cageCount, int[] cageTotals,
+                     int[] cageStart, int[] cageCellList) {
+
+        this.gridDimension = gridDimension;
+        this.validSymbolsList = validSymbolsList;
+        this.emptyValue = emptyValue;
+
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int symbol : validSymbolsList) {
+            min = Math.min(min, symbol);
+            max = Math.max(max, symbol);
+        }
+        minSymbol = min;
+        symbolLookup = new int[max - min + 1];
+        Arrays.fill(symbolLookup, -1);
+        for (int k = 0; k < validSymbolsList.length; k++) {
+            symbolLookup[validSymbolsList[k] - min] = k;
+        }
+
+        cellCage = new int[gridDimension * gridDimension];
+        Arrays.fill(cellCage, -1);
+        cageCells = new int[cageCount][];
+        this.cageTotals = Arrays.copyOf(cageTotals, cageCount);
+        cageSums = new int[cageCount];
+        cageUsed = new long[cageCount];
+        cageEmpty = new int[cageCount];
+        cageSymbolCounts = new int[cageCount * validSymbolsList.length];
+
+        for (int c = 0; c < cageCount; c++) {
+            cageCells[c] = Arrays.copyOfRange(cageCellList, cageStart[c], cageStart[c + 1]);
+            cageEmpty[c] = cageCells[c].length;
+            for (int cell : cageCells[c]) {
+                cellCage[cell] = c;
+            }
+        }
+
+    } // end of CageIndex()
+
+
+    /* ********************************************************* */
+
+    // Getters
+
+    public int getCageCount() {
+        return cageCells.length;
+    }
+
+    /**
+     * @param cell cell index
+     * @return cage of the cell, -1 if it is in no cage
+     */
+    public int getCage(int cell) {
+        return cellCage[cell];
+    }
+
+    public int[] getCageCells(int cage) {
+        return cageCells[cage];
+    }
+
+    public int getCageTotal(int cage) {
+        return cageTotals[cage];
+    }
+
+    /**
+     * @param cage cage index
+     * @return sum of the symbols currently in the cage
+     */
+    public int getCageSum(int cage) {
+        return cageSums[cage];
+    }
+
+    /**
+     * @param cage cage index
+     * @return bitset of the symbol indexes currently in the cage
+     */
+    public long getCageUsed(int cage) {
+        return cageUsed[cage];
+    }
+
+    /**
+     * @param cage cage index
+     * @return number of empty cells left in the cage
+     */
+    public int getCageEmpty(int cage) {
+        return cageEmpty[cage];
+    }
+
+    /* ********************************************************* */
+
+
+    /**
+     * Index of a symbol in the valid symbols list
+     *
+     * @param value symbol value
+     * @return symbol index, -1 if the value is not a valid symbol
+     */
+    public int symbolIndex(int value) {
+
+        int offset = value - minSymbol;
+        if (offset < 0 || offset >= symbolLookup.length) {
+            return -1;
+        }
+
+        return symbolLookup[offset];
+
+    } // end of symbolIndex()
+
+
+    /**
+     * Updates the running state of the cell's cage when the cell's value changes.
+     * Called by the grid whenever a cell is set.
+     *
+     * @param cell     cell index
+     * @param oldValue value the cell held
+     * @param newValue value the cell now holds
+     */
+    void update(int cell, int oldValue, int newValue) {
+
+        int cage = cellCage[cell];
+        if (cage == -1 || oldValue == newValue) {
+            return;
+        }
+
+        // Values that are not valid symbols still count towards the sum, but have no used bit
+        if (oldValue != emptyValue) {
+            cageSums[cage] -= oldValue;
+            int k = symbolIndex(oldValue);
+            if (k != -1 && --cageSymbolCounts[cage * validSymbolsList.length + k] == 0) {
+                cageUsed[cage] &= ~(1L << k);
+            }
+            cageEmpty[cage]++;
+        }
+        if (newValue != emptyValue) {
+            cageSums[cage] += newValue;
+            int k = symbolIndex(newValue);
+            if (k != -1) {
+                cageSymbolCounts[cage * validSymbolsList.length + k]++;
+                cageUsed[cage] |= 1L << k;
+            }
+            cageEmpty[cage]--;
+        }
+
+    } // end of update()
+
+
+    /**
+     * Rebuilds the running state of every cage from the grid's current values
+     *
+     * @param grid grid the cages belong to
+     */
+    void reload(SudokuGrid grid) {
+
+        Arrays.fill(cageSums, 0);
+        Arrays.fill(cageUsed, 0L);
+        Arrays.fill(cageSymbolCounts, 0);
+        for (int c = 0; c < cageCells.length; c++) {
+            cageEmpty[c] = cageCells[c].length;
+            for (int cell : cageCells[c]) {
+                update(cell, emptyValue, grid.getCell(cell));
+            }
+        }
+
+    } // end of reload()
+
+
+} // end of class CageIndex
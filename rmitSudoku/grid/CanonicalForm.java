@@ -0,0 +1,188 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+package grid;
+
+import java.util.Arrays;
+
+
+/**
+ * A standard Sudoku puzzle in canonical form - the smallest of all its relabelled, transposed
+ * and row/column permuted copies (see GridCanonicalizer) - with the transform that took the
+ * puzzle there.  Puzzles that are copies of each other have equal canonical forms, so the form
+ * is a key that finds a puzzle's copies, and the transform maps a solution of the form back
+ * to a solution of this puzzle.
+ * Canonical cells hold labels: 0 for empty, 1 to gridDimension for the symbols, numbered in
+ * the order they first appear.
+ */
+public class CanonicalForm {
+
+    private final int gridDimension;
+    private final short[] cells;
+    private final long hash;
+
+    // The transform - whether the puzzle was transposed first, the source row and column of
+    // each canonical row and column, and the label of each symbol index
+    private final boolean transposed;
+    private final int[] rowOrder;
+    private final int[] colOrder;
+    private final int[] labels;
+    private final int[] symbols;
+
+
+    CanonicalForm(int gridDimension, short[] cells, boolean transposed, int[] rowOrder, int[] colOrder,
+                  int[] labels, int[] symbols) {
+
+        this.gridDimension = gridDimension;
+        this.cells = cells;
+        this.transposed = transposed;
+        this.rowOrder = rowOrder;
+        this.colOrder = colOrder;
+        this.labels = labels;
+        this.symbols = symbols;
+        hash = hash(cells);
+
+    } // end of CanonicalForm()
+
+
+    /**
+     * 64-bit FNV-1a hash of a cell array
+     *
+     * @param cells cells to hash
+     * @return the hash
+     */
+    public static long hash(short[] cells) {
+
+        long hash = 0xcbf29ce484222325L;
+        for (short cell : cells) {
+            hash = (hash ^ (cell & 0xff)) * 0x100000001b3L;
+            hash = (hash ^ ((cell >>> 8) & 0xff)) * 0x100000001b3L;
+        }
+
+        return hash;
+
+    } // end of hash()
+
+
+    /**
+     * Maps a filled grid of the original puzzle (e.g. its solution) into canonical labels
+     * and positions
+     *
+     * @param grid cells of the original puzzle, every cell a symbol
+     * @return the canonical cells
+     */
+    public short[] toCanonical(short[] grid) {
+
+        short[] canonical = new short[cells.length];
+        for (int k = 0; k < gridDimension; k++) {
+            for (int c = 0; c < gridDimension; c++) {
+                int value = grid[sourceCell(rowOrder[k], colOrder[c])];
+                int label = 0;
+                for (int s = 0; s < gridDimension; s++) {
+                    if (symbols[s] == value) {
+                        label = labels[s];
+                        break;
+                    }
+                }
+                if (label == 0) {
+                    throw new IllegalArgumentException("Grid holds " + value + ", which is not a symbol");
+                }
+                canonical[k * gridDimension + c] = (short) label;
+            }
+        }
+
+        return canonical;
+
+    } // end of toCanonical()
+
+
+    /**
+     * Maps a filled canonical grid (e.g. the solution of this form) back through the inverse
+     * transform, into the symbols and positions of the original puzzle
+     *
+     * @param canonical canonical cells, every cell a label
+     * @param grid      used to return the original cells, of length gridDimension^2
+     */
+    public void fromCanonical(short[] canonical, short[] grid) {
+
+        int[] symbolOfLabel = new int[gridDimension + 1];
+        for (int s = 0; s < gridDimension; s++) {
+            symbolOfLabel[labels[s]] = symbols[s];
+        }
+
+        for (int k = 0; k < gridDimension; k++) {
+            for (int c = 0; c < gridDimension; c++) {
+                grid[sourceCell(rowOrder[k], colOrder[c])] = (short) symbolOfLabel[canonical[k * gridDimension + c]];
+            }
+        }
+
+    } // end of fromCanonical()
+
+
+    /**
+     * @return index in the original grid of row i and column j of the (maybe transposed) puzzle
+     */
+    private int sourceCell(int i, int j) {
+        return transposed ? j * gridDimension + i : i * gridDimension + j;
+    }
+
+
+    /* ********************************************************* */
+
+    // Getters
+
+    public int getGridDimension() {
+        return gridDimension;
+    }
+
+    /**
+     * @return canonical cells, cell (i, j) at index i * gridDimension + j - not to be changed
+     */
+    public short[] getCells() {
+        return cells;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public boolean isTransposed() {
+        return transposed;
+    }
+
+    /* ********************************************************* */
+
+
+    /**
+     * Forms are equal if their cells are, whatever the transforms that led to them
+     */
+    @Override
+    public boolean equals(Object other) {
+
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof CanonicalForm)) {
+            return false;
+        }
+        CanonicalForm form = (CanonicalForm) other;
+
+        return hash == form.hash && gridDimension == form.gridDimension && Arrays.equals(cells, form.cells);
+
+    } // end of equals()
+
+
+    @Override
+    public int hashCode() {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+
+    @Override
+    public String toString() {
+        return String.format("%dx%d canonical form %016x", gridDimension, gridDimension, hash);
+    }
+
+
+} // end of class CanonicalForm
@@ -0,0 +1,388 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+package grid;
+
+import java.util.ArrayList;
+
+
+/**
+ * Finds the canonical form of a standard Sudoku puzzle - the lexicographically smallest grid
+ * (row-major, empty cells smallest) over the Sudoku symmetry group: transposing, permuting
+ * the bands and the rows within each band, permuting the stacks and the columns within each
+ * stack, and relabelling the symbols.  Relabelling is not searched - for a given arrangement
+ * the smallest labelling numbers the symbols in the order they first appear - so the search
+ * is over the arrangements only.
+ * For each transpose and top row the columns are arranged a stack at a time, then the other
+ * rows are picked one at a time, band by band, and a stack or row that makes the grid larger
+ * than the best grid so far is not followed further, so few arrangements get past the top
+ * row.  The arrangements that tie grow with (boxSize!)^(boxSize + 1) - 1296 for 9x9 grids,
+ * but almost 8 million for 16x16 - so only grids with boxes up to 3x3 are supported.
+ * Scratch arrays are reused while the dimension stays the same; a canonicalizer is not
+ * shared between threads.
+ */
+public class GridCanonicalizer {
+
+    // Largest box size supported
+    public static final int MAX_BOX_SIZE = 3;
+
+    private int gridDimension;
+    private int boxSize;
+
+    // Every permutation of 0 to boxSize - 1
+    private int[][] permutations;
+
+    // Puzzle as symbol index + 1, 0 for empty, and its (maybe transposed) arrangement
+    private int[] digits;
+    private int[] view;
+    private boolean transposed;
+
+    // Current arrangement - source row of each row, source column of each column, and the
+    // rows, bands and stacks placed so far
+    private int[] rowOrder;
+    private int[] colOrder;
+    private boolean[] rowUsed;
+    private boolean[] bandUsed;
+    private boolean[] stackUsed;
+
+    // Current labelling - label of each digit (0 if not seen yet) and the digits labelled, in order
+    private int[] labelOf;
+    private int[] labelled;
+    private int nextLabel;
+
+    // Current grid, built row by row, and the best one so far with its transform
+    private short[] current;
+    private short[] best;
+    private boolean haveBest;
+    private boolean bestTransposed;
+    private int[] bestRows;
+    private int[] bestCols;
+    private int[] bestLabels;
+
+
+    /**
+     * Whether canonical forms of a dimension can be found in reasonable time
+     *
+     * @param gridDimension dimension of the grid
+     * @return true if its boxes are at most MAX_BOX_SIZE wide
+     */
+    public static boolean supports(int gridDimension) {
+
+        int boxSize = (int) Math.sqrt(gridDimension);
+
+        return boxSize * boxSize == gridDimension && boxSize <= MAX_BOX_SIZE;
+
+    } // end of supports()
+
+
+    /**
+     * Finds the canonical form of a grid's current cells
+     *
+     * @param grid standard Sudoku grid
+     * @return the canonical form, with the transform to it
+     */
+    public CanonicalForm canonicalize(StdSudokuGrid grid) {
+
+        short[] cells = new short[grid.getGridDimension() * grid.getGridDimension()];
+        grid.copyCells(cells);
+
+        return canonicalize(cells, grid.getGridDimension(), grid.getValidSymbolsList(), grid.getEmptyValue());
+
+    } // end of canonicalize()
+
+
+    /**
+     * Finds the canonical form of a puzzle
+     *
+     * @param cells         cell values, cell (i, j) at index i * gridDimension + j
+     * @param gridDimension dimension of the grid
+     * @param symbols       valid symbols
+     * @param emptyValue    value of empty cells
+     * @return the canonical form, with the transform to it
+     */
+    public CanonicalForm canonicalize(short[] cells, int gridDimension, int[] symbols, int emptyValue) {
+
+        if (!supports(gridDimension)) {
+            throw new IllegalArgumentException("Canonical forms of " + gridDimension + "x" + gridDimension
+                    + " grids are not supported");
+        }
+        prepare(gridDimension);
+
+        for (int cell = 0; cell < cells.length; cell++) {
+            digits[cell] = 0;
+            if (cells[cell] != emptyValue) {
+                for (int s = 0; s < gridDimension; s++) {
+                    if (symbols[s] == cells[cell]) {
+                        digits[cell] = s + 1;
+                        break;
+                    }
+                }
+                if (digits[cell] == 0) {
+                    throw new IllegalArgumentException("Cell " + cell + " holds " + cells[cell]
+                            + ", which is not a symbol");
+                }
+            }
+        }
+
+        haveBest = false;
+        for (int t = 0; t < 2; t++) {
+            transposed = t == 1;
+            for (int i = 0; i < gridDimension; i++) {
+                for (int j = 0; j < gridDimension; j++) {
+                    view[i * gridDimension + j] = transposed ? digits[j * gridDimension + i]
+                            : digits[i * gridDimension + j];
+                }
+            }
+            for (int row = 0; row < gridDimension; row++) {
+                rowOrder[0] = row;
+                rowUsed[row] = true;
+                bandUsed[row / boxSize] = true;
+                searchStacks(0, !haveBest);
+                rowUsed[row] = false;
+                bandUsed[row / boxSize] = false;
+            }
+        }
+
+        // Symbols not in the puzzle take the labels left over, in symbol order
+        int[] labels = new int[gridDimension];
+        boolean[] taken = new boolean[gridDimension + 1];
+        for (int s = 0; s < gridDimension; s++) {
+            labels[s] = bestLabels[s + 1];
+            taken[labels[s]] = true;
+        }
+        int spare = 1;
+        for (int s = 0; s < gridDimension; s++) {
+            if (labels[s] == 0) {
+                while (taken[spare]) {
+                    spare++;
+                }
+                labels[s] = spare;
+                taken[spare] = true;
+            }
+        }
+
+        return new CanonicalForm(gridDimension, best.clone(), bestTransposed, bestRows.clone(), bestCols.clone(),
+                labels, symbols.clone());
+
+    } // end of canonicalize()
+
+
+    /**
+     * Arranges the columns one stack at a time for the top row chosen, dropping any stack
+     * that makes the top row larger than the best grid's, so only the column arrangements
+     * that tie on the top row go on to pick the other rows
+     *
+     * @param s    stack position being filled
+     * @param less whether the top row is already smaller than the best grid's
+     */
+    private void searchStacks(int s, boolean less) {
+
+        if (s == boxSize) {
+            searchRows(1, less);
+            return;
+        }
+
+        for (int stack = 0; stack < boxSize; stack++) {
+            if (stackUsed[stack]) {
+                continue;
+            }
+            stackUsed[stack] = true;
+
+            for (int[] columns : permutations) {
+                int labelsBefore = nextLabel;
+                int cmp = 0;
+                for (int c = s * boxSize; c < (s + 1) * boxSize; c++) {
+                    colOrder[c] = stack * boxSize + columns[c - s * boxSize];
+                    int label = label(view[rowOrder[0] * gridDimension + colOrder[c]]);
+                    current[c] = (short) label;
+                    if (cmp == 0 && haveBest) {
+                        cmp = Integer.compare(label, best[c]);
+                    }
+                }
+                if (less || cmp <= 0) {
+                    searchStacks(s + 1, less || cmp < 0);
+                    // A smaller grid was just recorded, later arrangements compare with it
+                    less = false;
+                }
+                unlabel(labelsBefore);
+            }
+
+            stackUsed[stack] = false;
+        }
+
+    } // end of searchStacks()
+
+
+    /**
+     * Picks the source of row k, from an unused band at the start of a band and from the
+     * current band otherwise, dropping any row larger than the best grid's row k
+     *
+     * @param k    row being picked
+     * @param less whether rows 0 to k - 1 are already smaller than the best grid's
+     */
+    private void searchRows(int k, boolean less) {
+
+        if (k == gridDimension) {
+            if (less) {
+                System.arraycopy(current, 0, best, 0, best.length);
+                bestTransposed = transposed;
+                System.arraycopy(rowOrder, 0, bestRows, 0, gridDimension);
+                System.arraycopy(colOrder, 0, bestCols, 0, gridDimension);
+                System.arraycopy(labelOf, 0, bestLabels, 0, gridDimension + 1);
+                haveBest = true;
+            }
+            return;
+        }
+
+        int firstBand;
+        int lastBand;
+        if (k % boxSize == 0) {
+            firstBand = 0;
+            lastBand = boxSize - 1;
+        } else {
+            firstBand = rowOrder[k - 1] / boxSize;
+            lastBand = firstBand;
+        }
+
+        for (int band = firstBand; band <= lastBand; band++) {
+            if (k % boxSize == 0 && bandUsed[band]) {
+                continue;
+            }
+            bandUsed[band] = true;
+
+            for (int row = band * boxSize; row < (band + 1) * boxSize; row++) {
+                if (rowUsed[row]) {
+                    continue;
+                }
+
+                int labelsBefore = nextLabel;
+                int cmp = fillRow(k, row);
+                if (less || cmp <= 0) {
+                    rowUsed[row] = true;
+                    rowOrder[k] = row;
+                    searchRows(k + 1, less || cmp < 0);
+                    rowUsed[row] = false;
+                    // A smaller grid was just recorded, later rows compare with it
+                    less = false;
+                }
+                unlabel(labelsBefore);
+            }
+
+            if (k % boxSize == 0) {
+                bandUsed[band] = false;
+            }
+        }
+
+    } // end of searchRows()
+
+
+    /**
+     * Writes source row as row k of the current grid, labelling the digits seen for the first
+     * time, and compares it with row k of the best grid
+     *
+     * @return negative, zero or positive as the row is smaller, equal or larger
+     */
+    private int fillRow(int k, int row) {
+
+        int cmp = haveBest ? 0 : -1;
+        int offset = k * gridDimension;
+        for (int c = 0; c < gridDimension; c++) {
+            int label = label(view[row * gridDimension + colOrder[c]]);
+            current[offset + c] = (short) label;
+            if (cmp == 0) {
+                cmp = Integer.compare(label, best[offset + c]);
+            }
+        }
+
+        return cmp;
+
+    } // end of fillRow()
+
+
+    /**
+     * Labels a digit, with the next label if it has not been seen yet
+     *
+     * @return its label, 0 for an empty cell
+     */
+    private int label(int digit) {
+
+        if (digit == 0) {
+            return 0;
+        }
+        if (labelOf[digit] == 0) {
+            labelled[nextLabel] = digit;
+            labelOf[digit] = ++nextLabel;
+        }
+
+        return labelOf[digit];
+
+    } // end of label()
+
+
+    /**
+     * Forgets the labels given since there were labelsBefore of them
+     */
+    private void unlabel(int labelsBefore) {
+
+        while (nextLabel > labelsBefore) {
+            labelOf[labelled[--nextLabel]] = 0;
+        }
+
+    } // end of unlabel()
+
+
+    /**
+     * Sizes the scratch arrays, and lists the permutations of the box size
+     */
+    private void prepare(int dimension) {
+
+        if (dimension == gridDimension && digits != null) {
+            return;
+        }
+
+        gridDimension = dimension;
+        boxSize = (int) Math.sqrt(dimension);
+        int cells = dimension * dimension;
+        digits = new int[cells];
+        view = new int[cells];
+        current = new short[cells];
+        best = new short[cells];
+        rowOrder = new int[dimension];
+        colOrder = new int[dimension];
+        rowUsed = new boolean[dimension];
+        bandUsed = new boolean[boxSize];
+        stackUsed = new boolean[boxSize];
+        labelOf = new int[dimension + 1];
+        labelled = new int[dimension];
+        nextLabel = 0;
+        bestRows = new int[dimension];
+        bestCols = new int[dimension];
+        bestLabels = new int[dimension + 1];
+
+        ArrayList<int[]> list = new ArrayList<>();
+        permute(new int[boxSize], new boolean[boxSize], 0, list);
+        permutations = list.toArray(new int[0][]);
+
+    } // end of prepare()
+
+
+    private void permute(int[] perm, boolean[] used, int position, ArrayList<int[]> list) {
+
+        if (position == perm.length) {
+            list.add(perm.clone());
+            return;
+        }
+        for (int v = 0; v < perm.length; v++) {
+            if (!used[v]) {
+                used[v] = true;
+                perm[position] = v;
+                permute(perm, used, position + 1, list);
+                used[v] = false;
+            }
+        }
+
+    } // end of permute()
+
+
+} // end of class GridCanonicalizer
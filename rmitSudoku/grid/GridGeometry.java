@@ -0,0 +1,150 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+package grid;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Precomputed layout tables for a grid dimension, addressed by cell index
+ * (i * gridDimension + j).  Gives the row, column and box of every cell and the peers
+ * (cells sharing a row, column or box) of every cell, so solvers never divide or rescan
+ * to find them.  Tables are immutable and shared between all grids of the same dimension.
+ */
+public class GridGeometry {
+
+    private static final ConcurrentHashMap<Integer, GridGeometry> geometries = new ConcurrentHashMap<>();
+
+    private final int gridDimension;
+    private final int boxSize;
+
+    private final int[] cellRow;
+    private final int[] cellCol;
+    private final int[] cellBox;
+    private final int[][] peers;
+
+
+    /**
+     * Constructor
+     *
+     * @param gridDimension dimension of the grid, a perfect square
+     */
+    private GridGeometry(int gridDimension) {
+
+        this.gridDimension = gridDimension;
+        this.boxSize = (int) Math.sqrt(gridDimension);
+
+        int cells = gridDimension * gridDimension;
+        cellRow = new int[cells];
+        cellCol = new int[cells];
+        cellBox = new int[cells];
+        peers = new int[cells][];
+
+        for (int cell = 0; cell < cells; cell++) {
+            cellRow[cell] = cell / gridDimension;
+            cellCol[cell] = cell % gridDimension;
+            cellBox[cell] = (cellRow[cell] / boxSize) * boxSize + cellCol[cell] / boxSize;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            peers[cell] = buildPeers(cellRow[cell], cellCol[cell]);
+        }
+
+    } // end of GridGeometry()
+
+
+    /**
+     * Gets the shared tables for a grid dimension
+     *
+     * @param gridDimension dimension of the grid
+     * @return geometry of that dimension
+     */
+    public static GridGeometry forDimension(int gridDimension) {
+        return geometries.computeIfAbsent(gridDimension, GridGeometry::new);
+    } // end of forDimension()
+
+
+    /* ********************************************************* */
+
+    // Getters
+
+    public int getGridDimension() {
+        return gridDimension;
+    }
+
+    public int getBoxSize() {
+        return boxSize;
+    }
+
+    public int getCellCount() {
+        return cellRow.length;
+    }
+
+    public int getRow(int cell) {
+        return cellRow[cell];
+    }
+
+    public int getCol(int cell) {
+        return cellCol[cell];
+    }
+
+    /**
+     * @param cell cell index
+     * @return box of the cell, boxes are numbered row-major
+     */
+    public int getBox(int cell) {
+        return cellBox[cell];
+    }
+
+    /**
+     * @param cell cell index
+     * @return cells sharing a row, column or box with the cell, excluding the cell itself
+     */
+    public int[] getPeers(int cell) {
+        return peers[cell];
+    }
+
+    /* ********************************************************* */
+
+
+    /**
+     * Lists the peers of cell (i, j) - its row, then its column, then the rest of its box
+     *
+     * @param i row index
+     * @param j column index
+     * @return peer cell indexes
+     */
+    private int[] buildPeers(int i, int j) {
+
+        int[] cellPeers = new int[3 * (gridDimension - 1) - 2 * (boxSize - 1)];
+        int count = 0;
+
+        for (int col = 0; col < gridDimension; col++) {
+            if (col != j) {
+                cellPeers[count++] = i * gridDimension + col;
+            }
+        }
+        for (int row = 0; row < gridDimension; row++) {
+            if (row != i) {
+                cellPeers[count++] = row * gridDimension + j;
+            }
+        }
+
+        int rowStart = i - i % boxSize;
+        int colStart = j - j % boxSize;
+        for (int row = rowStart; row < rowStart + boxSize; row++) {
+            for (int col = colStart; col < colStart + boxSize; col++) {
+                // Same row or column already added above
+                if (row != i && col != j) {
+                    cellPeers[count++] = row * gridDimension + col;
+                }
+            }
+        }
+
+        return cellPeers;
+
+    } // end of buildPeers()
+
+
+} // end of class GridGeometry
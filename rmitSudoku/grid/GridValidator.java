@@ -0,0 +1,269 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+package grid;
+
+import java.util.Arrays;
+
+
+/**
+ * Checks a filled grid against every constraint in one sweep over its flat cell array.
+ * Each row, column, box and cage keeps a bitset of the symbol indexes seen so far, so a
+ * repeat is caught at the cell that repeats, and the cage sums are compared once the sweep
+ * is done.  Sums alone are never trusted for the houses - two repeats can add up to the
+ * right total.  The first constraint broken is reported, for diagnostics.
+ * Each grid keeps its own validator and the bitsets are reused while the dimension stays
+ * the same.
+ */
+public class GridValidator {
+
+    private int gridDimension;
+    private int words;
+    private GridGeometry geometry;
+
+    // Seen symbol bitsets - house h occupies words [h * words, (h + 1) * words)
+    private long[] rowSeen;
+    private long[] colSeen;
+    private long[] boxSeen;
+    private long[] cageSeen;
+    private int[] cageSums;
+
+    // Symbol index of each value from minSymbol up, -1 for values that are not symbols
+    private int[] symbolLookup;
+    private int minSymbol;
+
+
+    /**
+     * Constructor
+     */
+    public GridValidator() {
+
+        cageSeen = new long[0];
+        cageSums = new int[0];
+        symbolLookup = new int[0];
+
+    } // end of GridValidator()
+
+
+    /**
+     * Checks every cell is a symbol, every row, column and box holds each symbol once, and
+     * (if there are cages) no cage repeats a symbol and every cage adds up to its total
+     *
+     * @param cells         cell values, cell (i, j) at index i * gridDimension + j
+     * @param gridDimension dimension of the grid
+     * @param symbols       valid symbols
+     * @param emptyValue    value of empty cells
+     * @param cageIndex     cages of a killer grid, null for standard Sudoku
+     * @return the first constraint broken, null if the grid is a valid solution
+     */
+    public Violation validate(short[] cells, int gridDimension, int[] symbols, int emptyValue,
+                              CageIndex cageIndex) {
+
+        prepare(gridDimension, symbols, cageIndex == null ? 0 : cageIndex.getCageCount());
+
+        for (int cell = 0; cell < gridDimension * gridDimension; cell++) {
+            int value = cells[cell];
+            if (value == emptyValue) {
+                return new Violation(Kind.EMPTY_CELL, cell, -1, value, gridDimension);
+            }
+            int offset = value - minSymbol;
+            int k = offset < 0 || offset >= symbolLookup.length ? -1 : symbolLookup[offset];
+            if (k == -1) {
+                return new Violation(Kind.NOT_A_SYMBOL, cell, -1, value, gridDimension);
+            }
+
+            int w = k >>> 6;
+            long bit = 1L << k;
+
+            if (!mark(rowSeen, geometry.getRow(cell), w, bit)) {
+                return new Violation(Kind.ROW, cell, geometry.getRow(cell), value, gridDimension);
+            }
+            if (!mark(colSeen, geometry.getCol(cell), w, bit)) {
+                return new Violation(Kind.COLUMN, cell, geometry.getCol(cell), value, gridDimension);
+            }
+            if (!mark(boxSeen, geometry.getBox(cell), w, bit)) {
+                return new Violation(Kind.BOX, cell, geometry.getBox(cell), value, gridDimension);
+            }
+
+            int cage = cageIndex == null ? -1 : cageIndex.getCage(cell);
+            if (cage != -1) {
+                if (!mark(cageSeen, cage, w, bit)) {
+                    return new Violation(Kind.CAGE_REPEAT, cell, cage, value, gridDimension);
+                }
+                cageSums[cage] += value;
+            }
+        }
+
+        if (cageIndex != null) {
+            for (int cage = 0; cage < cageIndex.getCageCount(); cage++) {
+                int[] cageCells = cageIndex.getCageCells(cage);
+                if (cageSums[cage] != cageIndex.getCageTotal(cage) && cageCells.length > 0) {
+                    return new Violation(Kind.CAGE_SUM, cageCells[0], cage, cageSums[cage], gridDimension);
+                }
+            }
+        }
+
+        return null;
+
+    } // end of validate()
+
+
+    /**
+     * Sets a symbol's bit in a house's bitset
+     *
+     * @return false if it was already set
+     */
+    private boolean mark(long[] seen, int house, int w, long bit) {
+
+        int word = house * words + w;
+        if ((seen[word] & bit) != 0) {
+            return false;
+        }
+        seen[word] |= bit;
+
+        return true;
+
+    } // end of mark()
+
+
+    /**
+     * Sizes and clears the bitsets, and builds the symbol lookup
+     */
+    private void prepare(int dimension, int[] symbols, int cageCount) {
+
+        if (dimension != gridDimension || rowSeen == null) {
+            gridDimension = dimension;
+            words = (dimension + 63) >>> 6;
+            geometry = GridGeometry.forDimension(dimension);
+            rowSeen = new long[dimension * words];
+            colSeen = new long[dimension * words];
+            boxSeen = new long[dimension * words];
+        } else {
+            Arrays.fill(rowSeen, 0L);
+            Arrays.fill(colSeen, 0L);
+            Arrays.fill(boxSeen, 0L);
+        }
+
+        if (cageSums.length < cageCount || cageSeen.length < cageCount * words) {
+            cageSeen = new long[cageCount * words];
+            cageSums = new int[cageCount];
+        } else {
+            Arrays.fill(cageSeen, 0, cageCount * words, 0L);
+            Arrays.fill(cageSums, 0, cageCount, 0);
+        }
+
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int k = 0; k < dimension; k++) {
+            min = Math.min(min, symbols[k]);
+            max = Math.max(max, symbols[k]);
+        }
+        if (symbolLookup.length != max - min + 1) {
+            symbolLookup = new int[max - min + 1];
+        }
+        Arrays.fill(symbolLookup, -1);
+        minSymbol = min;
+        for (int k = 0; k < dimension; k++) {
+            symbolLookup[symbols[k] - min] = k;
+        }
+
+    } // end of prepare()
+
+
+    /**
+     * Constraints a grid can break
+     */
+    public enum Kind {
+        EMPTY_CELL("empty cell"),
+        NOT_A_SYMBOL("not a symbol"),
+        ROW("row repeats a symbol"),
+        COLUMN("column repeats a symbol"),
+        BOX("box repeats a symbol"),
+        CAGE_REPEAT("cage repeats a symbol"),
+        CAGE_SUM("cage sum is wrong");
+
+        private final String name;
+
+        Kind(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    } // end of enum Kind
+
+
+    /**
+     * The first constraint a grid breaks - which one, and where
+     */
+    public static class Violation {
+
+        private final Kind kind;
+        private final int cell;
+        private final int index;
+        private final int value;
+        private final int gridDimension;
+
+        Violation(Kind kind, int cell, int index, int value, int gridDimension) {
+            this.kind = kind;
+            this.cell = cell;
+            this.index = index;
+            this.value = value;
+            this.gridDimension = gridDimension;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return cell where the break was found - the repeating cell, or the first cell of
+         *         a cage whose sum is wrong
+         */
+        public int getCell() {
+            return cell;
+        }
+
+        /**
+         * @return row, column, box or cage index, -1 for a single cell
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return value of the cell, or the sum of a cage whose sum is wrong
+         */
+        public int getValue() {
+            return value;
+        }
+
+        /**
+         * @return e.g. "box repeats a symbol - box 4, cell (4,5) holds 7"
+         */
+        @Override
+        public String toString() {
+
+            String where = "cell (" + cell / gridDimension + "," + cell % gridDimension + ")";
+            switch (kind) {
+                case ROW:
+                case COLUMN:
+                case BOX:
+                    return kind.getName() + " - " + kind.name().toLowerCase() + " " + index + ", " + where
+                            + " holds " + value;
+                case CAGE_REPEAT:
+                    return kind.getName() + " - cage " + index + ", " + where + " holds " + value;
+                case CAGE_SUM:
+                    return kind.getName() + " - cage " + index + " at " + where + " adds up to " + value;
+                default:
+                    return kind.getName() + " - " + where + " holds " + value;
+            }
+
+        } // end of toString()
+
+    } // end of class Violation
+
+
+} // end of class GridValidator
@@ -0,0 +1,212 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+package grid;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Streams grids to a channel in the outputGrid() format - one line per row, cells separated
+ * by commas - with grids after the first separated by a blank line, so a file of many
+ * solutions reads back like a multi-puzzle file.
+ * Cells are encoded to ASCII by hand into one reused buffer, written to the channel when it
+ * fills, so writing a grid allocates nothing.  Writers are safe to share between threads; a
+ * grid is always written whole.  A file can be synced to disk every so many grids, trading
+ * speed for how much a crash can lose.
+ */
+public class GridWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Longest cell - a sign, 5 digits of a short, and the separator
+    private static final int MAX_CELL_BYTES = 7;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    // Sync to disk after this many grids, 0 never (file channels only)
+    private final int syncEvery;
+    private int sinceSync;
+    // Whether a grid has been written (or the appended file had content), to separate the next
+    private boolean started;
+
+
+    /**
+     * Opens a file to write grids to
+     *
+     * @param path      file to write
+     * @param append    add to the end of the file rather than replace it
+     * @param syncEvery sync the file to disk after this many grids, 0 never
+     * @throws IOException if the file cannot be opened
+     */
+    public GridWriter(Path path, boolean append, int syncEvery) throws IOException {
+
+        this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING), syncEvery);
+        started = append && ((FileChannel) channel).size() > 0;
+
+    } // end of GridWriter()
+
+
+    /**
+     * Writes grids to a channel, e.g. Channels.newChannel(System.out)
+     *
+     * @param channel   where the grids are written, closed by close()
+     * @param syncEvery sync to disk after this many grids if it is a file channel, 0 never
+     */
+    public GridWriter(WritableByteChannel channel, int syncEvery) {
+
+        if (syncEvery < 0) {
+            throw new IllegalArgumentException("Sync interval must not be negative");
+        }
+
+        this.channel = channel;
+        this.syncEvery = syncEvery;
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    } // end of GridWriter()
+
+
+    /**
+     * Writes the current cells of a grid
+     *
+     * @param grid grid to write
+     * @throws IOException if the channel cannot be written
+     */
+    public synchronized void write(SudokuGrid grid) throws IOException {
+
+        int gridDimension = grid.getGridDimension();
+        startGrid();
+        for (int i = 0; i < gridDimension; i++) {
+            for (int j = 0; j < gridDimension; j++) {
+                putCell(grid.getCell(i * gridDimension + j), j == gridDimension - 1 ? '\n' : ',');
+            }
+        }
+        endGrid();
+
+    } // end of write()
+
+
+    /**
+     * Writes a grid from its cell values, e.g. a snapshot taken with copyCells()
+     *
+     * @param cells         cell values, cell (i, j) at index i * gridDimension + j
+     * @param gridDimension dimension of the grid
+     * @throws IOException if the channel cannot be written
+     */
+    public synchronized void write(short[] cells, int gridDimension) throws IOException {
+
+        startGrid();
+        for (int cell = 0; cell < gridDimension * gridDimension; cell++) {
+            putCell(cells[cell], cell % gridDimension == gridDimension - 1 ? '\n' : ',');
+        }
+        endGrid();
+
+    } // end of write()
+
+
+    /**
+     * Writes the buffered bytes to the channel
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    public synchronized void flush() throws IOException {
+
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+
+    } // end of flush()
+
+
+    /**
+     * Flushes, syncs if syncing is on, and closes the channel
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        try {
+            flush();
+            if (syncEvery > 0 && sinceSync > 0 && channel instanceof FileChannel) {
+                ((FileChannel) channel).force(false);
+            }
+        } finally {
+            channel.close();
+        }
+
+    } // end of close()
+
+
+    private void startGrid() throws IOException {
+
+        if (started) {
+            ensureRoom(1);
+            buffer.put((byte) '\n');
+        }
+        started = true;
+
+    } // end of startGrid()
+
+
+    private void endGrid() throws IOException {
+
+        if (syncEvery > 0 && ++sinceSync == syncEvery) {
+            flush();
+            if (channel instanceof FileChannel) {
+                ((FileChannel) channel).force(false);
+            }
+            sinceSync = 0;
+        }
+
+    } // end of endGrid()
+
+
+    /**
+     * Encodes a cell value in decimal, followed by a separator
+     */
+    private void putCell(int value, char separator) throws IOException {
+
+        ensureRoom(MAX_CELL_BYTES);
+
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+
+        // Digits come out lowest first, so write them backwards into their place
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int end = buffer.position() + digits;
+        for (int p = end - 1; p >= end - digits; p--) {
+            buffer.put(p, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(end);
+        buffer.put((byte) separator);
+
+    } // end of putCell()
+
+
+    private void ensureRoom(int size) throws IOException {
+
+        if (buffer.remaining() < size) {
+            flush();
+        }
+
+    } // end of ensureRoom()
+
+
+} // end of class GridWriter
@@ -5,7 +5,11 @@
 package grid;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 
 /**
@@ -19,15 +23,21 @@ import java.util.ArrayList;
  */
 public class KillerSudokuGrid extends SudokuGrid {
 
-    // Sudoku Grid Layout
-    private int[][] sudokuGrid;
+    // Sudoku Grid Layout - flat, cell (i, j) is at index i * gridDimension + j
+    private short[] sudokuGrid;
     private int gridDimension;
+    private GridGeometry geometry;
 
     private int[] validSymbolsList;
-    private int validSymbolsTotal;
 
-    // List to hold cage instructions
-    private final ArrayList<String[]> cageList;
+    // Decodes the .in file into cage tables
+    private final PuzzleParser parser;
+    // Checks solutions, reused from puzzle to puzzle
+    private final GridValidator validator;
+    // Cages compiled from the tables, with running sums
+    private CageIndex cageIndex;
+    // Cage instructions as in the .in file, rebuilt from the cage index only if asked for
+    private ArrayList<String[]> cageList;
 
 
     /**
@@ -36,7 +46,8 @@ public class KillerSudokuGrid extends SudokuGrid {
     public KillerSudokuGrid() {
 
         super();
-        cageList = new ArrayList<>();
+        parser = new PuzzleParser();
+        validator = new GridValidator();
 
     } // end of KillerSudokuGrid()
 
@@ -46,12 +57,49 @@ public class KillerSudokuGrid extends SudokuGrid {
     // Getters and setters
     @Override
     public int getGridLoc(int i, int j) {
-        return sudokuGrid[i][j];
+        return sudokuGrid[i * gridDimension + j];
     }
 
     @Override
     public void setGridLoc(int i, int j, int num) {
-        sudokuGrid[i][j] = num;
+        setCell(i * gridDimension + j, num);
+    }
+
+    @Override
+    public int getCell(int cell) {
+        return sudokuGrid[cell];
+    }
+
+    @Override
+    public void setCell(int cell, int num) {
+        if (cageIndex != null) {
+            cageIndex.update(cell, sudokuGrid[cell], num);
+        }
+        sudokuGrid[cell] = (short) num;
+    }
+
+    @Override
+    public void copyCells(short[] dest) {
+        System.arraycopy(sudokuGrid, 0, dest, 0, sudokuGrid.length);
+    }
+
+    @Override
+    public void restoreCells(short[] src) {
+        System.arraycopy(src, 0, sudokuGrid, 0, sudokuGrid.length);
+        // Cage sums have to follow the bulk copy
+        if (cageIndex != null) {
+            cageIndex.reload(this);
+        }
+    }
+
+    @Override
+    public int getEmptyValue() {
+        return 0;
+    }
+
+    @Override
+    public GridGeometry getGeometry() {
+        return geometry;
     }
 
     @Override
@@ -69,213 +117,188 @@ public class KillerSudokuGrid extends SudokuGrid {
         return null;
     }
 
+    // Killer puzzles have no givens, only cages
     @Override
-    public ArrayList<String[]> getCageList() {
-        return cageList;
+    public int getGivenCount() {
+        return 0;
     }
 
-    /* ********************************************************* */
+    @Override
+    public int getGivenCell(int given) {
+        throw new IndexOutOfBoundsException("Killer puzzles have no givens");
+    }
 
+    @Override
+    public int getGivenValue(int given) {
+        throw new IndexOutOfBoundsException("Killer puzzles have no givens");
+    }
 
     @Override
-    public void initGrid(String filename)
-            throws FileNotFoundException, IOException {
+    public ArrayList<String[]> getCageList() {
 
-        ArrayList<String> sudokuList = new ArrayList<>();
+        if (cageList == null && cageIndex != null) {
+            cageList = new ArrayList<>();
+            for (int c = 0; c < cageIndex.getCageCount(); c++) {
+                int[] cells = cageIndex.getCageCells(c);
+                String[] cage = new String[cells.length + 1];
+                cage[0] = String.valueOf(cageIndex.getCageTotal(c));
+                for (int l = 0; l < cells.length; l++) {
+                    cage[l + 1] = cells[l] / gridDimension + "," + cells[l] % gridDimension;
+                }
+                cageList.add(cage);
+            }
+        }
 
-        // Open file and read each line using BufferedReader
-        File file = new File(filename);
-        BufferedReader reader = new BufferedReader(new FileReader(file));
+        return cageList;
 
-        String line;
-        // Given that the text file follows the proper structure
-        // Assigns read line to variable 'line' and adds to list
-        while ((line = reader.readLine()) != null) {
-            sudokuList.add(line);
-        }
+    } // end of getCageList()
 
-        reader.close();
+    @Override
+    public CageIndex getCageIndex() {
+        return cageIndex;
+    }
 
-        // Obtain size of the input grid - first line of file
-        gridDimension = Integer.parseInt(sudokuList.get(0));
-        // Initialise sudoku grid/array to all zeroes
-        sudokuGrid = new int[gridDimension][gridDimension];
+    /* ********************************************************* */
 
-        // Assign list of valid symbols
-        String[] validSymbols = sudokuList.get(1).split(" ");
-        validSymbolsList = new int[gridDimension];
-        for (int i = 0; i < gridDimension; i++) {
-            validSymbolsList[i] = Integer.parseInt(validSymbols[i]);
-            validSymbolsTotal += validSymbolsList[i];
-        }
 
-        // Read in number of cages
-        int cageNo = Integer.parseInt(sudokuList.get(2));
+    @Override
+    public void initGrid(String filename)
+            throws FileNotFoundException, IOException {
 
-        for (int i = 3; i < 3 + cageNo; i++) {
-            String[] temp = sudokuList.get(i).split(" ");
-            cageList.add(temp);
-        }
+        // Decode the bytes of the file directly, no lines or Strings
+        load(parser.read(filename));
 
     } // end of initBoard()
 
 
     @Override
-    public void outputGrid(String filename)
-            throws FileNotFoundException, IOException {
-        // Writes string representation of SudokuGrid to filename
-        File file = new File(filename);
-        BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+    public void initGrid(List<String> sudokuList) {
 
-        writer.write(toString());
+        load(parser.wrap(sudokuList));
 
-        writer.close();
-
-    } // end of outputBoard()
+    } // end of initGrid()
 
 
     @Override
-    public String toString() {
+    public void initGrid(ByteBuffer bytes) {
 
-        StringBuilder gridLayout = new StringBuilder();
+        load(bytes);
 
-        for (int i = 0; i < gridDimension; i++) {
-            for (int j = 0; j < gridDimension; j++) {
-                gridLayout.append(sudokuGrid[i][j]);
-                if (j != gridDimension - 1) {
-                    gridLayout.append(",");
-                }
-            }
-            gridLayout.append("\n");
+    } // end of initGrid()
 
-        }
 
-        return gridLayout.toString();
+    @Override
+    public void initGrid(BinaryPuzzleFile file, int index) {
 
-    } // end of toString()
+        if (parser.parseBinary(file.getRecord(index)) != BinaryPuzzleFile.KILLER) {
+            throw new IllegalArgumentException("Record " + index + " is not a killer puzzle");
+        }
+        apply();
+
+    } // end of initGrid()
 
 
     @Override
-    public boolean validate() {
+    public KillerSudokuGrid copy() {
 
-        if (!oneValueConstraintCheck()) {
-            return false;
-        } else if (!rowConstraintCheck()) {
-            return false;
-        } else if (!columnConstraintCheck()) {
-            return false;
-        } else {
+        // Load the copy from the same decoded puzzle, then bring its cells up to date
+        KillerSudokuGrid copy = new KillerSudokuGrid();
+        copy.parser.copyFrom(parser);
+        copy.apply();
+        copy.restoreCells(sudokuGrid);
 
-            return boxConstraintCheck();
-        }
+        return copy;
 
-    } // end of validate()
+    } // end of copy()
 
 
     /**
-     * Checks if cell contains a value
+     * Parses a puzzle and compiles its cages
      *
-     * @return true if validated
+     * @param bytes the .in file's bytes
      */
-    private boolean oneValueConstraintCheck() {
+    private void load(ByteBuffer bytes) {
 
-        for (int i = 0; i < gridDimension; i++) {
-            for (int j = 0; j < gridDimension; j++) {
-                if (sudokuGrid[i][j] == 0) {
-                    return false;
-                }
-            }
-        }
+        parser.parseKiller(bytes);
+        apply();
 
-        return true;
-
-    } // end of oneValueConstraintCheck()
+    } // end of load()
 
 
     /**
-     * Checks for if rows contain a unique value
-     * Consider arithmetic, all unique values will add up to a certain number.
-     * Even if a row has repeat numbers to add up to the total, it will fail the column
-     * check since the columns will contain repeat numbers.
-     *
-     * @return true if validated
+     * Fills the grid from the puzzle the parser last decoded
      */
-    private boolean rowConstraintCheck() {
-
-        for (int i = 0; i < gridDimension; i++) {
-            int sum = 0;
+    private void apply() {
 
-            for (int j = 0; j < gridDimension; j++) {
-                sum += sudokuGrid[i][j];
-            }
+        cageList = null;
 
-            if (sum != validSymbolsTotal) {
-                return false;
-            }
+        // Obtain size of the input grid - first line of file
+        gridDimension = parser.getGridDimension();
+        geometry = GridGeometry.forDimension(gridDimension);
+        // Initialise sudoku grid/array to all zeroes, reusing the array for a grid of the same size
+        if (sudokuGrid == null || sudokuGrid.length != gridDimension * gridDimension) {
+            sudokuGrid = new short[gridDimension * gridDimension];
         }
+        Arrays.fill(sudokuGrid, (short) 0);
 
-        return true;
+        // Assign list of valid symbols - a new array, the previous cage index keeps the old one
+        validSymbolsList = Arrays.copyOf(parser.getSymbols(), gridDimension);
 
-    } // end of rowConstraintCheck()
+        // Compile the cages once so solvers never touch the text
+        cageIndex = new CageIndex(gridDimension, validSymbolsList, 0, parser.getCageCount(),
+                parser.getCageTotals(), parser.getCageStart(), parser.getCageCellList());
+        cageIndex.reload(this);
 
+    } // end of apply()
 
-    /**
-     * Checks for if columns contain a unique value
-     * Consider arithmetic, all unique values will add up to a certain number.
-     * Even if a column has repeat numbers to add up to the total, it will fail the row
-     * check since the rows will contain repeat numbers.
-     *
-     * @return true if validated
-     */
-    private boolean columnConstraintCheck() {
 
-        for (int j = 0; j < gridDimension; j++) {
-            int sum = 0;
+    @Override
+    public void outputGrid(String filename)
+            throws FileNotFoundException, IOException {
+        // Streams the cells straight to the file, in the toString() format
+        try (GridWriter writer = new GridWriter(Paths.get(filename), false, 0)) {
+            writer.write(this);
+        }
 
-            for (int i = 0; i < gridDimension; i++) {
-                sum += sudokuGrid[i][j];
-            }
+    } // end of outputBoard()
 
-            if (sum != validSymbolsTotal) {
-                return false;
-            }
-        }
 
-        return true;
-    }
+    @Override
+    public String toString() {
 
+        StringBuilder gridLayout = new StringBuilder();
 
-    /**
-     * Checks for box contains unique numbers
-     * Consider arithmetic, all unique values will add up to a certain number.
-     *
-     * @return true if validated
-     */
-    private boolean boxConstraintCheck() {
-        int squareRoot = (int) Math.sqrt(gridDimension);
-
-        // Defines which block to check
-        for (int i = 0; i < gridDimension; i += squareRoot) {
-            for (int j = 0; j < gridDimension; j += squareRoot) {
-
-                int bounds = i + squareRoot;
-                int subGridTotal = 0;
-
-                // Iterate through each element in the block
-                for (int k = i; k < bounds; k++) {
-                    for (int l = i; l < bounds; l++) {
-                        subGridTotal += sudokuGrid[k][l];
-                    }
-                } // end inner double for loop
-                if (subGridTotal != validSymbolsTotal) {
-                    return false;
+        for (int i = 0; i < gridDimension; i++) {
+            for (int j = 0; j < gridDimension; j++) {
+                gridLayout.append(sudokuGrid[i * gridDimension + j]);
+                if (j != gridDimension - 1) {
+                    gridLayout.append(",");
                 }
             }
-        } // end outer double for loop
+            gridLayout.append("\n");
+
+        }
+
+        return gridLayout.toString();
+
+    } // end of toString()
+
+
+    @Override
+    public boolean validate() {
+
+        return findViolation() == null;
+
+    } // end of validate()
+
+
+    @Override
+    public GridValidator.Violation findViolation() {
 
-        return true;
+        // One sweep with symbol bitsets per house and cage
+        return validator.validate(sudokuGrid, gridDimension, validSymbolsList, getEmptyValue(), cageIndex);
 
-    } // end of boxConstraintCheck()
+    } // end of findViolation()
 
 
 } // end of class KillerSudokuGrid
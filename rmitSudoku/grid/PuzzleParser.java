@@ -0,0 +1,475 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+package grid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Single pass parser of the .in formats, decoding numbers straight from the bytes into int
+ * arrays - no lines, Strings or split() on the way.  Also decodes records of the binary
+ * format into the same arrays.
+ * A standard puzzle gives the dimension, the symbols and the givens (cell index and value);
+ * a killer puzzle gives the dimension, the symbols and the cages as offset tables (the cells
+ * of cage c are cageCellList[cageStart[c]] to cageCellList[cageStart[c + 1] - 1]).
+ * Files are read into a reused buffer, or memory-mapped when large.  Each grid keeps its own
+ * parser, and the arrays are reused (and only grow) from puzzle to puzzle, so they are only
+ * valid until the next parse.
+ */
+public class PuzzleParser {
+
+    // Files larger than this are memory-mapped rather than read into the buffer
+    private static final long MAP_THRESHOLD = 1 << 20;
+
+    // Input, and position of the next byte to decode
+    private ByteBuffer input;
+    private int pos;
+    private int limit;
+    // Reused buffer for files and lines read
+    private ByteBuffer buffer;
+
+    private int gridDimension;
+    private int[] symbols;
+
+    // Standard - cell index and value of each given
+    private int givenCount;
+    private int[] givenCells;
+    private int[] givenValues;
+
+    // Killer - total of each cage, and offsets of its cells in cageCellList
+    private int cageCount;
+    private int[] cageTotals;
+    private int[] cageStart;
+    private int[] cageCellList;
+
+
+    /**
+     * Constructor
+     */
+    public PuzzleParser() {
+
+        buffer = ByteBuffer.allocate(4096);
+        symbols = new int[0];
+        givenCells = new int[0];
+        givenValues = new int[0];
+        cageTotals = new int[0];
+        cageStart = new int[1];
+        cageCellList = new int[0];
+
+    } // end of PuzzleParser()
+
+
+    /**
+     * Reads a whole file, into the reused buffer or memory-mapped if large
+     *
+     * @param filename file to read
+     * @return the file's bytes, valid until the next read
+     * @throws IOException if the file cannot be read
+     */
+    public ByteBuffer read(String filename) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAP_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+
+            if (buffer.capacity() < size) {
+                buffer = ByteBuffer.allocate((int) size);
+            }
+            buffer.clear();
+            while (buffer.position() < size && channel.read(buffer) != -1) {
+                // keep reading, a read may return fewer bytes than asked for
+            }
+            buffer.flip();
+
+            return buffer;
+        }
+
+    } // end of read()
+
+
+    /**
+     * Copies lines already read as Strings into the reused buffer, one line per line
+     *
+     * @param lines lines of a puzzle, ASCII
+     * @return the lines' bytes, valid until the next read
+     */
+    public ByteBuffer wrap(List<String> lines) {
+
+        int size = 0;
+        for (String line : lines) {
+            size += line.length() + 1;
+        }
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(size);
+        }
+
+        buffer.clear();
+        for (String line : lines) {
+            for (int l = 0; l < line.length(); l++) {
+                buffer.put((byte) line.charAt(l));
+            }
+            buffer.put((byte) '\n');
+        }
+        buffer.flip();
+
+        return buffer;
+
+    } // end of wrap()
+
+
+    /**
+     * Parses a standard puzzle - dimension, symbols, then a "row,col value" line per given
+     *
+     * @param bytes the puzzle, from its position to its limit
+     */
+    public void parseStandard(ByteBuffer bytes) {
+
+        parseHeader(bytes);
+
+        int cells = gridDimension * gridDimension;
+        if (givenCells.length < cells) {
+            givenCells = new int[cells];
+            givenValues = new int[cells];
+        }
+
+        givenCount = 0;
+        while (skipWhitespace()) {
+            int cell = readCell();
+            int value = readInt();
+            if (givenCount == cells) {
+                throw error("more givens than cells");
+            }
+            givenCells[givenCount] = cell;
+            givenValues[givenCount] = value;
+            givenCount++;
+        }
+
+    } // end of parseStandard()
+
+
+    /**
+     * Parses a killer puzzle - dimension, symbols, number of cages, then a
+     * "total row,col row,col ..." line per cage
+     *
+     * @param bytes the puzzle, from its position to its limit
+     */
+    public void parseKiller(ByteBuffer bytes) {
+
+        parseHeader(bytes);
+
+        cageCount = readInt();
+        int cells = gridDimension * gridDimension;
+        if (cageTotals.length < cageCount) {
+            cageTotals = new int[cageCount];
+            cageStart = new int[cageCount + 1];
+        }
+        if (cageCellList.length < cells) {
+            cageCellList = new int[cells];
+        }
+
+        int cellCount = 0;
+        for (int c = 0; c < cageCount; c++) {
+            cageTotals[c] = readInt();
+            cageStart[c] = cellCount;
+            // The cells run to the end of the line
+            while (skipSpaces()) {
+                if (cellCount == cageCellList.length) {
+                    // A cell in two cages - let the cage index make what it can of it
+                    cageCellList = Arrays.copyOf(cageCellList, 2 * cageCellList.length);
+                }
+                cageCellList[cellCount++] = readCell();
+            }
+        }
+        cageStart[cageCount] = cellCount;
+
+    } // end of parseKiller()
+
+
+    /**
+     * Decodes a record of the binary format (see BinaryPuzzleFile) into the same arrays the
+     * text parsers fill.  The cells of a SOLUTION record come out as givens.
+     *
+     * @param record the record, from its kind byte on
+     * @return kind of the record
+     */
+    public byte parseBinary(ByteBuffer record) {
+
+        int offset = record.position();
+        byte kind = record.get(offset);
+        gridDimension = record.get(offset + 1) & 0xFF;
+        byte flags = record.get(offset + 2);
+        offset += 3;
+
+        if (symbols.length != gridDimension) {
+            symbols = new int[gridDimension];
+        }
+        for (int k = 0; k < gridDimension; k++) {
+            if ((flags & BinaryPuzzleFile.CUSTOM_SYMBOLS) != 0) {
+                symbols[k] = record.getInt(offset);
+                offset += 4;
+            } else {
+                symbols[k] = k + 1;
+            }
+        }
+
+        int cells = gridDimension * gridDimension;
+        if (kind == BinaryPuzzleFile.KILLER) {
+            cageCount = record.getShort(offset) & 0xFFFF;
+            offset += 2;
+            if (cageTotals.length < cageCount) {
+                cageTotals = new int[cageCount];
+                cageStart = new int[cageCount + 1];
+            }
+            for (int c = 0; c <= cageCount; c++) {
+                cageStart[c] = record.getShort(offset) & 0xFFFF;
+                offset += 2;
+            }
+            for (int c = 0; c < cageCount; c++) {
+                cageTotals[c] = record.getInt(offset);
+                offset += 4;
+            }
+            if (cageCellList.length < cageStart[cageCount]) {
+                cageCellList = new int[cageStart[cageCount]];
+            }
+            for (int l = 0; l < cageStart[cageCount]; l++) {
+                cageCellList[l] = record.getShort(offset) & 0xFFFF;
+                offset += 2;
+            }
+            return kind;
+        }
+
+        if (givenCells.length < cells) {
+            givenCells = new int[cells];
+            givenValues = new int[cells];
+        }
+
+        // Cells are packed from the low bit up, a cell may straddle two bytes
+        int bits = BinaryPuzzleFile.bitsPerCell(gridDimension);
+        int mask = (1 << bits) - 1;
+        int window = 0;
+        int windowBits = 0;
+        givenCount = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            while (windowBits < bits) {
+                window |= (record.get(offset++) & 0xFF) << windowBits;
+                windowBits += 8;
+            }
+            int code = window & mask;
+            window >>>= bits;
+            windowBits -= bits;
+
+            if (code != 0) {
+                givenCells[givenCount] = cell;
+                givenValues[givenCount] = symbols[code - 1];
+                givenCount++;
+            }
+        }
+
+        return kind;
+
+    } // end of parseBinary()
+
+
+    /**
+     * Copies the puzzle another parser last decoded, so a second grid can be loaded with it
+     *
+     * @param other parser to copy
+     */
+    void copyFrom(PuzzleParser other) {
+
+        gridDimension = other.gridDimension;
+        symbols = other.symbols.clone();
+        givenCount = other.givenCount;
+        givenCells = other.givenCells.clone();
+        givenValues = other.givenValues.clone();
+        cageCount = other.cageCount;
+        cageTotals = other.cageTotals.clone();
+        cageStart = other.cageStart.clone();
+        cageCellList = other.cageCellList.clone();
+
+    } // end of copyFrom()
+
+
+    /**
+     * Parses the first two lines common to both formats - the dimension and the symbols
+     */
+    private void parseHeader(ByteBuffer bytes) {
+
+        input = bytes;
+        pos = bytes.position();
+        limit = bytes.limit();
+
+        gridDimension = readInt();
+        if (gridDimension < 1) {
+            throw error("grid dimension must be at least 1");
+        }
+        if (symbols.length != gridDimension) {
+            symbols = new int[gridDimension];
+        }
+        for (int k = 0; k < gridDimension; k++) {
+            symbols[k] = readInt();
+        }
+
+    } // end of parseHeader()
+
+
+    /**
+     * Reads "row,col"
+     *
+     * @return the cell index
+     */
+    private int readCell() {
+
+        int row = readInt();
+        if (pos >= limit || input.get(pos) != ',') {
+            throw error("expected ','");
+        }
+        pos++;
+        int col = readInt();
+        if (row < 0 || col < 0 || row >= gridDimension || col >= gridDimension) {
+            throw error("cell " + row + "," + col + " is outside the grid");
+        }
+
+        return row * gridDimension + col;
+
+    } // end of readCell()
+
+
+    /**
+     * Reads a decimal number, skipping any whitespace (including line ends) before it
+     *
+     * @return the number
+     */
+    private int readInt() {
+
+        if (!skipWhitespace()) {
+            throw error("unexpected end of input");
+        }
+
+        boolean negative = input.get(pos) == '-';
+        if (negative) {
+            pos++;
+        }
+
+        int start = pos;
+        int value = 0;
+        while (pos < limit) {
+            int digit = input.get(pos) - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            value = value * 10 + digit;
+            pos++;
+        }
+        if (pos == start) {
+            throw error("expected a number");
+        }
+
+        return negative ? -value : value;
+
+    } // end of readInt()
+
+
+    /**
+     * Skips spaces, tabs and line ends
+     *
+     * @return true if there is more input
+     */
+    private boolean skipWhitespace() {
+
+        while (pos < limit && isWhitespace(input.get(pos))) {
+            pos++;
+        }
+
+        return pos < limit;
+
+    } // end of skipWhitespace()
+
+
+    /**
+     * Skips spaces and tabs, but not line ends
+     *
+     * @return true if there is more on this line
+     */
+    private boolean skipSpaces() {
+
+        while (pos < limit) {
+            byte b = input.get(pos);
+            if (b == '\n') {
+                return false;
+            }
+            if (!isWhitespace(b)) {
+                return true;
+            }
+            pos++;
+        }
+
+        return false;
+
+    } // end of skipSpaces()
+
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Malformed puzzle at byte " + pos + ": " + message);
+    }
+
+
+    /* ********************************************************* */
+
+    // Getters - arrays are reused, so only the first count entries belong to the last puzzle
+
+    public int getGridDimension() {
+        return gridDimension;
+    }
+
+    public int[] getSymbols() {
+        return symbols;
+    }
+
+    public int getGivenCount() {
+        return givenCount;
+    }
+
+    public int[] getGivenCells() {
+        return givenCells;
+    }
+
+    public int[] getGivenValues() {
+        return givenValues;
+    }
+
+    public int getCageCount() {
+        return cageCount;
+    }
+
+    public int[] getCageTotals() {
+        return cageTotals;
+    }
+
+    public int[] getCageStart() {
+        return cageStart;
+    }
+
+    public int[] getCageCellList() {
+        return cageCellList;
+    }
+
+    /* ********************************************************* */
+
+
+} // end of class PuzzleParser
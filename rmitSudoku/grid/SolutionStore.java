@@ -0,0 +1,541 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+package grid;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+
+/**
+ * Solutions kept on disk from run to run, keyed by puzzle - the puzzle's bytes as
+ * BinaryPuzzleWriter.encodePuzzle() encodes them, looked up by their 64-bit hash.
+ * A store is a directory of two files.  The log is only ever appended to: a put() adds a
+ * record, and a later put() of the same puzzle leaves the earlier record dead.  The index is
+ * the in-memory map from hash to log offset, written out by close() and by compaction, so
+ * opening a store reads the index and scans only the records logged after it; without a
+ * valid index the whole log is scanned.  Records are read through a memory map of the log.
+ * Once dead records outnumber live ones (and there are at least COMPACT_MIN_DEAD of them) the
+ * live records are copied to a new log, which replaces the old one.  All numbers are
+ * big-endian.
+ *
+ *   solutions.log  header "SDKL", version byte, 3 bytes padding, generation as a long
+ *                  records one after the other, each:
+ *                    body length as an int
+ *                    body - key hash as a long, key length as an int, the key, cell count
+ *                      as an int (0 if the puzzle has no solution) and the solution's cell
+ *                      values as shorts
+ *                    CRC-32 of the body as an int
+ *   solutions.idx  header "SDKX", version byte, 3 bytes padding, generation of the log it
+ *                  indexes as a long, log length it covers as a long, live and dead record
+ *                  counts as ints, then the hash and log offset of each live record as longs
+ *
+ * The generation changes whenever the log is rewritten, so an index left from an older log
+ * is never used.  A record cut short by a crash fails its CRC and is truncated away when the
+ * store is next opened.  Two puzzles with the same hash replace each other, as the key is
+ * checked on every get().  The store is synchronized, so the workers of a batch can share
+ * one, but only one process may have a store open.  The log is mapped whole, so it is
+ * limited to 2 GB.
+ */
+public class SolutionStore implements Closeable {
+
+    static final int LOG_MAGIC = 0x53444B4C;
+    static final int INDEX_MAGIC = 0x53444B58;
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int INDEX_HEADER_SIZE = 32;
+    // Body length, hash and key length, cell count, CRC
+    static final int RECORD_OVERHEAD = 4 + 8 + 4 + 4 + 4;
+
+    // Dead records there have to be before compaction
+    public static final int COMPACT_MIN_DEAD = 256;
+
+    static final String LOG_NAME = "solutions.log";
+    static final String INDEX_NAME = "solutions.idx";
+
+    private final Path logPath;
+    private final Path indexPath;
+
+    private FileChannel channel;
+    private long generation;
+    private long logSize;
+    // Mapped length is the log size at the last (re)map, records appended since need a remap
+    private MappedByteBuffer map;
+
+    // Log offset of the live record of each hash
+    private final HashMap<Long, Long> index;
+    private int deadRecords;
+
+    private long hits;
+    private long misses;
+    private int compactions;
+
+    private final CRC32 crc;
+
+
+    /**
+     * Opens a store, creating it if the directory has no log
+     *
+     * @param directory directory of the store's files
+     * @throws IOException if the files cannot be read or created, or the log is not a store log
+     */
+    public SolutionStore(Path directory) throws IOException {
+
+        Files.createDirectories(directory);
+        logPath = directory.resolve(LOG_NAME);
+        indexPath = directory.resolve(INDEX_NAME);
+        index = new HashMap<>();
+        crc = new CRC32();
+
+        channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                generation = new Random().nextLong();
+                writeFully(channel, logHeader(generation), 0);
+            }
+            logSize = channel.size();
+            remap();
+            if (logSize < HEADER_SIZE || map.getInt(0) != LOG_MAGIC) {
+                throw new IOException(logPath + " is not a solution store log");
+            }
+            if (map.get(4) != VERSION) {
+                throw new IOException(logPath + " has unknown version " + map.get(4));
+            }
+            generation = map.getLong(8);
+
+            scan(readIndex());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+    } // end of SolutionStore()
+
+
+    /**
+     * 64-bit FNV-1a hash of a key
+     *
+     * @param key puzzle bytes
+     * @return the hash
+     */
+    public static long hash(byte[] key) {
+
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+
+        return hash;
+
+    } // end of hash()
+
+
+    /**
+     * Looks up the solution of a puzzle
+     *
+     * @param key puzzle bytes, see BinaryPuzzleWriter.encodePuzzle()
+     * @return the solution's cell values, an empty array if the puzzle is stored as having no
+     *         solution, null if it is not stored
+     * @throws IOException if the log cannot be mapped
+     */
+    public synchronized short[] get(byte[] key) throws IOException {
+
+        Long offset = index.get(hash(key));
+        if (offset == null) {
+            misses++;
+            return null;
+        }
+
+        ByteBuffer body = body(offset);
+        if (!keyMatches(body, key)) {
+            misses++;
+            return null;
+        }
+        short[] cells = new short[body.getInt()];
+        body.asShortBuffer().get(cells);
+        hits++;
+
+        return cells;
+
+    } // end of get()
+
+
+    /**
+     * Logs the solution of a puzzle, replacing any stored before.  A solution the same as the
+     * stored one is not logged again.
+     *
+     * @param key   puzzle bytes, see BinaryPuzzleWriter.encodePuzzle()
+     * @param cells the solution's cell values, null or empty if the puzzle has no solution
+     * @throws IOException if the log cannot be written
+     */
+    public synchronized void put(byte[] key, short[] cells) throws IOException {
+
+        if (cells == null) {
+            cells = new short[0];
+        }
+        long hash = hash(key);
+        Long previous = index.get(hash);
+        if (previous != null && sameRecord(body(previous), key, cells)) {
+            return;
+        }
+
+        int bodyLength = 8 + 4 + key.length + 4 + 2 * cells.length;
+        ByteBuffer record = ByteBuffer.allocate(4 + bodyLength + 4);
+        record.putInt(bodyLength);
+        record.putLong(hash);
+        record.putInt(key.length);
+        record.put(key);
+        record.putInt(cells.length);
+        for (short cell : cells) {
+            record.putShort(cell);
+        }
+        crc.reset();
+        crc.update(record.array(), 4, bodyLength);
+        record.putInt((int) crc.getValue());
+        record.flip();
+
+        writeFully(channel, record, logSize);
+        index.put(hash, logSize);
+        logSize += record.limit();
+        if (previous != null) {
+            deadRecords++;
+        }
+
+        if (deadRecords >= COMPACT_MIN_DEAD && deadRecords > index.size()) {
+            compact();
+        }
+
+    } // end of put()
+
+
+    /**
+     * Copies the live records to a new log, which replaces the old one, and writes the index
+     *
+     * @throws IOException if the new log cannot be written
+     */
+    public synchronized void compact() throws IOException {
+
+        // Live records in log order, so the new log keeps the order they were put in
+        ArrayList<Map.Entry<Long, Long>> live = new ArrayList<>(index.entrySet());
+        live.sort(Map.Entry.comparingByValue());
+
+        Path tempPath = logPath.resolveSibling(LOG_NAME + ".tmp");
+        long newGeneration = generation + 1;
+        HashMap<Long, Long> newIndex = new HashMap<>();
+        try (FileChannel out = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = writeFully(out, logHeader(newGeneration), 0);
+            remap();
+            for (Map.Entry<Long, Long> entry : live) {
+                ByteBuffer record = map.duplicate();
+                record.position((int) (long) entry.getValue());
+                record.limit(record.position() + 4 + record.getInt(record.position()) + 4);
+                newIndex.put(entry.getKey(), position);
+                position = writeFully(out, record, position);
+            }
+            out.force(true);
+        }
+
+        map = null;
+        channel.close();
+        Files.move(tempPath, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        generation = newGeneration;
+        logSize = channel.size();
+        remap();
+
+        index.clear();
+        index.putAll(newIndex);
+        deadRecords = 0;
+        compactions++;
+        writeIndex();
+
+    } // end of compact()
+
+
+    /**
+     * Writes the index, so the next open only scans records logged after now, and closes the
+     * log
+     *
+     * @throws IOException if the index cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        try {
+            channel.force(true);
+            writeIndex();
+        } finally {
+            map = null;
+            channel.close();
+        }
+
+    } // end of close()
+
+
+    /**
+     * Reads the index file, if it belongs to this log
+     *
+     * @return log offset to scan from - the end of the indexed records, or the first record if
+     *         there is no usable index
+     */
+    private long readIndex() throws IOException {
+
+        if (!Files.isReadable(indexPath)) {
+            return HEADER_SIZE;
+        }
+
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(indexPath));
+        if (bytes.limit() < INDEX_HEADER_SIZE || bytes.getInt(0) != INDEX_MAGIC || bytes.get(4) != VERSION
+                || bytes.getLong(8) != generation) {
+            return HEADER_SIZE;
+        }
+        long covered = bytes.getLong(16);
+        int live = bytes.getInt(24);
+        if (covered < HEADER_SIZE || covered > logSize || bytes.limit() != INDEX_HEADER_SIZE + 16L * live) {
+            return HEADER_SIZE;
+        }
+
+        bytes.position(INDEX_HEADER_SIZE);
+        for (int e = 0; e < live; e++) {
+            index.put(bytes.getLong(), bytes.getLong());
+        }
+        deadRecords = bytes.getInt(28);
+
+        return covered;
+
+    } // end of readIndex()
+
+
+    /**
+     * Writes the index file, through a temporary file so a crash never leaves half of one
+     */
+    private void writeIndex() throws IOException {
+
+        ByteBuffer bytes = ByteBuffer.allocate(INDEX_HEADER_SIZE + 16 * index.size());
+        bytes.putInt(INDEX_MAGIC);
+        bytes.put(VERSION);
+        bytes.put(new byte[3]);
+        bytes.putLong(generation);
+        bytes.putLong(logSize);
+        bytes.putInt(index.size());
+        bytes.putInt(deadRecords);
+        for (Map.Entry<Long, Long> entry : index.entrySet()) {
+            bytes.putLong(entry.getKey());
+            bytes.putLong(entry.getValue());
+        }
+
+        Path tempPath = indexPath.resolveSibling(INDEX_NAME + ".tmp");
+        Files.write(tempPath, bytes.array());
+        Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    } // end of writeIndex()
+
+
+    /**
+     * Adds the records from an offset to the end of the log to the index, truncating the log
+     * at the first record that is cut short or fails its CRC
+     */
+    private void scan(long from) throws IOException {
+
+        long position = from;
+        while (position < logSize) {
+            long end = recordEnd(position);
+            if (end == -1) {
+                channel.truncate(position);
+                logSize = position;
+                remap();
+                break;
+            }
+            if (index.put(map.getLong((int) position + 4), position) != null) {
+                deadRecords++;
+            }
+            position = end;
+        }
+
+    } // end of scan()
+
+
+    /**
+     * Checks the record at an offset is whole and its CRC matches
+     *
+     * @return offset after the record, -1 if it is not whole or does not match
+     */
+    private long recordEnd(long position) {
+
+        if (position + 4 > logSize) {
+            return -1;
+        }
+        int bodyLength = map.getInt((int) position);
+        long end = position + 4 + bodyLength + 4;
+        if (bodyLength < RECORD_OVERHEAD - 8 || end > logSize) {
+            return -1;
+        }
+
+        ByteBuffer body = map.duplicate();
+        body.position((int) position + 4);
+        body.limit((int) position + 4 + bodyLength);
+        crc.reset();
+        crc.update(body);
+        if ((int) crc.getValue() != map.getInt((int) position + 4 + bodyLength)) {
+            return -1;
+        }
+
+        return end;
+
+    } // end of recordEnd()
+
+
+    /**
+     * Finds the body of a record, mapping the log again if the record was logged since it
+     * was last mapped
+     *
+     * @return the body, positioned at the key length
+     */
+    private ByteBuffer body(long offset) throws IOException {
+
+        if (offset >= map.limit()) {
+            remap();
+        }
+        ByteBuffer body = map.duplicate();
+        body.position((int) offset + 4 + 8);
+
+        return body;
+
+    } // end of body()
+
+
+    private static boolean keyMatches(ByteBuffer body, byte[] key) {
+
+        if (body.getInt() != key.length) {
+            return false;
+        }
+        for (byte b : key) {
+            if (body.get() != b) {
+                return false;
+            }
+        }
+
+        return true;
+
+    } // end of keyMatches()
+
+
+    private static boolean sameRecord(ByteBuffer body, byte[] key, short[] cells) {
+
+        if (!keyMatches(body, key) || body.getInt() != cells.length) {
+            return false;
+        }
+        for (short cell : cells) {
+            if (body.getShort() != cell) {
+                return false;
+            }
+        }
+
+        return true;
+
+    } // end of sameRecord()
+
+
+    private void remap() throws IOException {
+
+        if (logSize > Integer.MAX_VALUE) {
+            throw new IOException(logPath + " is too large to map");
+        }
+        map = channel.map(FileChannel.MapMode.READ_ONLY, 0, logSize);
+
+    } // end of remap()
+
+
+    private static ByteBuffer logHeader(long generation) {
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(LOG_MAGIC);
+        header.put(VERSION);
+        header.put(new byte[3]);
+        header.putLong(generation);
+        header.flip();
+
+        return header;
+
+    } // end of logHeader()
+
+
+    /**
+     * Writes all of a buffer at a file offset
+     *
+     * @return offset after the bytes written
+     */
+    private static long writeFully(FileChannel out, ByteBuffer bytes, long position) throws IOException {
+
+        while (bytes.hasRemaining()) {
+            position += out.write(bytes, position);
+        }
+
+        return position;
+
+    } // end of writeFully()
+
+
+    /* ********************************************************* */
+
+    // Getters
+
+    /**
+     * @return number of puzzles stored
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized int getDeadRecords() {
+        return deadRecords;
+    }
+
+    public synchronized long getLogSize() {
+        return logSize;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int getCompactions() {
+        return compactions;
+    }
+
+    /* ********************************************************* */
+
+
+    @Override
+    public synchronized String toString() {
+
+        return "puzzles = " + index.size()
+                + ", dead records = " + deadRecords
+                + ", log = " + logSize + " bytes"
+                + ", hits = " + hits
+                + ", misses = " + misses
+                + ", compactions = " + compactions;
+
+    } // end of toString()
+
+
+} // end of class SolutionStore
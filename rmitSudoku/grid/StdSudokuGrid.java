@@ -5,7 +5,11 @@
 package grid;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 
 /**
@@ -25,14 +29,18 @@ public class StdSudokuGrid extends SudokuGrid {
      * j used for columns
      */
 
-    // Sudoku Grid Layout
-    private int[][] sudokuGrid;
+    // Sudoku Grid Layout - flat, cell (i, j) is at index i * gridDimension + j
+    private short[] sudokuGrid;
     private int gridDimension;
+    private GridGeometry geometry;
 
     private int[] validSymbolsList;
-    private int validSymbolsTotal;
 
-    // List of instructions of the .in file
+    // Decodes the .in file, and keeps the givens
+    private final PuzzleParser parser;
+    // Checks solutions, reused from puzzle to puzzle
+    private final GridValidator validator;
+    // Lines of the .in file, rebuilt from the givens only if asked for
     private ArrayList<String> sudokuList;
 
 
@@ -42,7 +50,8 @@ public class StdSudokuGrid extends SudokuGrid {
     public StdSudokuGrid() {
 
         super();
-        sudokuList = new ArrayList<>();
+        parser = new PuzzleParser();
+        validator = new GridValidator();
 
     } // end of StdSudokuGrid()
 
@@ -52,13 +61,49 @@ public class StdSudokuGrid extends SudokuGrid {
     // Getters and setters
     @Override
     public int getGridLoc(int i, int j) {
-        return sudokuGrid[i][j];
+        return sudokuGrid[i * gridDimension + j];
     }
 
 
     @Override
     public void setGridLoc(int i, int j, int num) {
-        sudokuGrid[i][j] = num;
+        sudokuGrid[i * gridDimension + j] = (short) num;
+    }
+
+
+    @Override
+    public int getCell(int cell) {
+        return sudokuGrid[cell];
+    }
+
+
+    @Override
+    public void setCell(int cell, int num) {
+        sudokuGrid[cell] = (short) num;
+    }
+
+
+    @Override
+    public void copyCells(short[] dest) {
+        System.arraycopy(sudokuGrid, 0, dest, 0, sudokuGrid.length);
+    }
+
+
+    @Override
+    public void restoreCells(short[] src) {
+        System.arraycopy(src, 0, sudokuGrid, 0, sudokuGrid.length);
+    }
+
+
+    @Override
+    public int getEmptyValue() {
+        return -1;
+    }
+
+
+    @Override
+    public GridGeometry getGeometry() {
+        return geometry;
     }
 
 
@@ -79,223 +124,194 @@ public class StdSudokuGrid extends SudokuGrid {
         return null;
     }
 
+    // Not used for standard sudoku
     @Override
-    public ArrayList<String> getSudokuList() {
-        return sudokuList;
+    public CageIndex getCageIndex() {
+        return null;
     }
 
-    /* ********************************************************* */
-
     @Override
-    public void initGrid(String filename)
-            throws FileNotFoundException, IOException {
+    public int getGivenCount() {
+        return parser.getGivenCount();
+    }
 
-        // Open file and read each line using BufferedReader
-        File file = new File(filename);
-        BufferedReader reader = new BufferedReader(new FileReader(file));
+    @Override
+    public int getGivenCell(int given) {
+        return parser.getGivenCells()[given];
+    }
 
-        String line;
-        // Given that the text file follows the proper structure
-        // Assigns read line to variable 'line' and adds to list
-        while ((line = reader.readLine()) != null) {
-            sudokuList.add(line);
-        }
+    @Override
+    public int getGivenValue(int given) {
+        return parser.getGivenValues()[given];
+    }
 
-        reader.close();
+    @Override
+    public ArrayList<String> getSudokuList() {
 
-        // Obtain size of the input grid - first line of file
-        gridDimension = Integer.parseInt(sudokuList.get(0));
-        // Initialise sudoku grid/array to all zeroes
-        sudokuGrid = new int[gridDimension][gridDimension];
-        for (int i = 0; i < gridDimension; i++) {
-            for (int j = 0; j < gridDimension; j++) {
-                sudokuGrid[i][j] = -1;
+        if (sudokuList == null) {
+            sudokuList = new ArrayList<>();
+            sudokuList.add(String.valueOf(gridDimension));
+            StringBuilder symbols = new StringBuilder();
+            for (int k = 0; k < gridDimension; k++) {
+                symbols.append(k == 0 ? "" : " ").append(validSymbolsList[k]);
+            }
+            sudokuList.add(symbols.toString());
+            for (int given = 0; given < getGivenCount(); given++) {
+                int cell = getGivenCell(given);
+                sudokuList.add(cell / gridDimension + "," + cell % gridDimension + " " + getGivenValue(given));
             }
         }
 
-        // Assign list of valid symbols and get total
-        String[] validSymbols = sudokuList.get(1).split(" ");
-        validSymbolsList = new int[gridDimension];
-        for (int i = 0; i < gridDimension; i++) {
-            validSymbolsList[i] = Integer.parseInt(validSymbols[i]);
-            validSymbolsTotal += validSymbolsList[i];
-        }
+        return sudokuList;
 
-        // Assign values read in from file
-        for (int i = 2; i < sudokuList.size(); i++) {
-            // Split string into coords and value
-            String[] temp = sudokuList.get(i).split(" ");
-            // Assign value
-            int value = Integer.parseInt(temp[1]);
-            // Split coords string into two separate values using "," and parse as int
-            String[] coords = temp[0].split(",");
-            int row = Integer.parseInt(coords[0]);
-            int column = Integer.parseInt(coords[1]);
+    } // end of getSudokuList()
 
-            sudokuGrid[row][column] = value;
+    /* ********************************************************* */
 
-        }
+    @Override
+    public void initGrid(String filename)
+            throws FileNotFoundException, IOException {
+
+        // Decode the bytes of the file directly, no lines or Strings
+        load(parser.read(filename));
 
     } // end of initGrid()
 
 
     @Override
-    public void outputGrid(String filename)
-            throws FileNotFoundException, IOException {
-        // Writes string representation of SudokuGrid to filename
-        File file = new File(filename);
-        BufferedWriter writer = new BufferedWriter(new FileWriter(file));
-
-        writer.write(toString());
+    public void initGrid(List<String> lines) {
 
-        writer.close();
+        load(parser.wrap(lines));
 
-    } // end of outputGrid()
+    } // end of initGrid()
 
 
     @Override
-    public String toString() {
+    public void initGrid(ByteBuffer bytes) {
 
-        StringBuilder gridLayout = new StringBuilder();
+        load(bytes);
 
-        for (int i = 0; i < gridDimension; i++) {
-            for (int j = 0; j < gridDimension; j++) {
-                gridLayout.append(sudokuGrid[i][j]);
-                if (j != gridDimension - 1) {
-                    gridLayout.append(",");
-                }
-            }
+    } // end of initGrid()
 
-            gridLayout.append("\n");
-        }
 
-        return gridLayout.toString();
+    @Override
+    public void initGrid(BinaryPuzzleFile file, int index) {
 
-    } // end of toString()
+        // A solution loads as a puzzle with every cell given
+        if (parser.parseBinary(file.getRecord(index)) == BinaryPuzzleFile.KILLER) {
+            throw new IllegalArgumentException("Record " + index + " is a killer puzzle");
+        }
+        apply();
+
+    } // end of initGrid()
 
 
     @Override
-    public boolean validate() {
+    public StdSudokuGrid copy() {
 
-        if (!oneValueConstraintCheck()) {
-            return false;
-        } else if (!rowConstraintCheck()) {
-            return false;
-        } else if (!columnConstraintCheck()) {
-            return false;
-        } else {
+        // Load the copy from the same decoded puzzle, then bring its cells up to date
+        StdSudokuGrid copy = new StdSudokuGrid();
+        copy.parser.copyFrom(parser);
+        copy.apply();
+        copy.restoreCells(sudokuGrid);
 
-            return boxConstraintCheck();
-        }
+        return copy;
 
-    } // end of validate()
+    } // end of copy()
 
 
     /**
-     * Checks if cell contains a value
+     * Parses a puzzle and fills the grid with its givens
      *
-     * @return true if validated
+     * @param bytes the .in file's bytes
      */
-    private boolean oneValueConstraintCheck() {
+    private void load(ByteBuffer bytes) {
 
-        for (int i = 0; i < gridDimension; i++) {
-            for (int j = 0; j < gridDimension; j++) {
-                if (sudokuGrid[i][j] == -1) {
-                    return false;
-                }
-            }
-        }
+        parser.parseStandard(bytes);
+        apply();
 
-        return true;
-
-    } // end of oneValueConstraintCheck()
+    } // end of load()
 
 
     /**
-     * Checks for if rows contain a unique value
-     * Consider arithmetic, all unique values will add up to a certain number.
-     * Even if a row has repeat numbers to add up to the total, it will fail the column
-     * check since the columns will contain repeat numbers.
-     *
-     * @return true if validated
+     * Fills the grid from the puzzle the parser last decoded
      */
-    private boolean rowConstraintCheck() {
+    private void apply() {
 
-        for (int i = 0; i < gridDimension; i++) {
-            int sum = 0;
+        sudokuList = null;
 
-            for (int j = 0; j < gridDimension; j++) {
-                sum += sudokuGrid[i][j];
-            }
+        // Obtain size of the input grid - first line of file
+        gridDimension = parser.getGridDimension();
+        geometry = GridGeometry.forDimension(gridDimension);
+        // Initialise sudoku grid/array to all empty, reusing the array for a grid of the same size
+        if (sudokuGrid == null || sudokuGrid.length != gridDimension * gridDimension) {
+            sudokuGrid = new short[gridDimension * gridDimension];
+        }
+        Arrays.fill(sudokuGrid, (short) -1);
 
-            if (sum != validSymbolsTotal) {
-                return false;
-            }
+        // Assign list of valid symbols
+        if (validSymbolsList == null || validSymbolsList.length != gridDimension) {
+            validSymbolsList = new int[gridDimension];
         }
+        System.arraycopy(parser.getSymbols(), 0, validSymbolsList, 0, gridDimension);
 
-        return true;
-    } // end of rowConstraintCheck()
+        // Assign the givens
+        int[] givenCells = parser.getGivenCells();
+        int[] givenValues = parser.getGivenValues();
+        for (int given = 0; given < parser.getGivenCount(); given++) {
+            sudokuGrid[givenCells[given]] = (short) givenValues[given];
+        }
 
+    } // end of apply()
 
-    /**
-     * Checks for if columns contain a unique value
-     * Consider arithmetic, all unique values will add up to a certain number.
-     * Even if a column has repeat numbers to add up to the total, it will fail the row
-     * check since the rows will contain repeat numbers.
-     *
-     * @return true if validated
-     */
-    private boolean columnConstraintCheck() {
 
-        for (int j = 0; j < gridDimension; j++) {
-            int sum = 0;
+    @Override
+    public void outputGrid(String filename)
+            throws FileNotFoundException, IOException {
+        // Streams the cells straight to the file, in the toString() format
+        try (GridWriter writer = new GridWriter(Paths.get(filename), false, 0)) {
+            writer.write(this);
+        }
+
+    } // end of outputGrid()
 
-            for (int i = 0; i < gridDimension; i++) {
-                sum += sudokuGrid[i][j];
-            }
 
-            if (sum != validSymbolsTotal) {
-                return false;
+    @Override
+    public String toString() {
+
+        StringBuilder gridLayout = new StringBuilder();
+
+        for (int i = 0; i < gridDimension; i++) {
+            for (int j = 0; j < gridDimension; j++) {
+                gridLayout.append(sudokuGrid[i * gridDimension + j]);
+                if (j != gridDimension - 1) {
+                    gridLayout.append(",");
+                }
             }
+
+            gridLayout.append("\n");
         }
 
-        return true;
+        return gridLayout.toString();
 
-    } // end of columnConstraintCheck()
+    } // end of toString()
 
 
-    /**
-     * Checks for box contains unique numbers
-     * Consider arithmetic, all unique values will add up to a certain number.
-     *
-     * @return true if validated
-     */
-    private boolean boxConstraintCheck() {
-        int squareRoot = (int) Math.sqrt(gridDimension);
+    @Override
+    public boolean validate() {
 
-        // Defines which block to check
-        for (int i = 0; i < gridDimension; i += squareRoot) {
-            for (int j = 0; j < gridDimension; j += squareRoot) {
+        return findViolation() == null;
 
-                int bounds = i + squareRoot;
-                int subGridTotal = 0;
+    } // end of validate()
 
-                // Iterate through each element in the block
-                for (int k = i; k < bounds; k++) {
-                    for (int l = i; l < bounds; l++) {
-                        subGridTotal += sudokuGrid[k][l];
-                    }
-                } // End inner double for loop
 
-                if (subGridTotal != validSymbolsTotal) {
-                    return false;
-                }
-            }
-        } // end outer double for loop
+    @Override
+    public GridValidator.Violation findViolation() {
 
-        return true;
+        // One sweep with symbol bitsets per house
+        return validator.validate(sudokuGrid, gridDimension, validSymbolsList, getEmptyValue(), null);
 
-    } // end of boxConstraintCheck()
+    } // end of findViolation()
 
 
 } // end of class StdSudokuGrid
\ No newline at end of file
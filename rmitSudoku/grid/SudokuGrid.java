@@ -5,7 +5,9 @@
 package grid;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.List;
 
 
 /**
@@ -29,6 +31,47 @@ public abstract class SudokuGrid {
             throws FileNotFoundException, IOException;
 
 
+    /**
+     * Construct an initial grid from the lines of an input file that has already
+     * been read, in the same format initGrid(filename) reads.  Replaces whatever
+     * the grid held before, so one grid can be reused for many puzzles.
+     *
+     * @param lines Lines of the input file.
+     */
+    public abstract void initGrid(List<String> lines);
+
+
+    /**
+     * Construct an initial grid from the bytes of an input file that has already
+     * been read, e.g. one puzzle sliced out of a batch file, in the same format
+     * initGrid(filename) reads.  Replaces whatever the grid held before, like
+     * initGrid(lines).
+     *
+     * @param bytes Bytes of the input, from position to limit, left unchanged.
+     */
+    public abstract void initGrid(ByteBuffer bytes);
+
+
+    /**
+     * Construct an initial grid from a record of a binary puzzle file.  Replaces
+     * whatever the grid held before, like initGrid(lines).
+     *
+     * @param file Binary puzzle file.
+     * @param index Index of the record in the file.
+     * @throws IllegalArgumentException If the record is not a puzzle of this grid's game.
+     */
+    public abstract void initGrid(BinaryPuzzleFile file, int index);
+
+
+    /**
+     * Makes an independent grid with the same puzzle and the same current cells, e.g. for
+     * several solvers to work on at once.
+     *
+     * @return The copy.
+     */
+    public abstract SudokuGrid copy();
+
+
     /**
      * Write out the current values in the grid to file.  This must be implemented
      * in order for your assignment to be evaluated by our testing.
@@ -61,6 +104,14 @@ public abstract class SudokuGrid {
     public abstract boolean validate();
 
 
+    /**
+     * Checks the grid like validate(), reporting the first constraint broken.
+     *
+     * @return The first violation found, or null if the grid is a valid solution.
+     */
+    public abstract GridValidator.Violation findViolation();
+
+
 
     /*
      * Methods added to the base SudokuGrid abstract class
@@ -70,13 +121,55 @@ public abstract class SudokuGrid {
 
     public abstract void setGridLoc(int i, int j, int num);
 
+    // Flat cell-index addressing - cell (i, j) is cell i * gridDimension + j
+    public abstract int getCell(int cell);
+
+    public abstract void setCell(int cell, int num);
+
+    /**
+     * Copies every cell of the grid into dest in one go, e.g. to snapshot the board.
+     *
+     * @param dest Array of at least gridDimension * gridDimension cells.
+     */
+    public abstract void copyCells(short[] dest);
+
+    /**
+     * Overwrites every cell of the grid from src in one go, e.g. to roll back to a snapshot.
+     *
+     * @param src Array of at least gridDimension * gridDimension cells.
+     */
+    public abstract void restoreCells(short[] src);
+
+    // Value stored in cells that have not been filled in
+    public abstract int getEmptyValue();
+
+    // Row, column, box and peers of each cell
+    public abstract GridGeometry getGeometry();
+
     public abstract int[] getValidSymbolsList();
 
     public abstract int getGridDimension();
 
+    /**
+     * Givens of the puzzle as loaded (not cells set since), decoded once when the grid is
+     * loaded so nothing needs to go back to the input text.  Killer puzzles have none.
+     *
+     * @return Number of givens.
+     */
+    public abstract int getGivenCount();
+
+    // Cell index of the given-th given
+    public abstract int getGivenCell(int given);
+
+    // Symbol of the given-th given
+    public abstract int getGivenValue(int given);
+
     public abstract ArrayList<String> getSudokuList();
 
     // For Killer Sudoku
     public abstract ArrayList<String[]> getCageList();
 
+    // For Killer Sudoku - compiled cages, kept up to date as cells are set
+    public abstract CageIndex getCageIndex();
+
 } // end of abstract class SudokuGrid
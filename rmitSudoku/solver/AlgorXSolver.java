@@ -5,18 +5,51 @@
 
 package solver;
 
+import grid.GridGeometry;
 import grid.SudokuGrid;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 
 /**
  * Algorithm X solver for standard Sudoku.
+ * The exact cover matrix is kept sparse - each matrix row (cell, symbol) lists its four
+ * columns (cell, row-symbol, column-symbol and box-symbol constraints) and each column lists
+ * its rows.  Covering only flips active flags and pushes what it removed onto an undo stack,
+ * so covering and uncovering cost time proportional to the entries affected rather than
+ * copying the matrix.
  */
 public class AlgorXSolver extends StdSudokuSolver {
 
-    private final ArrayList<Integer> solution;
-    private ArrayList<String> sudokuList;
+    /*
+     * Notes:
+     * matrix row r = cell * gridDimension + k, where k is the symbol index
+     */
+
+    private int gridDimension;
+
+    // Sparse matrix - columns of each row (4 per row) and rows of each column (gridDimension per column)
+    private int[] rowColumns;
+    private int[][] columnRows;
+
+    // Live part of the matrix
+    private boolean[] rowActive;
+    private boolean[] columnActive;
+    private int[] columnSize;
+
+    // Undo stacks of the rows and columns removed by covering
+    private int[] removedRows;
+    private int removedRowsTop;
+    private int[] removedColumns;
+    private int removedColumnsTop;
+
+    // Rows chosen so far
+    private int[] solution;
+    private int solutionSize;
+
+    // Set while counting solutions, null when solving
+    private SolutionCount counter;
+    private int[] symbolsList;
 
 
     /**
@@ -24,14 +57,12 @@ public class AlgorXSolver extends StdSudokuSolver {
      */
     public AlgorXSolver() {
 
-        solution = new ArrayList<>();
-        sudokuList = new ArrayList<>();
-
     } // end of AlgorXSolver()
 
 
     /**
-     * Initialises exact cover matrix from sudoku grid and then solves it
+     * Builds the sparse exact cover matrix for the sudoku grid size, covers the givens and then
+     * solves it
      *
      * @param grid Input grid to solve.  The solver will write the solution to grid.
      * @return true if solved
@@ -39,361 +70,247 @@ public class AlgorXSolver extends StdSudokuSolver {
     @Override
     public boolean solve(SudokuGrid grid) {
 
-        int gridDimension = grid.getGridDimension();
-        this.sudokuList = grid.getSudokuList();
-
-        // Initialise exact cover matrix for the sudoku grid size
-        int[][] coverMatrix = initialiseCoverMatrix(gridDimension, true);
-
-        /*
-         * Three methods are called here
-         * Apply the values of the initial grid and remove the corresponding rows from the exact cover matrix
-         * Apply Algorithm X on the matrix
-         * Apply solution to the sudoku grid
-         * Return true if successful
-         */
-        if (applyAlgorithmX(applyInitialGrid(grid, coverMatrix, gridDimension))) {
-            return applySolution(grid, gridDimension, solution);
-        }
-
-        return false;
-
-    } // end of solve()
-
+        stats.start();
 
-    /**
-     * Solves the sudoku grid by using the rows found from the exact cover matrix
-     *
-     * @param sudokuGrid    the sudoku grid to be solved
-     * @param gridDimension dimensions of the grid
-     * @param solution      list of rows to the solution
-     * @return true if sudoku grid successfully solved
-     */
-    public boolean applySolution(SudokuGrid sudokuGrid, int gridDimension, ArrayList<Integer> solution) {
-
-        // List of valid symbols
-        int[] symbolsList = sudokuGrid.getValidSymbolsList();
-        // List to hold the coordinates of the solution
-        ArrayList<int[]> solutionCoords = new ArrayList<>();
-
-
-        // Setup for columns - Spacing the columns into appropriate coords
-        int[] colLocationList = new int[gridDimension * gridDimension];
-        int location = 0;
-
-        for (int i = 1; i <= colLocationList.length; i++) {
-            colLocationList[i - 1] = location;
-            if (i % gridDimension == 0) {
-                location++;
-            }
+        // The matrix only depends on the grid size, so it is reused between puzzles of the same size
+        if (rowColumns == null || gridDimension != grid.getGridDimension()) {
+            gridDimension = grid.getGridDimension();
+            buildMatrix();
         }
-
-        // Find the correct row, col coordinates of the grid from the row saved from matrix
-        for (int row : solution) {
-
-            int[] coords = new int[3];
-
-            // Get row index - each corresponding row is spaced by blocks of gridDimension^2
-            // The correct row coords is found by find by matching the matrix row to the correct block of rows
-            for (int i = 1; i <= gridDimension; i++) {
-                if (row <= i * gridDimension * gridDimension) {
-                    coords[0] = i - 1;
-                    break;
+        resetMatrix();
+
+        // Apply the values of the initial grid by choosing their rows
+        symbolsList = grid.getValidSymbolsList();
+        for (int cell = 0; cell < gridDimension * gridDimension; cell++) {
+            int value = grid.getCell(cell);
+            if (value != grid.getEmptyValue()) {
+                int k = CandidateState.symbolIndex(symbolsList, value);
+                int row = cell * gridDimension + k;
+                // Invalid symbol, or clashes with an earlier given
+                if (k < 0 || !rowActive[row]) {
+                    return false;
                 }
+                solution[solutionSize++] = row;
+                coverRow(row);
             }
-
-            // Get col index - using the array setup above, matches the row mod gridDimension^2 to the correct index
-            if (row % (gridDimension * gridDimension) == 0) {
-                coords[1] = gridDimension - 1;
-            } else {
-                coords[1] = colLocationList[row % (gridDimension * gridDimension) - 1];
-            }
-
-            // Get index of value - simply row mod gridDimension - then apply corresponding symbols
-            if (row % gridDimension == 0) {
-                coords[2] = symbolsList[gridDimension - 1];
-            } else {
-                coords[2] = symbolsList[row % gridDimension - 1];
-            }
-
-            solutionCoords.add(coords);
-
         }
 
-        try {
-            // Apply coordinates onto sudoku grid for solution
-            for (int[] coords : solutionCoords) {
-                sudokuGrid.setGridLoc(coords[0], coords[1], coords[2]);
-            }
-
-        } catch (Exception e) {
-            e.printStackTrace();
+        if (!applyAlgorithmX(0)) {
             return false;
         }
 
+        // Apply solution to the sudoku grid
+        for (int l = 0; l < solutionSize; l++) {
+            int row = solution[l];
+            grid.setCell(row / gridDimension, symbolsList[row % gridDimension]);
+        }
+
         return true;
 
-    } // end of applySolution()
+    } // end of solve()
 
 
     /**
-     * Create an exact cover matrix given the dimensions of the sudoku grid
-     *
-     * @param gridDimension dimensions of the sudoku grid
-     * @param withCoords    whether to include coordinates in the matrix
-     * @return an exact cover matrix
+     * Counts the solutions by running the search with a counter, which records each solution
+     * and tells the search to carry on until the limit is reached
      */
-    public int[][] initialiseCoverMatrix(int gridDimension, boolean withCoords) {
+    @Override
+    public SolutionCount countSolutions(SudokuGrid grid, long limit, int keep) {
 
-        // Number of rows/cols in the matrix
-        int exactCoverRows = (gridDimension * gridDimension * gridDimension);
-        int exactCoverCols = (gridDimension * gridDimension * 4);
+        SolutionCount count = new SolutionCount(limit, keep);
+        short[] puzzle = new short[grid.getGridDimension() * grid.getGridDimension()];
+        grid.copyCells(puzzle);
 
-        int[][] coverMatrixTemp = new int[exactCoverRows][exactCoverCols];
+        counter = count;
+        try {
+            solve(grid);
+        } finally {
+            counter = null;
+            grid.restoreCells(puzzle);
+        }
 
-        // Private int cellConstraintIndex = 0;
-        int rowContraintIndex = gridDimension * gridDimension;
-        int colConstraintIndex = rowContraintIndex + (gridDimension * gridDimension);
-        int boxConstraintIndex = colConstraintIndex + (gridDimension * gridDimension);
+        return count;
 
+    } // end of countSolutions()
 
-        // Fill cell constraints with 1 where applicable
-        int cellValue = 0;
-        int rowValue = rowContraintIndex;
-        int colValue = colConstraintIndex;
-        int boxValue = boxConstraintIndex;
 
-        for (int i = 0; i < exactCoverRows; i++) {
-            // Cell constraints
-            coverMatrixTemp[i][cellValue] = 1;
-            if ((i + 1) % gridDimension == 0) {
-                cellValue++;
-            }
+    /**
+     * Applies Algorithm X to the live part of the matrix, branching on the column with the
+     * fewest live rows (Knuth's S heuristic)
+     *
+     * @param depth number of rows chosen by the search so far
+     * @return true if solved
+     */
+    private boolean applyAlgorithmX(int depth) {
 
-            // Row constraints
-            coverMatrixTemp[i][rowValue] = 1;
-            rowValue++;
-            if ((rowValue) % gridDimension == 0) {
-                rowValue = rowValue - gridDimension;
-            }
-            if ((i + 1) % (gridDimension * gridDimension) == 0) {
-                rowValue = rowValue + gridDimension;
-            }
+        stats.node(depth);
 
-            // Col constraints
-            coverMatrixTemp[i][colValue] = 1;
-            colValue++;
-            if ((i + 1) % (gridDimension * gridDimension) == 0) {
-                colValue = colConstraintIndex;
+        // Pick a column
+        int column = -1;
+        for (int c = 0; c < columnActive.length; c++) {
+            if (columnActive[c] && (column == -1 || columnSize[c] < columnSize[column])) {
+                column = c;
+                if (columnSize[c] <= 1) {
+                    break;
+                }
             }
-
         }
 
-        int boxSize = (int) Math.sqrt(gridDimension);
-
-        // Could not figure out a way to create box constraints on my own so sourced this:
-        // Reference: https://medium.com/javarevisited/building-a-sudoku-solver-in-java-with-dancing-links-180274b0b6c1
-        for (int row = 1; row <= gridDimension; row += boxSize) {
-            for (int col = 1; col <= gridDimension; col += boxSize) {
-                for (int n = 1; n <= gridDimension; n++, boxValue++) {
-                    for (int rowDelta = 0; rowDelta < boxSize; rowDelta++) {
-                        for (int colDelta = 0; colDelta < boxSize; colDelta++) {
-                            int index = indexInCoverMatrix(row + rowDelta, col + colDelta, n, gridDimension);
-                            coverMatrixTemp[index][boxValue] = 1;
-                        }
-                    }
-                }
+        // No columns left - every constraint is covered
+        if (column == -1) {
+            stats.solutionFound();
+            if (counter != null) {
+                // Counting - record the solution, and carry on unless the limit is reached
+                return counter.record(counter.wantsSolution() ? solutionCells() : null);
             }
+            return true;
         }
 
+        // Pick each live row of the column in turn
+        for (int row : columnRows[column]) {
+            if (!rowActive[row]) {
+                continue;
+            }
 
-        if (withCoords) {
-
-            int[][] matrix = new int[exactCoverRows + 1][exactCoverCols + 1];
-
-            // Convert to matrix with coords
+            int rowsMark = removedRowsTop;
+            int columnsMark = removedColumnsTop;
 
-            for (int j = 1; j < exactCoverCols + 1; j++) {
-                matrix[0][j] = j;
-            }
-            for (int i = 0; i < exactCoverRows + 1; i++) {
-                matrix[i][0] = i;
-            }
+            solution[solutionSize++] = row;
+            coverRow(row);
 
-            for (int i = 0; i < exactCoverRows; i++) {
-                if (exactCoverCols >= 0) System.arraycopy(coverMatrixTemp[i], 0, matrix[i + 1], 1, exactCoverCols);
+            if (applyAlgorithmX(depth + 1)) {
+                return true;
             }
 
-            return matrix;
+            // Remove last added solution if false
+            uncover(rowsMark, columnsMark);
+            solutionSize--;
         }
 
-        return coverMatrixTemp;
+        return false;
 
-    } // end of initialiseCoverMatrix()
+    } // end of applyAlgorithmX()
 
 
     /**
-     * Applies Algorithm X to the matrix to solve
+     * Converts the rows chosen so far, which cover every cell, into the cell values they give
      *
-     * @param matrix the exact cover matrix to solve
-     * @return true if solved
+     * @return cell values of the solution
      */
-    private boolean applyAlgorithmX(int[][] matrix) {
-        // Check if there are columns in matrix
-        if (matrix[0].length == 1) {
-            return true;
-
-        } else {
-            // Pick a column
-            for (int col = 1; col < matrix[0].length; col++) {
-                // Pick a row where [row][col] = 1;
-                for (int row = 1; row < matrix.length; row++) {
-                    if (matrix[row][col] == 1) {
-                        // Add to solution
-                        solution.add(matrix[row][0]);
-
-                        //Delete rows/cols
-                        int[][] tempMatrix = coverRowsCols(matrix, row);
-
-                        // Apply recursive
-                        if (applyAlgorithmX(tempMatrix)) {
-                            return true;
-                        } else {
-                            // Remove last added solution if false
-                            solution.remove(solution.size() - 1);
-                        }
-                    }
-                }
+    private short[] solutionCells() {
 
-                return false;
-            }
+        short[] cells = new short[gridDimension * gridDimension];
+        for (int l = 0; l < solutionSize; l++) {
+            cells[solution[l] / gridDimension] = (short) symbolsList[solution[l] % gridDimension];
         }
 
-        return false;
+        return cells;
 
-    } // end of applyAlgorithmX()
+    } // end of solutionCells()
 
 
     /**
-     * Finds the corresponding rows/cols from given row and adds the indexes to a list
-     * Then create a new matrix from old one without the rows
+     * Removes the columns of the chosen row, and every row that shares one of those columns
      *
-     * @param matrix exact cover matrix to delete
-     * @param row    index of row to be deleted
-     * @return the new smaller exact cover matrix
+     * @param row matrix row chosen
      */
-    public int[][] coverRowsCols(int[][] matrix, int row) {
+    private void coverRow(int row) {
 
-        ArrayList<Integer> rowsToDelete = new ArrayList<>();
-        ArrayList<Integer> colsToDelete = new ArrayList<>();
+        int removedBefore = removedRowsTop + removedColumnsTop;
 
-        int[][] newMatrix;
+        for (int l = row * 4; l < row * 4 + 4; l++) {
+            int column = rowColumns[l];
+            columnActive[column] = false;
+            removedColumns[removedColumnsTop++] = column;
 
-        for (int j = 1; j < matrix[0].length; j++) {
-            if (matrix[row][j] == 1) {
-                for (int i = 1; i < matrix.length; i++) {
-                    if (matrix[i][j] == 1) {
-                        if (!rowsToDelete.contains(matrix[i][0])) {
-                            rowsToDelete.add(matrix[i][0]);
-                        }
+            for (int other : columnRows[column]) {
+                if (rowActive[other]) {
+                    rowActive[other] = false;
+                    removedRows[removedRowsTop++] = other;
+                    for (int m = other * 4; m < other * 4 + 4; m++) {
+                        columnSize[rowColumns[m]]--;
                     }
                 }
-                // Store column index to be deleted
-                colsToDelete.add(matrix[0][j]);
             }
         }
 
-        // Create new exact cover matrix from old one
-        newMatrix = new int[matrix.length - rowsToDelete.size()][matrix[0].length - colsToDelete.size()];
+        stats.addUpdates(removedRowsTop + removedColumnsTop - removedBefore);
 
-        int rowCounter = 0;
-        int colCounter = 0;
+    } // end of coverRow()
 
-        for (int[] rowNum : matrix) {
-            if (!rowsToDelete.contains(rowNum[0])) {
-                for (int j = 0; j < matrix[0].length; j++) {
-                    if (!colsToDelete.contains(matrix[0][j])) {
-                        newMatrix[rowCounter][colCounter] = rowNum[j];
-                        colCounter++;
-                    }
-                }
 
-                colCounter = 0;
-                rowCounter++;
+    /**
+     * Restores the rows and columns removed since the undo stacks were at the given marks
+     *
+     * @param rowsMark    removed rows stack size to go back to
+     * @param columnsMark removed columns stack size to go back to
+     */
+    private void uncover(int rowsMark, int columnsMark) {
+
+        stats.addUpdates(removedRowsTop - rowsMark + removedColumnsTop - columnsMark);
+
+        while (removedRowsTop > rowsMark) {
+            int row = removedRows[--removedRowsTop];
+            rowActive[row] = true;
+            for (int m = row * 4; m < row * 4 + 4; m++) {
+                columnSize[rowColumns[m]]++;
             }
         }
 
-        return newMatrix;
+        while (removedColumnsTop > columnsMark) {
+            columnActive[removedColumns[--removedColumnsTop]] = true;
+        }
 
-    } // end of coverRowsCols()
+    } // end of uncover()
 
 
     /**
-     * Uses the input file from sudoku grid - applies the given coordinates of the grid to the exact cover matrix
-     *
-     * @param sudokuGrid    grid to be solved - used to obtain the symbols
-     * @param matrix        exact cover matrix the initial grid values will be applied to
-     * @param gridDimension dimenstions of the grid
-     * @return exact cover matrix with rows /cols removed
+     * Builds the sparse exact cover matrix - the four columns of every row, and the rows of
+     * every column
      */
-    private int[][] applyInitialGrid(SudokuGrid sudokuGrid, int[][] matrix, int gridDimension) {
-
-        int[] symbolsList = sudokuGrid.getValidSymbolsList();
-        int[][] newMatrix = matrix;
+    private void buildMatrix() {
 
-        for (int i = 2; i < sudokuList.size(); i++) {
-            // Split string into coords and value
-            String[] temp = sudokuList.get(i).split(" ");
-            // Assign value
-            int value = 1 + checkSymbolLocation(symbolsList, Integer.parseInt(temp[1]));
-            // Split coords string into two separate values using "," and parse as int
-            String[] coords = temp[0].split(",");
+        int cells = gridDimension * gridDimension;
+        int rows = ExactCoverEncoding.rowCount(gridDimension);
+        int columns = ExactCoverEncoding.columnCount(gridDimension);
+        GridGeometry geometry = GridGeometry.forDimension(gridDimension);
 
-            // Calculate row in cover matrix according to coordinates and value - took me a long time to figure this out!
-            int rowIndex = (Integer.parseInt(coords[0]) * gridDimension * gridDimension) + (Integer.parseInt(coords[1]) * gridDimension) + value;
+        rowColumns = new int[rows * 4];
+        columnRows = new int[columns][gridDimension];
+        int[] filledRows = new int[columns];
 
-            // Add corresponding row to solutions
-            solution.add(matrix[rowIndex][0]);
+        for (int row = 0; row < rows; row++) {
+            ExactCoverEncoding.rowColumns(geometry, row, rowColumns, row * 4);
 
-        }
-
-        // Remove rows/cols from matrix
-        for (int num : solution) {
-            for (int i = 0; i < newMatrix.length; i++) {
-                if (num == newMatrix[i][0]) {
-                    newMatrix = coverRowsCols(newMatrix, i);
-                }
+            for (int l = row * 4; l < row * 4 + 4; l++) {
+                int column = rowColumns[l];
+                columnRows[column][filledRows[column]++] = row;
             }
         }
 
-        return newMatrix;
+        rowActive = new boolean[rows];
+        columnActive = new boolean[columns];
+        columnSize = new int[columns];
+        removedRows = new int[rows];
+        removedColumns = new int[columns];
+        solution = new int[cells];
 
-    } // end of applyInitialGrid()
+    } // end of buildMatrix()
 
 
     /**
-     * Looks for the index of the symbol in the list of valid symbols
-     *
-     * @param symbolsList list of valid symbols/numbers
-     * @param num         the symbol/number to be checked for
-     * @return index of symbol
+     * Makes the whole matrix live again and clears the stacks
      */
-    private int checkSymbolLocation(int[] symbolsList, int num) {
-        for (int i = 0; i < symbolsList.length; i++) {
-            if (num == symbolsList[i]) {
-                return i;
-            }
-        }
-
-        return 0;
-    } // end of checkSymbolLocation()
-
+    private void resetMatrix() {
 
-    // Method to help initialise exact cover matrix box constraints
-    private int indexInCoverMatrix(int row, int col, int num, int gridDimension) {
-        return (row - 1) * gridDimension * gridDimension + (col - 1) * gridDimension + (num - 1);
+        Arrays.fill(rowActive, true);
+        Arrays.fill(columnActive, true);
+        Arrays.fill(columnSize, gridDimension);
+        removedRowsTop = 0;
+        removedColumnsTop = 0;
+        solutionSize = 0;
 
-    } // end of indexInCoverMatrix
+    } // end of resetMatrix()
 
 
 } // end of class AlgorXSolver
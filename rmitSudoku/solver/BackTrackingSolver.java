@@ -14,141 +14,191 @@ import grid.SudokuGrid;
 public class BackTrackingSolver extends StdSudokuSolver {
 
     private int gridDimension;
+    private int emptyValue;
     private int[] validSymbolsList;
 
+    // Row/column/box used symbols, kept in step with the grid
+    private CandidateState candidateState;
+
+    // Which empty cell to branch on, and the empty cells keyed by candidate count for MRV
+    private CellOrdering ordering;
+
+    // Set while counting solutions, null when solving
+    private SolutionCount counter;
+    private EmptyCellQueue emptyCells;
+
 
     /**
      * Constructor
      */
     public BackTrackingSolver() {
 
+        this(CellOrdering.MRV);
+
+    } // end of BackTrackingSolver()
+
+
+    /**
+     * Constructor with the cell ordering heuristic to use
+     *
+     * @param ordering heuristic used to pick the next cell to fill
+     */
+    public BackTrackingSolver(CellOrdering ordering) {
+
+        this.ordering = ordering;
+
     } // end of BackTrackingSolver()
 
 
+    public CellOrdering getOrdering() {
+        return ordering;
+    }
+
+
+    public void setOrdering(CellOrdering ordering) {
+        this.ordering = ordering;
+    }
+
+
     @Override
     public boolean solve(SudokuGrid grid) {
 
         gridDimension = grid.getGridDimension();
+        emptyValue = grid.getEmptyValue();
         validSymbolsList = grid.getValidSymbolsList();
+        stats.start();
 
-        return (backtrackingRecursion(grid));
-
-    } // end of solve()
+        // Reuse the state between puzzles of the same size
+        if (candidateState == null || candidateState.getGridDimension() != gridDimension) {
+            candidateState = new CandidateState(gridDimension);
+            emptyCells = new EmptyCellQueue(gridDimension);
+        }
 
+        // Givens already clash - no solution
+        if (!candidateState.load(grid)) {
+            return false;
+        }
 
-    /**
-     * Uses a backtracking recursion and validation methods to solve the sudoku grid. The idea
-     * and concepts learnt to create the recursion were obtained from here
-     * Reference: https://medium.com/javarevisited/build-a-sudoku-solver-in-java-part-1-c308bd511481
-     *
-     * @param grid sudoku grid to be solved
-     * @return true if solved
-     */
-    private boolean backtrackingRecursion(SudokuGrid grid) {
-
-        for (int i = 0; i < gridDimension; i++) {
-            for (int j = 0; j < gridDimension; j++) {
-                if (grid.getGridLoc(i, j) == -1) {
-                    for (int k = 0; k < gridDimension; k++) {
-                        if (check(i, j, validSymbolsList[k], grid)) {
-                            grid.setGridLoc(i, j, validSymbolsList[k]);
-                            if (backtrackingRecursion(grid)) {
-                                return true;
-                            } else {
-                                grid.setGridLoc(i, j, -1);
-                            }
-                        }
-                    }
-
-                    return false;
+        if (ordering != CellOrdering.FIRST_EMPTY) {
+            emptyCells.clear();
+            for (int cell = 0; cell < gridDimension * gridDimension; cell++) {
+                if (grid.getCell(cell) == emptyValue) {
+                    emptyCells.add(cell, candidateState.candidateCount(cell));
                 }
             }
         }
 
-        return true;
-    }
+        return (backtrackingRecursion(grid, 0, 0));
+
+    } // end of solve()
 
 
     /**
-     * Validates if the number can be placed in at the i, j coordinates of the grid
-     *
-     * @param i          row index to be placed
-     * @param j          column index to be placed
-     * @param num        symbol/number to be placed
-     * @param sudokuGrid the grid to be solved
-     * @return true if symbol/number can be placed
+     * Counts the solutions by running the search with a counter, which records each solution
+     * and tells the search to carry on until the limit is reached
      */
-    private boolean check(int i, int j, int num, SudokuGrid sudokuGrid) {
-        return !rowCheck(i, num, sudokuGrid) && !columnCheck(j, num, sudokuGrid) && !boxCheck(i, j, num, sudokuGrid);
-    } // end of validate(int i, int j, int num)
+    @Override
+    public SolutionCount countSolutions(SudokuGrid grid, long limit, int keep) {
+
+        SolutionCount count = new SolutionCount(limit, keep);
+        short[] puzzle = new short[grid.getGridDimension() * grid.getGridDimension()];
+        grid.copyCells(puzzle);
+
+        counter = count;
+        try {
+            solve(grid);
+        } finally {
+            counter = null;
+            grid.restoreCells(puzzle);
+        }
+
+        return count;
+
+    } // end of countSolutions()
 
 
     /**
-     * Validates the row at index i
+     * Uses a backtracking recursion and validation methods to solve the sudoku grid. The idea
+     * and concepts learnt to create the recursion were obtained from here
+     * Reference: https://medium.com/javarevisited/build-a-sudoku-solver-in-java-part-1-c308bd511481
+     * Candidates come straight from the candidate state bitsets rather than rescanning the
+     * row, column and box for every symbol.
      *
-     * @param i          row index to be checked
-     * @param num        the symbol/number to be placed
-     * @param sudokuGrid grid to be solved
-     * @return true if can be placed
+     * @param grid sudoku grid to be solved
+     * @param from  cell index to resume the row-major scan from (first-empty ordering only)
+     * @param depth number of cells filled by the search so far
+     * @return true if solved
      */
-    private boolean rowCheck(int i, int num, SudokuGrid sudokuGrid) {
-        for (int j = 0; j < gridDimension; j++) {
-            if (sudokuGrid.getGridLoc(i, j) == num) {
-                return true;
+    private boolean backtrackingRecursion(SudokuGrid grid, int from, int depth) {
+
+        stats.node(depth);
+
+        int cell = selectCell(grid, from);
+        if (cell == -1) {
+            stats.solutionFound();
+            if (counter != null) {
+                // Counting - record the solution, and carry on unless the limit is reached
+                return counter.record(counter.wantsSolution() ? snapshot(grid) : null);
             }
+            return true;
         }
 
-        return false;
-    } // end of rowCheck()
-
+        for (int k = candidateState.nextCandidate(cell, 0); k != -1; k = candidateState.nextCandidate(cell, k + 1)) {
+            if (ordering != CellOrdering.FIRST_EMPTY) {
+                emptyCells.remove(cell);
+                emptyCells.placing(cell, k, candidateState);
+            }
+            grid.setCell(cell, validSymbolsList[k]);
+            candidateState.place(cell, k);
+            stats.addUpdates(1);
 
-    /**
-     * Validates the column at index j
-     *
-     * @param j          column index to be checked
-     * @param num        the symbol/number to be placed
-     * @param sudokuGrid grid to be solved
-     * @return true if can be placed
-     */
-    private boolean columnCheck(int j, int num, SudokuGrid sudokuGrid) {
-        for (int i = 0; i < gridDimension; i++) {
-            if (sudokuGrid.getGridLoc(i, j) == num) {
+            if (backtrackingRecursion(grid, cell + 1, depth + 1)) {
                 return true;
             }
+
+            candidateState.remove(cell, k);
+            grid.setCell(cell, emptyValue);
+            stats.addUpdates(1);
+            if (ordering != CellOrdering.FIRST_EMPTY) {
+                emptyCells.add(cell, candidateState.candidateCount(cell));
+                emptyCells.removed(cell, k, candidateState);
+            }
         }
 
         return false;
-    } // end of columnCheck()
+
+    } // end of backtrackingRecursion()
+
+
+    private static short[] snapshot(SudokuGrid grid) {
+        short[] cells = new short[grid.getGridDimension() * grid.getGridDimension()];
+        grid.copyCells(cells);
+        return cells;
+    }
 
 
     /**
-     * Validates the box constraints for placing a number. This was harder to figure out. Idea and concepts
-     * were learnt from:
-     * Reference: https://medium.com/@george.seif94/solving-sudoku-using-a-simple-search-algorithm-3ac44857fee8
+     * Picks the next empty cell to branch on
      *
-     * @param rowStart   row index of where the box starts
-     * @param colStart   column index of where box starts
-     * @param num        the symbol/number to be placed
-     * @param sudokuGrid grid to be solved
-     * @return true if can be placed
+     * @param grid sudoku grid to be solved
+     * @param from cell index to resume the row-major scan from, all cells before it are filled
+     * @return cell index, or -1 if the grid is full
      */
-    private boolean boxCheck(int rowStart, int colStart, int num, SudokuGrid sudokuGrid) {
+    private int selectCell(SudokuGrid grid, int from) {
 
-        int squareRoot = (int) Math.sqrt(gridDimension);
-        int row = rowStart - rowStart % squareRoot;
-        int col = colStart - colStart % squareRoot;
+        if (ordering != CellOrdering.FIRST_EMPTY) {
+            return emptyCells.select(ordering, candidateState);
+        }
 
-        for (int i = row; i < row + squareRoot; i++) {
-            for (int j = col; j < col + squareRoot; j++) {
-                if (sudokuGrid.getGridLoc(i, j) == num) {
-                    return true;
-                }
+        for (int cell = from; cell < gridDimension * gridDimension; cell++) {
+            if (grid.getCell(cell) == emptyValue) {
+                return cell;
             }
         }
 
-        return false;
+        return -1;
 
-    } // end of boxCheck()
+    } // end of selectCell()
 
 
 } // end of class BackTrackingSolver()
@@ -0,0 +1,141 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import grid.CanonicalForm;
+import grid.GridCanonicalizer;
+import grid.StdSudokuGrid;
+import grid.SudokuGrid;
+
+
+/**
+ * Looks up a SolutionCache before another solver.  The puzzle is put in canonical form, and
+ * if a copy of it has been solved before its cached solution is mapped back through the
+ * inverse transform into the grid, without searching.  Otherwise the other solver solves the
+ * grid, and its solution is cached in canonical form.
+ * Only standard Sudoku grids small enough for GridCanonicalizer are looked up - killer grids,
+ * whose cages the symmetries would not keep, and larger grids go straight to the other solver.
+ */
+public class CachingSolver extends SudokuSolver {
+
+    private final SudokuSolver solver;
+    private final SolutionCache cache;
+    private final GridCanonicalizer canonicalizer;
+
+    // Whether the last solve was answered from the cache
+    private boolean lastHit;
+
+
+    /**
+     * Constructor
+     *
+     * @param solver solver run on the grids not in the cache
+     * @param cache  cache to look up, may be shared with other caching solvers
+     */
+    public CachingSolver(SudokuSolver solver, SolutionCache cache) {
+
+        this.solver = solver;
+        this.cache = cache;
+        canonicalizer = new GridCanonicalizer();
+
+    } // end of CachingSolver()
+
+
+    public SudokuSolver getSolver() {
+        return solver;
+    }
+
+
+    public SolutionCache getCache() {
+        return cache;
+    }
+
+
+    public boolean isLastHit() {
+        return lastHit;
+    }
+
+
+    @Override
+    public boolean solve(SudokuGrid grid) {
+
+        stats.start();
+        lastHit = false;
+
+        int gridDimension = grid.getGridDimension();
+        if (!(grid instanceof StdSudokuGrid) || !GridCanonicalizer.supports(gridDimension)) {
+            return delegate(grid);
+        }
+
+        CanonicalForm form = canonicalizer.canonicalize((StdSudokuGrid) grid);
+        short[] cells = new short[gridDimension * gridDimension];
+        short[] solution = cache.get(form);
+        if (solution != null) {
+            form.fromCanonical(solution, cells);
+            grid.restoreCells(cells);
+            lastHit = true;
+            stats.solutionFound();
+            return true;
+        }
+
+        if (!delegate(grid)) {
+            return false;
+        }
+        grid.copyCells(cells);
+        cache.put(form, form.toCanonical(cells));
+
+        return true;
+
+    } // end of solve()
+
+
+    /**
+     * Hands the grid to the other solver, adding its search effort to these counters
+     *
+     * @return true if it solved the grid
+     */
+    private boolean delegate(SudokuGrid grid) {
+
+        boolean solved;
+        try {
+            solved = solver.solve(grid);
+        } finally {
+            stats.add(solver.getStats());
+        }
+        if (solved) {
+            stats.solutionFound();
+        }
+
+        return solved;
+
+    } // end of delegate()
+
+
+    /**
+     * Counts with the other solver - a count needs every solution, not the one cached
+     */
+    @Override
+    public SolutionCount countSolutions(SudokuGrid grid, long limit, int keep) {
+
+        SolutionCount count = solver.countSolutions(grid, limit, keep);
+        stats.start();
+        stats.add(solver.getStats());
+
+        return count;
+
+    } // end of countSolutions()
+
+
+    @Override
+    protected void setBudget(SolveBudget budget) {
+
+        super.setBudget(budget);
+        solver.setBudget(budget);
+
+    } // end of setBudget()
+
+
+} // end of class CachingSolver
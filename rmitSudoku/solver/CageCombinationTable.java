@@ -0,0 +1,391 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Cage arithmetic for Killer Sudoku.  For a sum, a number of cells and the symbols still
+ * available, gives the union of the symbols that can appear in some set of distinct available
+ * symbols of that size adding up to the sum.  Symbols are referred to by their index in the
+ * valid symbols list, and sets of them are bitsets (so at most 62 symbols).
+ * For small symbol sets the whole (sum, size, available) table is precomputed and shared per
+ * symbol set.  Larger sets get a table of their own, whose entries are worked out on demand
+ * and memoised - one map per (size, sum), keyed by the available bitset, holding at most
+ * MAX_MEMO_ENTRIES entries before it is cleared - so a memoised table is not shared between
+ * threads, and a solver keeps its own from puzzle to puzzle (see isFor()).
+ */
+public class CageCombinationTable {
+
+    // Entry flag - the low bits of an entry hold the union of usable symbols
+    private static final long FEASIBLE = 1L << 62;
+    private static final long UNION = FEASIBLE - 1;
+
+    // Largest table (in entries) that is precomputed rather than filled in lazily
+    private static final long MAX_PRECOMPUTED = 1L << 21;
+
+    // Most memoised entries kept at once, and the slots a memo map starts with
+    private static final int MAX_MEMO_ENTRIES = 1 << 20;
+    private static final int INITIAL_MEMO_SLOTS = 16;
+
+    private static final ConcurrentHashMap<String, CageCombinationTable> tables = new ConcurrentHashMap<>();
+
+    private final int[] symbols;
+    private final int minSymbol;
+    private final int maxSum;
+    private final long allSymbols;
+
+    // Precomputed entries indexed by (mask, size, sum), or null if memoised instead
+    private final long[] table;
+
+    // Memoised entries, an open-addressing map per (size, sum) index keyed by the available
+    // bitset (0 marks an empty slot, the memo never holds an empty bitset)
+    private final long[][] memoKeys;
+    private final long[][] memoEntries;
+    private final int[] memoCounts;
+    private int memoTotal;
+
+
+    /**
+     * Constructor
+     *
+     * @param symbols valid symbols of the grid, symbols are assumed to be non-negative
+     */
+    private CageCombinationTable(int[] symbols) {
+        this(symbols, precomputable(symbols));
+    }
+
+
+    /**
+     * Constructor, choosing whether the table is precomputed or memoised
+     *
+     * @param symbols    valid symbols of the grid, symbols are assumed to be non-negative
+     * @param precompute whether to fill the whole table now, rather than memoise entries
+     */
+    CageCombinationTable(int[] symbols, boolean precompute) {
+
+        this.symbols = symbols.clone();
+
+        int total = 0;
+        int min = Integer.MAX_VALUE;
+        for (int symbol : symbols) {
+            total += symbol;
+            min = Math.min(min, symbol);
+        }
+        minSymbol = min;
+        maxSum = total;
+        allSymbols = (1L << symbols.length) - 1;
+
+        if (precompute) {
+            table = new long[(int) ((1L << symbols.length) * (symbols.length + 1) * (maxSum + 1))];
+            memoKeys = null;
+            memoEntries = null;
+            memoCounts = null;
+            precompute();
+        } else {
+            table = null;
+            int slots = (symbols.length + 1) * (maxSum + 1);
+            memoKeys = new long[slots][];
+            memoEntries = new long[slots][];
+            memoCounts = new int[slots];
+        }
+
+    } // end of CageCombinationTable()
+
+
+    /**
+     * Gets the table for a symbol set - the shared table if the set is small enough to
+     * precompute, built the first time the set is seen, otherwise a new memoised table
+     *
+     * @param symbols valid symbols of the grid
+     * @return a table for those symbols
+     */
+    public static CageCombinationTable forSymbols(int[] symbols) {
+
+        if (symbols.length > 62) {
+            throw new IllegalArgumentException("Cage combinations support at most 62 symbols");
+        }
+
+        if (!precomputable(symbols)) {
+            return new CageCombinationTable(symbols);
+        }
+
+        return tables.computeIfAbsent(Arrays.toString(symbols), key -> new CageCombinationTable(symbols));
+
+    } // end of forSymbols()
+
+
+    /**
+     * Whether the whole table of a symbol set fits in MAX_PRECOMPUTED entries, checked a
+     * factor at a time so large sets cannot overflow the product
+     */
+    private static boolean precomputable(int[] symbols) {
+
+        long total = 0;
+        for (int symbol : symbols) {
+            total += symbol;
+        }
+
+        long entries = 1L << Math.min(symbols.length, 21);
+        if (symbols.length > 21 || (entries *= symbols.length + 1) > MAX_PRECOMPUTED) {
+            return false;
+        }
+
+        return entries * (total + 1) <= MAX_PRECOMPUTED;
+
+    } // end of precomputable()
+
+
+    /**
+     * Whether this table is for a symbol set, so a solver can keep it for the next puzzle
+     *
+     * @param symbols valid symbols of the grid
+     * @return true if the table was built for the same symbols
+     */
+    public boolean isFor(int[] symbols) {
+        return Arrays.equals(this.symbols, symbols);
+    }
+
+
+    /**
+     * Union of the symbols that can complete a cage
+     *
+     * @param sum       total the remaining cells must add up to
+     * @param size      number of remaining cells
+     * @param available bitset of the symbols that may still be used
+     * @return bitset of usable symbols, 0 if the cage cannot be completed (or is already complete)
+     */
+    public long completions(int sum, int size, long available) {
+
+        return lookup(sum, size, available) & UNION;
+
+    } // end of completions()
+
+
+    /**
+     * Whether some set of distinct available symbols of the given size adds up to the sum
+     *
+     * @param sum       total the remaining cells must add up to
+     * @param size      number of remaining cells
+     * @param available bitset of the symbols that may still be used
+     * @return true if the cage can still be completed
+     */
+    public boolean canComplete(int sum, int size, long available) {
+
+        return (lookup(sum, size, available) & FEASIBLE) != 0;
+
+    } // end of canComplete()
+
+
+    /**
+     * Bitset of every valid symbol
+     *
+     * @return bitset with one bit per symbol
+     */
+    public long getAllSymbols() {
+        return allSymbols;
+    }
+
+
+    /**
+     * Reads an entry, working it out first if the table is lazily filled
+     *
+     * @param sum       total still to make up
+     * @param size      number of symbols still to choose
+     * @param available bitset of the symbols that may be chosen
+     * @return entry with the FEASIBLE flag and the union of usable symbols
+     */
+    private long lookup(int sum, int size, long available) {
+
+        available &= allSymbols;
+        if (sum < 0 || sum > maxSum || size < 0 || size > symbols.length) {
+            return 0L;
+        }
+
+        if (table != null) {
+            return table[index(sum, size, available)];
+        }
+
+        return compute(sum, size, available);
+
+    } // end of lookup()
+
+
+    /**
+     * Memoised recursion for tables too big to precompute.  The lowest available symbol is
+     * either left out or used, and the entry is the combination of both options.
+     *
+     * @param sum       total still to make up
+     * @param size      number of symbols still to choose
+     * @param available bitset of the symbols that may be chosen
+     * @return entry with the FEASIBLE flag and the union of usable symbols
+     */
+    private long compute(int sum, int size, long available) {
+
+        if (size == 0 || available == 0L) {
+            return size == 0 && sum == 0 ? FEASIBLE : 0L;
+        }
+        // Every symbol left is at least the smallest, and 0 may be one of them
+        if (sum < (long) size * minSymbol) {
+            return 0L;
+        }
+
+        int slot = size * (maxSum + 1) + sum;
+        long cached = memoGet(slot, available);
+        if (cached != -1L) {
+            return cached;
+        }
+
+        int k = Long.numberOfTrailingZeros(available);
+        long rest = available & (available - 1);
+
+        long entry = combine(k, compute(sum, size, rest),
+                sum >= symbols[k] ? compute(sum - symbols[k], size - 1, rest) : 0L);
+        memoPut(slot, available, entry);
+
+        return entry;
+
+    } // end of compute()
+
+
+    /**
+     * Finds a memoised entry
+     *
+     * @param slot      (size, sum) index
+     * @param available bitset of the symbols that may be chosen, not 0
+     * @return the entry, -1 if it is not memoised (entries are never negative)
+     */
+    private long memoGet(int slot, long available) {
+
+        long[] keys = memoKeys[slot];
+        if (keys == null) {
+            return -1L;
+        }
+
+        int mask = keys.length - 1;
+        for (int i = memoHash(available, mask); keys[i] != 0L; i = (i + 1) & mask) {
+            if (keys[i] == available) {
+                return memoEntries[slot][i];
+            }
+        }
+
+        return -1L;
+
+    } // end of memoGet()
+
+
+    /**
+     * Memoises an entry, growing the slot's map past half full, and clearing every map once
+     * the memo holds MAX_MEMO_ENTRIES
+     */
+    private void memoPut(int slot, long available, long entry) {
+
+        if (memoTotal >= MAX_MEMO_ENTRIES) {
+            Arrays.fill(memoKeys, null);
+            Arrays.fill(memoEntries, null);
+            Arrays.fill(memoCounts, 0);
+            memoTotal = 0;
+        }
+
+        if (memoKeys[slot] == null) {
+            memoKeys[slot] = new long[INITIAL_MEMO_SLOTS];
+            memoEntries[slot] = new long[INITIAL_MEMO_SLOTS];
+        } else if (2 * (memoCounts[slot] + 1) > memoKeys[slot].length) {
+            long[] oldKeys = memoKeys[slot];
+            long[] oldEntries = memoEntries[slot];
+            memoKeys[slot] = new long[2 * oldKeys.length];
+            memoEntries[slot] = new long[2 * oldKeys.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0L) {
+                    insert(slot, oldKeys[i], oldEntries[i]);
+                }
+            }
+        }
+
+        insert(slot, available, entry);
+        memoCounts[slot]++;
+        memoTotal++;
+
+    } // end of memoPut()
+
+
+    private void insert(int slot, long available, long entry) {
+
+        long[] keys = memoKeys[slot];
+        int mask = keys.length - 1;
+        int i = memoHash(available, mask);
+        while (keys[i] != 0L) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = available;
+        memoEntries[slot][i] = entry;
+
+    } // end of insert()
+
+
+    private static int memoHash(long available, int mask) {
+        return (int) ((available * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+
+    /**
+     * Fills the whole table.  Masks are visited in increasing order, and every entry only
+     * depends on entries for the same mask without its lowest symbol, which is a smaller mask.
+     */
+    private void precompute() {
+
+        int n = symbols.length;
+
+        for (long mask = 0; mask <= allSymbols; mask++) {
+            for (int size = 0; size <= n; size++) {
+                for (int sum = 0; sum <= maxSum; sum++) {
+                    long entry;
+
+                    if (mask == 0L || size == 0) {
+                        entry = size == 0 && sum == 0 ? FEASIBLE : 0L;
+                    } else {
+                        int k = Long.numberOfTrailingZeros(mask);
+                        long rest = mask & (mask - 1);
+                        entry = combine(k, table[index(sum, size, rest)],
+                                sum >= symbols[k] ? table[index(sum - symbols[k], size - 1, rest)] : 0L);
+                    }
+
+                    table[index(sum, size, mask)] = entry;
+                }
+            }
+        }
+
+    } // end of precompute()
+
+
+    /**
+     * Merges the two options for symbol k - leaving it out, or using it
+     *
+     * @param k       symbol index
+     * @param without entry for the remaining symbols with k left out
+     * @param with    entry for the remaining symbols after using k
+     * @return merged entry
+     */
+    private long combine(int k, long without, long with) {
+
+        long entry = without & (FEASIBLE | UNION);
+        if ((with & FEASIBLE) != 0) {
+            entry |= FEASIBLE | (with & UNION) | (1L << k);
+        }
+
+        return entry;
+
+    } // end of combine()
+
+
+    private int index(int sum, int size, long mask) {
+        return (int) ((mask * (symbols.length + 1) + size) * (maxSum + 1) + sum);
+    }
+
+
+} // end of class CageCombinationTable
@@ -0,0 +1,53 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+
+/**
+ * Lets another thread stop a solve - once cancel() is called, every solve whose budget holds
+ * the token gives up at its next check.  A token cannot be reset, so use a new one per job.
+ * A token made from a parent is also cancelled when its parent is, so a job can be cancelled
+ * on its own or along with everything under the parent.
+ */
+public class CancellationToken {
+
+    private final CancellationToken parent;
+    private volatile boolean cancelled;
+
+
+    /**
+     * Constructor
+     */
+    public CancellationToken() {
+
+        this(null);
+
+    } // end of CancellationToken()
+
+
+    /**
+     * Constructor
+     *
+     * @param parent token whose cancellation cancels this one too, null for none
+     */
+    public CancellationToken(CancellationToken parent) {
+
+        this.parent = parent;
+
+    } // end of CancellationToken()
+
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+
+    public boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+
+
+} // end of class CancellationToken
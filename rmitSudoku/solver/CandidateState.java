@@ -0,0 +1,255 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import grid.GridGeometry;
+import grid.SudokuGrid;
+
+import java.util.Arrays;
+
+
+/**
+ * Incremental row/column/box constraint state for the backtracking solvers.
+ * Each row, column and box keeps a bitset of the symbol indexes already used in it,
+ * so testing a candidate is a couple of bit lookups instead of rescanning the grid,
+ * and a cell's candidates are a single AND of the three sets.
+ * Bitsets are stored as one long per house when the grid dimension is 64 or less,
+ * otherwise as several longs (words) per house.
+ */
+public class CandidateState {
+
+    /*
+     * Notes:
+     * cells addressed by cell index (i * gridDimension + j)
+     * k used for symbol index (index into the valid symbols list), not the symbol itself
+     */
+
+    private final int gridDimension;
+    private final int words;
+    private final GridGeometry geometry;
+
+    // Used symbol bitsets - house h occupies words [h * words, (h + 1) * words)
+    private final long[] rowUsed;
+    private final long[] colUsed;
+    private final long[] boxUsed;
+
+    // Mask of the valid bits in each word
+    private final long[] fullMask;
+
+
+    /**
+     * Constructor
+     *
+     * @param gridDimension dimension of the grid the state tracks
+     */
+    public CandidateState(int gridDimension) {
+
+        this.gridDimension = gridDimension;
+        this.words = (gridDimension + 63) >>> 6;
+        this.geometry = GridGeometry.forDimension(gridDimension);
+
+        rowUsed = new long[gridDimension * words];
+        colUsed = new long[gridDimension * words];
+        boxUsed = new long[gridDimension * words];
+
+        fullMask = new long[words];
+        for (int w = 0; w < words; w++) {
+            int bits = Math.min(64, gridDimension - (w << 6));
+            fullMask[w] = bits == 64 ? -1L : (1L << bits) - 1;
+        }
+
+    } // end of CandidateState()
+
+
+    /**
+     * Clears the state and loads all the filled cells of the grid into it
+     *
+     * @param grid grid to load
+     * @return false if the filled cells already break a constraint
+     */
+    public boolean load(SudokuGrid grid) {
+
+        clear();
+        int[] symbolsList = grid.getValidSymbolsList();
+        int emptyValue = grid.getEmptyValue();
+
+        for (int cell = 0; cell < gridDimension * gridDimension; cell++) {
+            int value = grid.getCell(cell);
+            if (value != emptyValue) {
+                int k = symbolIndex(symbolsList, value);
+                if (k < 0 || !canPlace(cell, k)) {
+                    return false;
+                }
+                place(cell, k);
+            }
+        }
+
+        return true;
+
+    } // end of load()
+
+
+    /**
+     * Resets every house to having no symbols used
+     */
+    public void clear() {
+
+        Arrays.fill(rowUsed, 0L);
+        Arrays.fill(colUsed, 0L);
+        Arrays.fill(boxUsed, 0L);
+
+    } // end of clear()
+
+
+    /**
+     * Checks whether symbol index k is free in the row, column and box of the cell
+     *
+     * @param cell cell index
+     * @param k    symbol index
+     * @return true if k can be placed
+     */
+    public boolean canPlace(int cell, int k) {
+
+        int w = k >>> 6;
+        long bit = 1L << k;
+
+        return ((rowUsed[geometry.getRow(cell) * words + w] | colUsed[geometry.getCol(cell) * words + w]
+                | boxUsed[geometry.getBox(cell) * words + w]) & bit) == 0;
+
+    } // end of canPlace()
+
+
+    /**
+     * Marks symbol index k as used in the row, column and box of the cell
+     *
+     * @param cell cell index
+     * @param k    symbol index
+     */
+    public void place(int cell, int k) {
+
+        int w = k >>> 6;
+        long bit = 1L << k;
+
+        rowUsed[geometry.getRow(cell) * words + w] |= bit;
+        colUsed[geometry.getCol(cell) * words + w] |= bit;
+        boxUsed[geometry.getBox(cell) * words + w] |= bit;
+
+    } // end of place()
+
+
+    /**
+     * Marks symbol index k as free again in the row, column and box of the cell
+     *
+     * @param cell cell index
+     * @param k    symbol index
+     */
+    public void remove(int cell, int k) {
+
+        int w = k >>> 6;
+        long bit = ~(1L << k);
+
+        rowUsed[geometry.getRow(cell) * words + w] &= bit;
+        colUsed[geometry.getCol(cell) * words + w] &= bit;
+        boxUsed[geometry.getBox(cell) * words + w] &= bit;
+
+    } // end of remove()
+
+
+    /**
+     * Candidate bitset of the cell for one word - for grids of dimension 64 or less
+     * word 0 holds every candidate
+     *
+     * @param cell cell index
+     * @param w    word index
+     * @return bitset of the symbol indexes still allowed in the cell
+     */
+    public long candidateWord(int cell, int w) {
+
+        return ~(rowUsed[geometry.getRow(cell) * words + w] | colUsed[geometry.getCol(cell) * words + w]
+                | boxUsed[geometry.getBox(cell) * words + w]) & fullMask[w];
+
+    } // end of candidateWord()
+
+
+    /**
+     * Number of symbols that can still be placed in the cell
+     *
+     * @param cell cell index
+     * @return candidate count
+     */
+    public int candidateCount(int cell) {
+
+        int count = 0;
+        for (int w = 0; w < words; w++) {
+            count += Long.bitCount(candidateWord(cell, w));
+        }
+
+        return count;
+
+    } // end of candidateCount()
+
+
+    /**
+     * Finds the next candidate of the cell, used to iterate through candidates
+     * without building a list
+     *
+     * @param cell cell index
+     * @param from symbol index to start searching from (inclusive)
+     * @return next symbol index that can be placed, or -1 if there are none left
+     */
+    public int nextCandidate(int cell, int from) {
+
+        for (int w = from >>> 6; w < words; w++) {
+            long mask = candidateWord(cell, w);
+            if (w == from >>> 6) {
+                mask &= -1L << from;
+            }
+            if (mask != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(mask);
+            }
+        }
+
+        return -1;
+
+    } // end of nextCandidate()
+
+
+    public int getGridDimension() {
+        return gridDimension;
+    }
+
+
+    public GridGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * @return number of words per house, see candidateWord()
+     */
+    public int getWords() {
+        return words;
+    }
+
+
+    /**
+     * Looks for the index of the symbol in the list of valid symbols
+     *
+     * @param symbolsList list of valid symbols/numbers
+     * @param num         the symbol/number to be checked for
+     * @return index of symbol, or -1 if not a valid symbol
+     */
+    public static int symbolIndex(int[] symbolsList, int num) {
+        for (int i = 0; i < symbolsList.length; i++) {
+            if (num == symbolsList[i]) {
+                return i;
+            }
+        }
+
+        return -1;
+    } // end of symbolIndex()
+
+
+} // end of class CandidateState
@@ -0,0 +1,51 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+
+/**
+ * Heuristics the backtracking solvers can use to pick which empty cell to branch on next.
+ */
+public enum CellOrdering {
+
+    // First empty cell in row-major order
+    FIRST_EMPTY("first"),
+    // Minimum remaining values - the empty cell with the fewest candidates
+    MRV("mrv"),
+    // MRV, ties broken by the cell with the most empty peers
+    MRV_DEGREE("mrv-degree");
+
+
+    private final String name;
+
+
+    CellOrdering(String name) {
+        this.name = name;
+    }
+
+
+    public String getName() {
+        return name;
+    }
+
+
+    /**
+     * Looks up an ordering from its command line name
+     *
+     * @param name name of the ordering, e.g. "mrv"
+     * @return the ordering, or null if the name is unknown
+     */
+    public static CellOrdering fromName(String name) {
+        for (CellOrdering ordering : values()) {
+            if (ordering.name.equals(name)) {
+                return ordering;
+            }
+        }
+
+        return null;
+    } // end of fromName()
+
+} // end of enum CellOrdering
@@ -0,0 +1,361 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import java.util.Arrays;
+import java.util.Random;
+
+
+/**
+ * Dancing links structure stored as parallel int arrays (struct of arrays) in one
+ * preallocated pool, instead of one object per node.
+ * Node 0 is the root, nodes 1..columns are the column headers (column c is node c + 1) and
+ * the remaining nodes are the 1-entries of the matrix, added row by row.  Once every row is
+ * added the structure is sealed, which saves its initial links so reset() can restore it for
+ * the next puzzle with a few array copies instead of rebuilding it.
+ */
+public class DancingLinksMatrix {
+
+    static final int ROOT = 0;
+
+    // Links, column header and matrix row of each node
+    final int[] up;
+    final int[] down;
+    final int[] left;
+    final int[] right;
+    final int[] column;
+    final int[] row;
+
+    // Number of live nodes in each column, indexed by header node
+    final int[] size;
+
+    // First node of each matrix row, -1 for rows not added
+    final int[] rowStart;
+
+    private final int columns;
+    private int nodeCount;
+
+    // Link changes made since the last reset(), both unlinking and relinking
+    private long updates;
+
+    // Initial links saved by seal()
+    private int[] initialUp;
+    private int[] initialDown;
+    private int[] initialLeft;
+    private int[] initialRight;
+    private int[] initialSize;
+
+
+    /**
+     * Constructor - creates the root and column headers
+     *
+     * @param columns  number of columns of the matrix
+     * @param rows     number of rows of the matrix
+     * @param capacity number of 1-entries the matrix will hold
+     */
+    public DancingLinksMatrix(int columns, int rows, int capacity) {
+
+        this.columns = columns;
+        int nodes = columns + 1 + capacity;
+
+        up = new int[nodes];
+        down = new int[nodes];
+        left = new int[nodes];
+        right = new int[nodes];
+        column = new int[nodes];
+        row = new int[nodes];
+        size = new int[columns + 1];
+        rowStart = new int[rows];
+        Arrays.fill(rowStart, -1);
+
+        // Root and headers in one circular list, each header an empty column
+        for (int node = 0; node <= columns; node++) {
+            left[node] = node == 0 ? columns : node - 1;
+            right[node] = node == columns ? 0 : node + 1;
+            up[node] = node;
+            down[node] = node;
+            column[node] = node;
+            row[node] = -1;
+        }
+        nodeCount = columns + 1;
+
+    } // end of DancingLinksMatrix()
+
+
+    /**
+     * Copy constructor - copies the current links, sharing the parts that never change once
+     * the matrix is sealed (column and row of each node, and the initial links)
+     *
+     * @param other sealed matrix to copy
+     */
+    public DancingLinksMatrix(DancingLinksMatrix other) {
+
+        columns = other.columns;
+        nodeCount = other.nodeCount;
+
+        up = other.up.clone();
+        down = other.down.clone();
+        left = other.left.clone();
+        right = other.right.clone();
+        size = other.size.clone();
+        column = other.column;
+        row = other.row;
+        rowStart = other.rowStart;
+
+        initialUp = other.initialUp;
+        initialDown = other.initialDown;
+        initialLeft = other.initialLeft;
+        initialRight = other.initialRight;
+        initialSize = other.initialSize;
+
+    } // end of DancingLinksMatrix()
+
+
+    /**
+     * Appends a row to the matrix
+     *
+     * @param rowIndex   matrix row index
+     * @param rowColumns columns (0 based) the row has a 1 in
+     */
+    public void addRow(int rowIndex, int... rowColumns) {
+
+        int first = nodeCount;
+        rowStart[rowIndex] = first;
+
+        for (int c : rowColumns) {
+            int node = nodeCount++;
+            int header = c + 1;
+
+            column[node] = header;
+            row[node] = rowIndex;
+
+            // Set up and down - append at the bottom of the column
+            up[node] = up[header];
+            down[node] = header;
+            down[up[header]] = node;
+            up[header] = node;
+            size[header]++;
+
+            // Set left and right - append at the end of the row
+            left[node] = node == first ? node : left[first];
+            right[node] = first;
+            right[left[node]] = node;
+            left[first] = node;
+        }
+
+    } // end of addRow()
+
+
+    /**
+     * Saves the current links as the state reset() goes back to
+     */
+    public void seal() {
+
+        initialUp = Arrays.copyOf(up, nodeCount);
+        initialDown = Arrays.copyOf(down, nodeCount);
+        initialLeft = Arrays.copyOf(left, nodeCount);
+        initialRight = Arrays.copyOf(right, nodeCount);
+        initialSize = size.clone();
+
+    } // end of seal()
+
+
+    /**
+     * Restores the links saved by seal(), undoing every cover and hide since
+     */
+    public void reset() {
+
+        System.arraycopy(initialUp, 0, up, 0, nodeCount);
+        System.arraycopy(initialDown, 0, down, 0, nodeCount);
+        System.arraycopy(initialLeft, 0, left, 0, nodeCount);
+        System.arraycopy(initialRight, 0, right, 0, nodeCount);
+        System.arraycopy(initialSize, 0, size, 0, size.length);
+        updates = 0;
+
+    } // end of reset()
+
+
+    /**
+     * Covers a column - unlinks its header, and every row in the column from the other columns
+     *
+     * @param header column header node
+     */
+    public void cover(int header) {
+
+        right[left[header]] = right[header];
+        left[right[header]] = left[header];
+        long changed = 1;
+
+        for (int rowNode = down[header]; rowNode != header; rowNode = down[rowNode]) {
+            for (int node = right[rowNode]; node != rowNode; node = right[node]) {
+                down[up[node]] = down[node];
+                up[down[node]] = up[node];
+                size[column[node]]--;
+                changed++;
+            }
+        }
+        updates += changed;
+
+    } // end of cover()
+
+
+    /**
+     * Uncovers a column, in the exact reverse order of cover()
+     *
+     * @param header column header node
+     */
+    public void uncover(int header) {
+
+        long changed = 1;
+
+        for (int rowNode = up[header]; rowNode != header; rowNode = up[rowNode]) {
+            for (int node = left[rowNode]; node != rowNode; node = left[node]) {
+                down[up[node]] = node;
+                up[down[node]] = node;
+                size[column[node]]++;
+                changed++;
+            }
+        }
+
+        right[left[header]] = header;
+        left[right[header]] = header;
+        updates += changed;
+
+    } // end of uncover()
+
+
+    /**
+     * Covers the columns of every other node in the row, after the row's own column is covered
+     *
+     * @param rowNode node of the chosen row
+     */
+    public void coverRow(int rowNode) {
+
+        for (int node = right[rowNode]; node != rowNode; node = right[node]) {
+            cover(column[node]);
+        }
+
+    } // end of coverRow()
+
+
+    /**
+     * Undoes coverRow()
+     *
+     * @param rowNode node of the chosen row
+     */
+    public void uncoverRow(int rowNode) {
+
+        for (int node = left[rowNode]; node != rowNode; node = left[node]) {
+            uncover(column[node]);
+        }
+
+    } // end of uncoverRow()
+
+
+    /**
+     * Unlinks every node of a row from its column, leaving the columns in place
+     *
+     * @param rowNode any node of the row
+     */
+    public void hideRow(int rowNode) {
+
+        int node = rowNode;
+        do {
+            down[up[node]] = down[node];
+            up[down[node]] = up[node];
+            size[column[node]]--;
+            updates++;
+            node = right[node];
+        } while (node != rowNode);
+
+    } // end of hideRow()
+
+
+    /**
+     * Relinks a row hidden by hideRow()
+     *
+     * @param rowNode the node hideRow() was called with
+     */
+    public void unhideRow(int rowNode) {
+
+        int node = rowNode;
+        do {
+            node = left[node];
+            down[up[node]] = node;
+            up[down[node]] = node;
+            size[column[node]]++;
+            updates++;
+        } while (node != rowNode);
+
+    } // end of unhideRow()
+
+
+    /**
+     * Finds the uncovered column with the fewest live rows (Knuth's S heuristic)
+     *
+     * @param tieBreak random source to choose between equally small columns, null to take the
+     *                 leftmost of them
+     * @return header node of the column, ROOT if every column is covered
+     */
+    public int smallestColumn(Random tieBreak) {
+
+        int best = ROOT;
+        int ties = 0;
+
+        for (int header = right[ROOT]; header != ROOT; header = right[header]) {
+            if (best == ROOT || size[header] < size[best]) {
+                best = header;
+                ties = 1;
+                // Nothing beats an empty column, and without tie-breaking nothing beats one row
+                if (size[best] == 0 || (size[best] == 1 && tieBreak == null)) {
+                    break;
+                }
+            } else if (tieBreak != null && size[header] == size[best] && tieBreak.nextInt(++ties) == 0) {
+                best = header;
+            }
+        }
+
+        return best;
+
+    } // end of smallestColumn()
+
+
+    /**
+     * Whether a node is still linked into its column (neither covered away nor hidden)
+     *
+     * @param node node index
+     * @return true if live
+     */
+    public boolean isLinked(int node) {
+        return down[up[node]] == node;
+    }
+
+
+    /**
+     * Header node of a column
+     *
+     * @param c column index (0 based)
+     * @return header node
+     */
+    public int header(int c) {
+        return c + 1;
+    }
+
+
+    public int getColumns() {
+        return columns;
+    }
+
+
+    /**
+     * @return link changes made since the last reset()
+     */
+    public long getUpdates() {
+        return updates;
+    }
+
+
+} // end of class DancingLinksMatrix
@@ -0,0 +1,229 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * State of one dancing links search - the matrix and the rows chosen so far - with the
+ * Algorithm X recursion over it.  DancingLinksSolver runs one of these; its parallel mode
+ * copies the state so each fork-join task searches its own copy.
+ */
+class DancingLinksSearch {
+
+    private final DancingLinksMatrix matrix;
+
+    // Rows chosen so far, one per cell once solved
+    private final int[] solution;
+    private int solutionSize;
+
+    // Chooses between equally small columns, null to take the leftmost
+    private final Random tieBreak;
+    // Set when the search should give up, e.g. another task found a solution; null if never
+    private final AtomicBoolean cancelled;
+
+    private final SearchStats stats;
+
+    // Set while counting solutions, null to stop at the first solution
+    private SolutionCount counter;
+    private int[] symbolsList;
+
+
+    /**
+     * Constructor
+     *
+     * @param matrix    matrix to search, which the search modifies
+     * @param cells     number of cells of the grid
+     * @param tieBreak  random source for column ties, null to take the leftmost
+     * @param cancelled flag checked at every node, null if the search is never cancelled
+     * @param stats     counters the search adds its nodes to
+     */
+    DancingLinksSearch(DancingLinksMatrix matrix, int cells, Random tieBreak, AtomicBoolean cancelled,
+                       SearchStats stats) {
+
+        this.matrix = matrix;
+        this.solution = new int[cells];
+        this.tieBreak = tieBreak;
+        this.cancelled = cancelled;
+        this.stats = stats;
+
+    } // end of DancingLinksSearch()
+
+
+    /**
+     * Copies the search state - the links and the rows chosen so far
+     *
+     * @param tieBreak  random source of the copy, not shared with other searches; null to
+     *                  take the leftmost column
+     * @param cancelled flag the copy checks at every node
+     * @param stats     counters of the copy
+     * @return an independent copy
+     */
+    DancingLinksSearch copy(Random tieBreak, AtomicBoolean cancelled, SearchStats stats) {
+
+        DancingLinksSearch copy = new DancingLinksSearch(new DancingLinksMatrix(matrix), solution.length,
+                tieBreak, cancelled, stats);
+        System.arraycopy(solution, 0, copy.solution, 0, solutionSize);
+        copy.solutionSize = solutionSize;
+
+        return copy;
+
+    } // end of copy()
+
+
+    /**
+     * Applies dancing links and algorithm x
+     * Concepts and ideas learnt from:
+     * Reference: https://www.ocf.berkeley.edu/~jchu/publicportal/sudoku/sudoku.paper.html
+     *
+     * @param depth number of rows chosen by the search so far
+     * @return true if solved, the solution rows are then left in the solution
+     */
+    boolean search(int depth) {
+
+        int[] down = matrix.down;
+
+        if (cancelled != null && cancelled.get()) {
+            return false;
+        }
+
+        stats.node(depth);
+
+        int header = matrix.smallestColumn(tieBreak);
+        if (header == DancingLinksMatrix.ROOT) {
+            stats.solutionFound();
+            if (counter != null) {
+                // Counting - record the solution, and carry on unless the limit is reached
+                return counter.record(counter.wantsSolution() ? solutionCells() : null);
+            }
+            return true;
+        }
+
+        // A column no row can cover - dead end
+        if (matrix.size[header] == 0) {
+            return false;
+        }
+
+        matrix.cover(header);
+
+        for (int rowNode = down[header]; rowNode != header; rowNode = down[rowNode]) {
+            solution[solutionSize++] = matrix.row[rowNode];
+            matrix.coverRow(rowNode);
+
+            if (search(depth + 1)) {
+                return true;
+            }
+
+            matrix.uncoverRow(rowNode);
+            solutionSize--;
+        }
+
+        matrix.uncover(header);
+
+        return false;
+
+    } // end of search()
+
+
+    /**
+     * Makes the search count solutions rather than stop at the first
+     *
+     * @param counter     records the solutions, and says when to stop
+     * @param symbolsList valid symbols, to turn kept solutions into cell values
+     */
+    void setCounter(SolutionCount counter, int[] symbolsList) {
+
+        this.counter = counter;
+        this.symbolsList = symbolsList;
+
+    } // end of setCounter()
+
+
+    /**
+     * Converts the rows chosen so far, which cover every cell, into the cell values they give
+     *
+     * @return cell values of the solution
+     */
+    private short[] solutionCells() {
+
+        int gridDimension = symbolsList.length;
+        short[] cells = new short[solution.length];
+        for (int l = 0; l < solutionSize; l++) {
+            cells[solution[l] / gridDimension] = (short) symbolsList[solution[l] % gridDimension];
+        }
+
+        return cells;
+
+    } // end of solutionCells()
+
+
+    /**
+     * Chooses a row before the search starts, e.g. a given
+     *
+     * @param rowIndex matrix row
+     * @return false if the row clashes with the rows already chosen
+     */
+    boolean selectRow(int rowIndex) {
+
+        int rowNode = matrix.rowStart[rowIndex];
+
+        // The row is unlinked once another row covering one of its columns has been chosen
+        if (!matrix.isLinked(rowNode)) {
+            return false;
+        }
+
+        matrix.cover(matrix.column[rowNode]);
+        matrix.coverRow(rowNode);
+        solution[solutionSize++] = rowIndex;
+
+        return true;
+
+    } // end of selectRow()
+
+
+    /**
+     * Chooses a row of a column the search has already covered, i.e. takes one branch
+     *
+     * @param rowNode node of the row in its covered column
+     */
+    void branch(int rowNode) {
+
+        solution[solutionSize++] = matrix.row[rowNode];
+        matrix.coverRow(rowNode);
+
+    } // end of branch()
+
+
+    /* ********************************************************* */
+
+    // Getters
+
+    DancingLinksMatrix getMatrix() {
+        return matrix;
+    }
+
+    int[] getSolution() {
+        return solution;
+    }
+
+    int getSolutionSize() {
+        return solutionSize;
+    }
+
+    Random getTieBreak() {
+        return tieBreak;
+    }
+
+    SearchStats getStats() {
+        return stats;
+    }
+
+    /* ********************************************************* */
+
+
+} // end of class DancingLinksSearch
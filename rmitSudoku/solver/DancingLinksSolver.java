@@ -1,470 +1,237 @@
 /*
  * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
  */
 
 package solver;
 
 import grid.SudokuGrid;
 
-import javax.naming.PartialResultException;
-import java.sql.SQLOutput;
-import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 
 /**
  * Dancing links solver for standard Sudoku.
+ * The links live in a DancingLinksMatrix (parallel int arrays rather than one object per
+ * node), generated straight from the constraints by ExactCoverEncoding.  The matrix only
+ * depends on the grid size, so it is built once and reset between puzzles of the same size.
+ * Search branches on the column with the fewest rows left, optionally breaking ties at random.
+ * With a parallelism above 1 the top of the search tree is split into fork-join tasks (see
+ * DancingLinksSplitTask), down to the split depth, which search their subtrees in parallel.
+ * Solvers with the same parallelism share one fork-join pool, so making solvers (one per
+ * batch worker, say) does not leave a pool of idle threads behind for each.
  */
 public class DancingLinksSolver extends StdSudokuSolver {
 
-    private final AlgorXSolver algorXSolver;
-    private ColumnHeader head;
-    private final ArrayList<Node> solutionNodes;
-    private final ArrayList<Integer> solutions;
+    // Fork-join pools shared by every solver, by parallelism
+    private static final ConcurrentHashMap<Integer, ForkJoinPool> pools = new ConcurrentHashMap<>();
 
-
-    /**
-     * Constructor
+    /*
+     * Notes:
+     * matrix row r = cell * gridDimension + k, where k is the symbol index (see ExactCoverEncoding)
      */
-    public DancingLinksSolver() {
-
-        algorXSolver = new AlgorXSolver();
-        solutionNodes = new ArrayList<>();
-        solutions = new ArrayList<>();
 
-    } // end of DancingLinksSolver()
-
-
-    @Override
-    public boolean solve(SudokuGrid grid) {
+    private int gridDimension;
+    private DancingLinksMatrix matrix;
 
-        int gridDimension = grid.getGridDimension();
+    // Chooses between equally small columns, null to take the leftmost
+    private Random tieBreak;
 
-        int[][] coverMatrix = algorXSolver.initialiseCoverMatrix(gridDimension, false);
+    // Parallel search - number of threads (1 to search sequentially), and branching levels
+    // tasks stop forking at
+    private int parallelism;
+    private int splitDepth;
 
-        int[][] newMatrix = applyInitialGrid(grid, coverMatrix, gridDimension);
+    // Set while counting solutions, null when solving
+    private SolutionCount counter;
 
-        head = createDLinksList(coverMatrix);
 
-        if (applyAlgorithm()) {
-            for (Node node : solutionNodes) {
-                solutions.add(node.getRowIndex() + 1);
-            }
-        }
+    /**
+     * Constructor
+     */
+    public DancingLinksSolver() {
 
-        return algorXSolver.applySolution(grid, gridDimension, solutions);
+        this(null);
 
-    } // end of solve()
+    } // end of DancingLinksSolver()
 
 
     /**
-     * Applies dancing links and algorithm x
-     * Concepts and ideas learnt from:
-     * Reference: https://www.ocf.berkeley.edu/~jchu/publicportal/sudoku/sudoku.paper.html
+     * Constructor
      *
-     * @return true if solved
+     * @param tieBreak random source used to choose between equally small columns, null to
+     *                 always take the leftmost
      */
-    private boolean applyAlgorithm() {
-
-        ColumnHeader currentHeader = head;
+    public DancingLinksSolver(Random tieBreak) {
 
-        if (currentHeader.getRight().equals(head)) {
-            return true;
+        this.tieBreak = tieBreak;
+        parallelism = 1;
+        splitDepth = 2;
 
-        } else {
-
-            currentHeader = currentHeader.getRight().getColumnHeader();
-            coverRowCol(currentHeader.getColumnHeader());
-
-            for (Node row = currentHeader.getDown(); row != currentHeader.getColumnHeader(); row = row.getDown()) {
-                solutionNodes.add(row);
-
-                for (Node rightNode = row.getRight(); rightNode != row; rightNode = rightNode.getRight()) {
-                    coverRowCol(rightNode.getColumnHeader());
-                }
-
-                if (applyAlgorithm()) {
-                    return true;
-                }
+    } // end of DancingLinksSolver()
 
-                solutionNodes.remove(solutionNodes.size() - 1);
-                currentHeader = row.getColumnHeader();
 
-                for (Node leftNode = row.getLeft(); leftNode != row; leftNode = leftNode.getLeft()) {
-                    uncoverRowCol(leftNode.getColumnHeader());
-                }
+    public Random getTieBreak() {
+        return tieBreak;
+    }
 
-            }
 
-            uncoverRowCol(currentHeader.getColumnHeader());
+    public void setTieBreak(Random tieBreak) {
+        this.tieBreak = tieBreak;
+    }
 
-        }
-        return false;
 
-    } // end of applyAlgorithm()
+    public int getParallelism() {
+        return parallelism;
+    }
 
 
     /**
-     * Covers the column header node
-     *
-     * @param node of the column header
+     * @param parallelism number of threads the search runs on, 1 to search sequentially
      */
-    private void coverRowCol(Node node) {
-
-        node.getRight().setLeft(node.getLeft());
-        node.getLeft().setRight(node.getRight());
+    public void setParallelism(int parallelism) {
 
-        for (Node row = node.getDown(); row != node; row = row.getDown()) {
-            for (Node rightNode = row.getRight(); rightNode != row; rightNode = rightNode.getRight()) {
-
-                rightNode.getUp().setDown(rightNode.getDown());
-                rightNode.getDown().setUp(rightNode.getUp());
-                rightNode.getColumnHeader().decreaseSize();
-            }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
         }
+        this.parallelism = parallelism;
 
-    } // end of coverRowCol()
+    } // end of setParallelism()
 
 
-    /**
-     * Uncovers the column header node
-     *
-     * @param node of the column header
-     */
-    private void uncoverRowCol(Node node) {
-        // Uncover up and down
-        for (Node row = node.getUp(); row != node; row = row.getUp()) {
-            for (Node leftNode = row.getLeft(); leftNode != row; leftNode = leftNode.getRight()) {
-                leftNode.getUp().setDown(leftNode);
-                leftNode.getDown().setUp(leftNode);
-                leftNode.getColumnHeader().increaseSize();
-            }
-        }
-        // Uncover left and right
-        node.getRight().setLeft(node);
-        node.getLeft().setRight(node);
-
-    } // end of uncoverRowCol()
+    public int getSplitDepth() {
+        return splitDepth;
+    }
 
 
     /**
-     * Creates the linked list using input exact cover matrix
-     *
-     * @param matrix exact cover matrix of sudoku grid
-     * @return the header node of list
+     * @param splitDepth number of branching levels of the search tree down to which branches
+     *                   become separate tasks, columns with a single row not counting
      */
-    private ColumnHeader createDLinksList(int[][] matrix) {
-        // New head node
-        ColumnHeader head = new ColumnHeader(-1);
-        head.setSize(matrix[0].length);
-        // List to store all the column header nodes
-        ArrayList<ColumnHeader> columnHeaders = new ArrayList<>();
-
-        for (int i = 0; i < matrix[0].length; i++) {
-
-            ColumnHeader node = new ColumnHeader(i);
-            columnHeaders.add(node);
-
-            node.setRight(head.getRight());
-            node.getRight().setLeft(node);
-            node.setLeft(head);
-            head.setRight(node);
-
-            head = node;
+    public void setSplitDepth(int splitDepth) {
 
+        if (splitDepth < 0) {
+            throw new IllegalArgumentException("Split depth must not be negative");
         }
+        this.splitDepth = splitDepth;
 
-        head = head.getRight().getColumnHeader();
+    } // end of setSplitDepth()
 
-        // For each row, iterate through the columns to find 1 and link the nodes
-        for (int i = 0; i < matrix.length; i++) {
-            Node prevNode = null;
-
-            for (int j = 0; j < matrix[0].length; j++) {
-                if (matrix[i][j] == 1) {
-                    ColumnHeader columnHeader = columnHeaders.get(j);
-                    Node node = new Node(columnHeader);
-                    node.setRowIndex(i);
-
-                    if (prevNode == null) {
-                        prevNode = node;
-                    }
-
-                    // Set up and down
-                    Node tempNode = columnHeader.getUp();
-                    node.setDown(tempNode.getDown());
-                    node.getDown().setUp(node);
-                    node.setUp(tempNode);
-                    tempNode.setDown(node);
-
-                    // Set left and right
-                    node.setRight(prevNode.getRight());
-                    node.getRight().setLeft(node);
-                    node.setLeft(prevNode);
-                    prevNode.setRight(node);
-
-                    prevNode = node;
-
-                    columnHeader.increaseSize();
-
-                }
-            }
-        }
 
-        return head;
-    } // end of createDLinksList()
-
-
-    /**
-     * Uses the input file from sudoku grid - applies the given coordinates of the grid to the exact cover matrix
-     *
-     * @param sudokuGrid    grid to be solved - used to obtain the symbols
-     * @param matrix        exact cover matrix the initial grid values will be applied to
-     * @param gridDimension dimenstions of the grid
-     * @return exact cover matrix with rows /cols removed
-     */
-    private int[][] applyInitialGrid(SudokuGrid sudokuGrid, int[][] matrix, int gridDimension) {
-
-        int[] symbolsList = sudokuGrid.getValidSymbolsList();
-        int[][] newMatrix = matrix;
-        ArrayList<String> sudokuList = sudokuGrid.getSudokuList();
-
-        for (int i = 2; i < sudokuList.size(); i++) {
-            // Split string into coords and value
-            String[] temp = sudokuList.get(i).split(" ");
-            // Assign value
-            int value = 1 + checkSymbolLocation(symbolsList, Integer.parseInt(temp[1]));
-            // Split coords string into two separate values using "," and parse as int
-            String[] coords = temp[0].split(",");
-
-            // Calculate row in cover matrix according to coordinates and value - took me a long time to figure this out!
-            int rowIndex = (Integer.parseInt(coords[0]) * gridDimension * gridDimension) + (Integer.parseInt(coords[1]) * gridDimension) + value;
+    @Override
+    public boolean solve(SudokuGrid grid) {
 
-            // Add corresponding row to solutions
-            solutions.add(rowIndex - 1);
+        stats.start();
 
+        if (matrix == null || gridDimension != grid.getGridDimension()) {
+            gridDimension = grid.getGridDimension();
+            matrix = ExactCoverEncoding.buildDancingLinks(grid.getGeometry());
         }
-
-        // Remove rows/cols from matrix
-        for (int num : solutions) {
-            for (int i = 0; i < newMatrix.length; i++) {
-                if (num == newMatrix[i][0]) {
-                    newMatrix = coverRowsCols(newMatrix, i);
+        matrix.reset();
+
+        DancingLinksSearch search = new DancingLinksSearch(matrix, gridDimension * gridDimension, tieBreak,
+                null, stats);
+
+        // Givens are chosen up front
+        int[] symbolsList = grid.getValidSymbolsList();
+        for (int cell = 0; cell < gridDimension * gridDimension; cell++) {
+            int value = grid.getCell(cell);
+            if (value != grid.getEmptyValue()) {
+                int k = CandidateState.symbolIndex(symbolsList, value);
+                if (k < 0 || !search.selectRow(cell * gridDimension + k)) {
+                    stats.addUpdates(matrix.getUpdates());
+                    return false;
                 }
             }
         }
 
-        return newMatrix;
-
-    } // end of applyInitialGrid()
-
-
-    /**
-     * Finds the corresponding rows/cols from given row and adds the indexes to a list
-     * Then create a new matrix from old one without the rows
-     *
-     * @param matrix exact cover matrix to delete
-     * @param row    index of row to be deleted
-     * @return the new smaller exact cover matrix
-     */
-    public int[][] coverRowsCols(int[][] matrix, int row) {
-
-        ArrayList<Integer> rowsToDelete = new ArrayList<>();
-        ArrayList<Integer> colsToDelete = new ArrayList<>();
-
-        int[][] newMatrix;
-
-        for (int j = 0; j < matrix[0].length; j++) {
-            if (matrix[row][j] == 1) {
-                for (int i = 0; i < matrix.length; i++) {
-                    if (matrix[i][j] == 1) {
-                        if (!rowsToDelete.contains(matrix[i][0])) {
-                            rowsToDelete.add(matrix[i][0]);
-                        }
-                    }
-                }
-                // Store column index to be deleted
-                colsToDelete.add(matrix[0][j]);
+        int[] solution;
+        try {
+            if (counter != null) {
+                // Counting always searches sequentially
+                search.setCounter(counter, symbolsList);
+                solution = search.search(0) ? search.getSolution() : null;
+            } else if (parallelism > 1) {
+                solution = parallelSearch(search);
+            } else {
+                solution = search.search(0) ? search.getSolution() : null;
             }
+        } finally {
+            // Counted even if the budget ran out part way
+            stats.addUpdates(matrix.getUpdates());
         }
 
-        // Create new exact cover matrix from old one
-        newMatrix = new int[matrix.length - rowsToDelete.size()][matrix[0].length - colsToDelete.size()];
-
-        int rowCounter = 0;
-        int colCounter = 0;
-
-        for (int[] rowNum : matrix) {
-            if (!rowsToDelete.contains(rowNum[0])) {
-                for (int j = 0; j < matrix[0].length; j++) {
-                    if (!colsToDelete.contains(matrix[0][j])) {
-                        newMatrix[rowCounter][colCounter] = rowNum[j];
-                        colCounter++;
-                    }
-                }
-
-                colCounter = 0;
-                rowCounter++;
-            }
+        if (solution == null) {
+            return false;
         }
 
-        return newMatrix;
-
-    } // end of coverRowsCols()
-
-
-    /**
-     * Looks for the index of the symbol in the list of valid symbols
-     *
-     * @param symbolsList list of valid symbols/numbers
-     * @param num         the symbol/number to be checked for
-     * @return index of symbol
-     */
-    private int checkSymbolLocation(int[] symbolsList, int num) {
-        for (int i = 0; i < symbolsList.length; i++) {
-            if (num == symbolsList[i]) {
-                return i;
-            }
+        for (int row : solution) {
+            grid.setCell(row / gridDimension, symbolsList[row % gridDimension]);
         }
 
-        return 0;
-    } // end of checkSymbolLocation()
-
+        return true;
 
-} // end of class DancingLinksSolver
-
-
-/**
- * Node class
- */
-class Node {
-
-    private Node up, down, left, right;
-    private ColumnHeader columnHeader;
-    private int rowIndex;
+    } // end of solve()
 
 
     /**
-     * Constructor
+     * Counts the solutions by running the search with a counter, which records each solution
+     * and tells the search to carry on until the limit is reached
      */
-    public Node() {
-
-        up = this;
-        down = this;
-        left = this;
-        right = this;
-
-    }
-
-
-    /**
-     * Constructor with column header allocated
-     *
-     * @param columnHeader
-     */
-    public Node(ColumnHeader columnHeader) {
-
-        this();
-        this.columnHeader = columnHeader;
-
-    }
-
-    /* **************************** */
-    // Getters and Setters
-
-    public Node getUp() {
-        return up;
-    }
-
-    public Node getDown() {
-        return down;
-    }
-
-    public Node getLeft() {
-        return left;
-    }
-
-    public Node getRight() {
-        return right;
-    }
-
-    public ColumnHeader getColumnHeader() {
-        return columnHeader;
-    }
-
-    public void setUp(Node up) {
-        this.up = up;
-    }
-
-    public void setDown(Node down) {
-        this.down = down;
-    }
-
-    public void setLeft(Node left) {
-        this.left = left;
-    }
-
-    public void setRight(Node right) {
-        this.right = right;
-    }
-
-    public void setColColumnHeader(ColumnHeader columnHeader) {
-        this.columnHeader = columnHeader;
-    }
-
-    public void setRowIndex(int rowIndex) {
-        this.rowIndex = rowIndex;
-    }
-
-    public int getRowIndex() {
-        return rowIndex;
-    }
-
-} // end of Node class
+    @Override
+    public SolutionCount countSolutions(SudokuGrid grid, long limit, int keep) {
+
+        SolutionCount count = new SolutionCount(limit, keep);
+        short[] puzzle = new short[grid.getGridDimension() * grid.getGridDimension()];
+        grid.copyCells(puzzle);
+
+        counter = count;
+        try {
+            solve(grid);
+        } finally {
+            counter = null;
+            grid.restoreCells(puzzle);
+        }
 
+        return count;
 
-/**
- * Column header node class
- */
-class ColumnHeader extends Node {
+    } // end of countSolutions()
 
-    private int size;
-    private int colIndex;
 
     /**
-     * Constructor
+     * Searches on the fork-join pool, splitting the tree down to the split depth
      *
-     * @param colIndex index of the column it represents
+     * @param search search with the givens chosen
+     * @return the solution rows, null if there is no solution
      */
-    public ColumnHeader(int colIndex) {
-        super();
-        this.colIndex = colIndex;
-        this.size = 0;
-        setColColumnHeader(this);
-    }
-
-
-    // Getters and Setters
-
-    public int getSize() {
-        return size;
-    }
+    private int[] parallelSearch(DancingLinksSearch search) {
+
+        ForkJoinPool pool = pools.computeIfAbsent(parallelism, ForkJoinPool::new);
+
+        AtomicReference<int[]> result = new AtomicReference<>();
+        // The tasks count their nodes against one total, so the node limit is of the whole search
+        stats.setSharedNodes(stats.getBudget() == null ? null : new AtomicLong());
+        Random rootTieBreak = tieBreak == null ? null : new Random(tieBreak.nextLong());
+        DancingLinksSplitTask root = new DancingLinksSplitTask(search, -1, 0, 0, splitDepth, rootTieBreak,
+                new AtomicBoolean(false), result);
+        try {
+            pool.invoke(root);
+        } finally {
+            stats.add(root.getStats());
+            stats.setSharedNodes(null);
+        }
+        if (result.get() != null) {
+            stats.solutionFound();
+        }
 
-    public void setSize(int size) {
-        this.size = size;
-    }
+        return result.get();
 
-    public int getColIndex() {
-        return colIndex;
-    }
+    } // end of parallelSearch()
 
-    // Increase size count
-    public void increaseSize() {
-        size++;
-    }
-
-    // Decrease size count
-    public void decreaseSize() {
-        size--;
-    }
 
-} // end of ColumnHeader class
+} // end of class DancingLinksSolver
@@ -0,0 +1,187 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Fork-join task of the parallel dancing links search.  Above the split depth a task covers
+ * the smallest column and forks one task per row of it, each searching its own copy of the
+ * state with that row chosen.  At the split depth a task searches its subtree sequentially.
+ * Only branching levels count towards the split depth - a column with a single row is chosen
+ * by the task itself without forking, so forced moves near the root (common once the givens
+ * are placed) do not use up the levels that were meant to split the work.
+ * The first task to find a solution publishes it and sets the shared cancelled flag, which
+ * every search checks at each node, so the other tasks unwind straight away.
+ * With tie-breaking, each task has its own random source, seeded from its parent's as the
+ * parent forks it, so tasks never share one and a seeded solver still searches the same tree.
+ */
+class DancingLinksSplitTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    // State the task branches from, null once the task has made its own copy
+    private DancingLinksSearch parent;
+    // Row the task chooses in the parent's covered column, -1 for the root task
+    private final int rowNode;
+    private final int depth;
+    // Branching levels above the task, and the number at which tasks stop forking
+    private final int level;
+    private final int splitDepth;
+    // Chooses between equally small columns, null to take the leftmost
+    private final Random tieBreak;
+
+    private final AtomicBoolean cancelled;
+    private final AtomicReference<int[]> result;
+
+    // Nodes of this task and the tasks it forked, merged once they are done
+    private final SearchStats stats;
+
+
+    /**
+     * Constructor
+     *
+     * @param parent     state to branch from, which the task copies and leaves unchanged
+     * @param rowNode    row to choose in the parent's covered column, -1 for the root task
+     * @param depth      depth of the task in the search tree
+     * @param level      number of branching levels above the task
+     * @param splitDepth number of branching levels at which tasks stop forking
+     * @param tieBreak   random source of this task only, null to take the leftmost column
+     * @param cancelled  set once a solution is found
+     * @param result     solution rows, set by the first task to find a solution
+     */
+    DancingLinksSplitTask(DancingLinksSearch parent, int rowNode, int depth, int level, int splitDepth,
+                          Random tieBreak, AtomicBoolean cancelled, AtomicReference<int[]> result) {
+
+        this.parent = parent;
+        this.rowNode = rowNode;
+        this.depth = depth;
+        this.level = level;
+        this.splitDepth = splitDepth;
+        this.tieBreak = tieBreak;
+        this.cancelled = cancelled;
+        this.result = result;
+        stats = new SearchStats();
+        stats.setBudget(parent.getStats().getBudget());
+        stats.setSharedNodes(parent.getStats().getSharedNodes());
+
+    } // end of DancingLinksSplitTask()
+
+
+    @Override
+    protected void compute() {
+
+        try {
+            split();
+        } catch (SolveAbortedException e) {
+            // The budget ran out - stop the other tasks too, the exception reaches the solver
+            cancelled.set(true);
+            throw e;
+        }
+
+    } // end of compute()
+
+
+    /**
+     * Searches the task's branch, forking a task per row of the smallest column until the
+     * split depth, and choosing the row of single-row columns on the way
+     */
+    private void split() {
+
+        if (cancelled.get()) {
+            return;
+        }
+
+        // Copied when the task runs rather than when it is forked, so only running tasks hold a copy
+        DancingLinksSearch search = parent.copy(tieBreak, cancelled, stats);
+        if (rowNode != -1) {
+            search.branch(rowNode);
+        }
+        parent = null;
+
+        DancingLinksMatrix matrix = search.getMatrix();
+
+        if (level >= splitDepth) {
+            if (search.search(depth)) {
+                publish(search);
+            }
+            stats.addUpdates(matrix.getUpdates());
+            return;
+        }
+
+        // Follow forced moves until a column has a choice of rows
+        int header;
+        int at = depth;
+        while (true) {
+            stats.node(at);
+
+            header = matrix.smallestColumn(tieBreak);
+            if (header == DancingLinksMatrix.ROOT) {
+                publish(search);
+                stats.addUpdates(matrix.getUpdates());
+                return;
+            }
+
+            // A column no row can cover - dead end
+            if (matrix.size[header] == 0 || cancelled.get()) {
+                stats.addUpdates(matrix.getUpdates());
+                return;
+            }
+
+            if (matrix.size[header] > 1) {
+                break;
+            }
+            matrix.cover(header);
+            search.branch(matrix.down[header]);
+            at++;
+        }
+
+        matrix.cover(header);
+        stats.addUpdates(matrix.getUpdates());
+
+        ArrayList<DancingLinksSplitTask> children = new ArrayList<>();
+        for (int node = matrix.down[header]; node != header; node = matrix.down[node]) {
+            Random childTieBreak = tieBreak == null ? null : new Random(tieBreak.nextLong());
+            children.add(new DancingLinksSplitTask(search, node, at + 1, level + 1, splitDepth, childTieBreak,
+                    cancelled, result));
+        }
+        try {
+            invokeAll(children);
+        } finally {
+            for (DancingLinksSplitTask child : children) {
+                stats.add(child.stats);
+            }
+        }
+
+    } // end of split()
+
+
+    /**
+     * Publishes a solution, unless another task got there first, and cancels the other tasks
+     *
+     * @param search search holding the solution rows
+     */
+    private void publish(DancingLinksSearch search) {
+
+        if (result.compareAndSet(null, Arrays.copyOf(search.getSolution(), search.getSolutionSize()))) {
+            cancelled.set(true);
+        }
+
+    } // end of publish()
+
+
+    SearchStats getStats() {
+        return stats;
+    }
+
+
+} // end of class DancingLinksSplitTask
@@ -0,0 +1,218 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import java.util.Arrays;
+
+
+/**
+ * Indexed priority structure of the empty cells of a grid, keyed by candidate count.
+ * Cells are kept in buckets (one doubly linked list per count, stored in arrays) so adding,
+ * removing and re-keying a cell are all O(1), and the minimum is found by scanning up from
+ * the lowest non-empty bucket.
+ */
+public class EmptyCellQueue {
+
+    private static final int NONE = -1;
+
+    // Head of the list for each candidate count 0..gridDimension
+    private final int[] bucketHead;
+    // Per cell links and key, key is NONE when the cell is not in the queue
+    private final int[] next;
+    private final int[] prev;
+    private final int[] key;
+
+    private int size;
+    // Lower bound on the smallest non-empty bucket
+    private int minKey;
+
+
+    /**
+     * Constructor
+     *
+     * @param gridDimension dimension of the grid
+     */
+    public EmptyCellQueue(int gridDimension) {
+
+        int cells = gridDimension * gridDimension;
+
+        bucketHead = new int[gridDimension + 1];
+        next = new int[cells];
+        prev = new int[cells];
+        key = new int[cells];
+
+        clear();
+
+    } // end of EmptyCellQueue()
+
+
+    /**
+     * Empties the queue
+     */
+    public void clear() {
+
+        Arrays.fill(bucketHead, NONE);
+        Arrays.fill(key, NONE);
+        size = 0;
+        minKey = 0;
+
+    } // end of clear()
+
+
+    /**
+     * Adds a cell with the given candidate count
+     *
+     * @param cell  cell index
+     * @param count number of candidates of the cell
+     */
+    public void add(int cell, int count) {
+
+        key[cell] = count;
+        prev[cell] = NONE;
+        next[cell] = bucketHead[count];
+        if (bucketHead[count] != NONE) {
+            prev[bucketHead[count]] = cell;
+        }
+        bucketHead[count] = cell;
+
+        size++;
+        if (count < minKey) {
+            minKey = count;
+        }
+
+    } // end of add()
+
+
+    /**
+     * Removes a cell from the queue
+     *
+     * @param cell cell index
+     */
+    public void remove(int cell) {
+
+        if (prev[cell] != NONE) {
+            next[prev[cell]] = next[cell];
+        } else {
+            bucketHead[key[cell]] = next[cell];
+        }
+        if (next[cell] != NONE) {
+            prev[next[cell]] = prev[cell];
+        }
+
+        key[cell] = NONE;
+        size--;
+
+    } // end of remove()
+
+
+    /**
+     * Changes the candidate count of a cell already in the queue
+     *
+     * @param cell  cell index
+     * @param count new number of candidates
+     */
+    public void update(int cell, int count) {
+
+        if (key[cell] != count) {
+            remove(cell);
+            add(cell, count);
+        }
+
+    } // end of update()
+
+
+    public boolean contains(int cell) {
+        return key[cell] != NONE;
+    }
+
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+
+    /**
+     * Picks the cell to branch on next
+     *
+     * @param ordering MRV or MRV_DEGREE
+     * @param state    candidate state, used to find the peers for the degree tie-break
+     * @return a cell with the fewest candidates, or NONE if the queue is empty
+     */
+    public int select(CellOrdering ordering, CandidateState state) {
+
+        if (size == 0) {
+            return NONE;
+        }
+
+        while (bucketHead[minKey] == NONE) {
+            minKey++;
+        }
+
+        int best = bucketHead[minKey];
+        if (ordering != CellOrdering.MRV_DEGREE) {
+            return best;
+        }
+
+        // Tie-break on the number of empty peers - the most constraining cell first
+        int bestDegree = -1;
+        for (int cell = bucketHead[minKey]; cell != NONE; cell = next[cell]) {
+            int degree = 0;
+            for (int peer : state.getGeometry().getPeers(cell)) {
+                if (key[peer] != NONE) {
+                    degree++;
+                }
+            }
+            if (degree > bestDegree) {
+                bestDegree = degree;
+                best = cell;
+            }
+        }
+
+        return best;
+
+    } // end of select()
+
+
+    /**
+     * Re-keys the empty peers of a cell about to be filled with symbol index k - each peer
+     * that still allows k loses that candidate.  Called before k is placed, so a peer costs
+     * one bit test rather than a recount of its candidates
+     *
+     * @param cell  cell being filled
+     * @param k     symbol index placed in it
+     * @param state candidate state, not yet holding k at the cell
+     */
+    public void placing(int cell, int k, CandidateState state) {
+
+        for (int peer : state.getGeometry().getPeers(cell)) {
+            if (key[peer] != NONE && state.canPlace(peer, k)) {
+                update(peer, key[peer] - 1);
+            }
+        }
+
+    } // end of placing()
+
+
+    /**
+     * Re-keys the empty peers of a cell just emptied of symbol index k - each peer that
+     * allows k again gains that candidate
+     *
+     * @param cell  cell emptied
+     * @param k     symbol index removed from it
+     * @param state candidate state, no longer holding k at the cell
+     */
+    public void removed(int cell, int k, CandidateState state) {
+
+        for (int peer : state.getGeometry().getPeers(cell)) {
+            if (key[peer] != NONE && state.canPlace(peer, k)) {
+                update(peer, key[peer] + 1);
+            }
+        }
+
+    } // end of removed()
+
+
+} // end of class EmptyCellQueue
@@ -0,0 +1,86 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import grid.GridGeometry;
+
+
+/**
+ * Exact cover encoding of the standard Sudoku constraints, shared by the Algorithm X and
+ * dancing links solvers.  Generated straight from the grid geometry, so the dense
+ * n^3 x 4n^2 matrix is never materialised.
+ * Matrix row r = cell * gridDimension + k, where k is the symbol index, and each row has
+ * exactly four columns - its cell, row-symbol, column-symbol and box-symbol constraints,
+ * in that order (each block of columns is gridDimension^2 wide).
+ */
+public final class ExactCoverEncoding {
+
+    public static final int COLUMNS_PER_ROW = 4;
+
+
+    private ExactCoverEncoding() {
+
+    } // end of ExactCoverEncoding()
+
+
+    public static int rowCount(int gridDimension) {
+        return gridDimension * gridDimension * gridDimension;
+    }
+
+
+    public static int columnCount(int gridDimension) {
+        return COLUMNS_PER_ROW * gridDimension * gridDimension;
+    }
+
+
+    /**
+     * Writes the four constraint columns of a matrix row
+     *
+     * @param geometry geometry of the grid
+     * @param row      matrix row
+     * @param columns  array the columns are written to
+     * @param offset   index of columns the first column is written at
+     */
+    public static void rowColumns(GridGeometry geometry, int row, int[] columns, int offset) {
+
+        int gridDimension = geometry.getGridDimension();
+        int cells = gridDimension * gridDimension;
+        int cell = row / gridDimension;
+        int k = row % gridDimension;
+
+        columns[offset] = cell;
+        columns[offset + 1] = cells + geometry.getRow(cell) * gridDimension + k;
+        columns[offset + 2] = 2 * cells + geometry.getCol(cell) * gridDimension + k;
+        columns[offset + 3] = 3 * cells + geometry.getBox(cell) * gridDimension + k;
+
+    } // end of rowColumns()
+
+
+    /**
+     * Builds and seals the dancing links matrix of every (cell, symbol) row
+     *
+     * @param geometry geometry of the grid
+     * @return the sealed matrix
+     */
+    public static DancingLinksMatrix buildDancingLinks(GridGeometry geometry) {
+
+        int gridDimension = geometry.getGridDimension();
+        int rows = rowCount(gridDimension);
+        DancingLinksMatrix links = new DancingLinksMatrix(columnCount(gridDimension), rows, COLUMNS_PER_ROW * rows);
+        int[] columns = new int[COLUMNS_PER_ROW];
+
+        for (int row = 0; row < rows; row++) {
+            rowColumns(geometry, row, columns, 0);
+            links.addRow(row, columns);
+        }
+        links.seal();
+
+        return links;
+
+    } // end of buildDancingLinks()
+
+
+} // end of class ExactCoverEncoding
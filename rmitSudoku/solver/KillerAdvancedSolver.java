@@ -1,30 +1,417 @@
 /*
  * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
  */
 
 package solver;
 
+import grid.CageIndex;
 import grid.SudokuGrid;
 
+import java.util.Arrays;
+
 
 /**
  * Your advanced solver for Killer Sudoku.
+ * Dancing links over the standard exact cover constraints (cell, row, column and box), the same
+ * columns DancingLinksSolver uses, with the cages as a secondary constraint.  Rows whose digit
+ * cannot be part of any combination making up its cage total are hidden before the search.  At every
+ * search node each cage the last chosen row touched - the cage of its cell, and the cages of the
+ * peers that lost its digit - looks up (in the CageCombinationTable) which digits can still
+ * complete it given the digits placed so far and its empty cells' candidates, and the rows of
+ * those cells whose digit cannot are unlinked (and relinked on backtracking), so the column
+ * sizes used to pick the next column account for the cages.  The other cages are as they were
+ * when last checked, so checking them again would hide nothing.
  */
 public class KillerAdvancedSolver extends KillerSudokuSolver
 {
-    // TODO: Add attributes as needed.
+    private int gridDimension;
+    private int[] validSymbolsList;
+
+    // Chosen rows are written straight into the grid, which keeps the cage sums up to date
+    private SudokuGrid grid;
+    private CageIndex cageIndex;
+
+    // Set while counting solutions, null when solving
+    private SolutionCount counter;
+
+    // All (cell, symbol) rows, built once per grid size and reset between puzzles
+    private DancingLinksMatrix matrix;
+    // Rows unlinked by the cage pruning, undone in reverse order on backtracking
+    private int[] hiddenRows;
+    private int hiddenTop;
+
+    private CageCombinationTable combinationTable;
+    // Whether each cell's row has been chosen (givens included)
+    private boolean[] filled;
+    // Scratch space for the live candidates of each cell during cage propagation
+    private long[] cellCandidates;
+    // Stamp of the node that last checked each cage, so a node checks a cage once
+    private int[] cageStamp;
+    private int stamp;
+
 
     public KillerAdvancedSolver() {
-        // TODO: any initialisation you want to implement.
+
     } // end of KillerAdvancedSolver()
 
 
     @Override
     public boolean solve(SudokuGrid grid) {
-        // TODO: your implementation of your advanced solver for Killer Sudoku.
 
-        // placeholder
-        return false;
+        this.grid = grid;
+        cageIndex = grid.getCageIndex();
+        validSymbolsList = grid.getValidSymbolsList();
+        stats.start();
+
+        if (matrix == null || gridDimension != grid.getGridDimension()) {
+            gridDimension = grid.getGridDimension();
+            matrix = ExactCoverEncoding.buildDancingLinks(grid.getGeometry());
+            hiddenRows = new int[gridDimension * gridDimension * gridDimension];
+            filled = new boolean[gridDimension * gridDimension];
+            cellCandidates = new long[gridDimension * gridDimension];
+        }
+        matrix.reset();
+        hiddenTop = 0;
+        Arrays.fill(filled, false);
+        if (cageStamp == null || cageStamp.length < cageIndex.getCageCount()) {
+            cageStamp = new int[cageIndex.getCageCount()];
+        }
+        Arrays.fill(cageStamp, 0);
+        stamp = 0;
+
+        // Kept from puzzle to puzzle while the symbols stay the same
+        if (combinationTable == null || !combinationTable.isFor(validSymbolsList)) {
+            combinationTable = CageCombinationTable.forSymbols(validSymbolsList);
+        }
+
+        // Rows whose symbol is in none of its cage's combinations stay hidden for this puzzle
+        for (int cell = 0; cell < gridDimension * gridDimension; cell++) {
+            long allowed = cageUnion(cageIndex.getCage(cell));
+            for (int k = 0; k < gridDimension; k++) {
+                if ((allowed & (1L << k)) == 0) {
+                    matrix.hideRow(matrix.rowStart[cell * gridDimension + k]);
+                }
+            }
+        }
+
+        // Givens (if any) are chosen up front
+        for (int cell = 0; cell < gridDimension * gridDimension; cell++) {
+            int value = grid.getCell(cell);
+            if (value != grid.getEmptyValue()) {
+                int k = cageIndex.symbolIndex(value);
+                if (k < 0 || !selectGiven(cell, k)) {
+                    stats.addUpdates(matrix.getUpdates());
+                    return false;
+                }
+            }
+        }
+
+        // The grid is left filled in if a solution is found
+        try {
+            return applyAlgorithm(0, -1);
+        } finally {
+            // Counted even if the budget ran out part way
+            stats.addUpdates(matrix.getUpdates());
+        }
+
     } // end of solve()
 
+
+    /**
+     * Counts the solutions by running the search with a counter, which records each solution
+     * and tells the search to carry on until the limit is reached
+     */
+    @Override
+    public SolutionCount countSolutions(SudokuGrid grid, long limit, int keep) {
+
+        SolutionCount count = new SolutionCount(limit, keep);
+        short[] puzzle = new short[grid.getGridDimension() * grid.getGridDimension()];
+        grid.copyCells(puzzle);
+
+        counter = count;
+        try {
+            solve(grid);
+        } finally {
+            counter = null;
+            grid.restoreCells(puzzle);
+        }
+
+        return count;
+
+    } // end of countSolutions()
+
+
+    /**
+     * Dancing links search, always branching on the column with the fewest rows left
+     *
+     * @param depth    number of rows chosen by the search so far
+     * @param lastCell cell of the row chosen last, -1 at the root where every cage is checked
+     * @return true if solved
+     */
+    private boolean applyAlgorithm(int depth, int lastCell) {
+
+        int[] down = matrix.down;
+
+        stats.node(depth);
+
+        if (matrix.right[DancingLinksMatrix.ROOT] == DancingLinksMatrix.ROOT) {
+            stats.solutionFound();
+            if (counter != null) {
+                // Counting - record the solution, and carry on unless the limit is reached
+                short[] cells = null;
+                if (counter.wantsSolution()) {
+                    cells = new short[gridDimension * gridDimension];
+                    grid.copyCells(cells);
+                }
+                return counter.record(cells);
+            }
+            return true;
+        }
+
+        int hiddenMark = hiddenTop;
+        if (!propagateCages(lastCell)) {
+            unhideRows(hiddenMark);
+            return false;
+        }
+
+        // Pick the most constrained column
+        int column = matrix.smallestColumn(null);
+        if (matrix.size[column] == 0) {
+            unhideRows(hiddenMark);
+            return false;
+        }
+
+        matrix.cover(column);
+
+        for (int rowNode = down[column]; rowNode != column; rowNode = down[rowNode]) {
+            int cell = matrix.row[rowNode] / gridDimension;
+            int k = matrix.row[rowNode] % gridDimension;
+
+            if (!cageAllows(cell, k)) {
+                continue;
+            }
+
+            matrix.coverRow(rowNode);
+            placeInCage(cell, k);
+
+            if (applyAlgorithm(depth + 1, cell)) {
+                return true;
+            }
+
+            removeFromCage(cell);
+            matrix.uncoverRow(rowNode);
+        }
+
+        matrix.uncover(column);
+        unhideRows(hiddenMark);
+
+        return false;
+
+    } // end of applyAlgorithm()
+
+
+    /**
+     * Chooses the row of a given cell before the search starts
+     *
+     * @param cell cell index
+     * @param k    symbol index of the given
+     * @return false if the given clashes with the givens already chosen, or its cage
+     */
+    private boolean selectGiven(int cell, int k) {
+
+        int rowNode = matrix.rowStart[cell * gridDimension + k];
+
+        // Unlinked if another given already covers one of its columns, or its cage rules it out
+        if (!matrix.isLinked(rowNode)) {
+            return false;
+        }
+
+        // Already in the grid and its cage sums, cage clashes are found by the search
+        matrix.cover(matrix.column[rowNode]);
+        matrix.coverRow(rowNode);
+        filled[cell] = true;
+
+        return true;
+
+    } // end of selectGiven()
+
+
+    /**
+     * Symbols that can appear anywhere in a cage, before anything is placed
+     *
+     * @param cage cage index, -1 for a cell outside every cage
+     * @return bitset of the symbol indexes allowed in the cage
+     */
+    private long cageUnion(int cage) {
+
+        if (cage == -1) {
+            return -1L;
+        }
+
+        return combinationTable.completions(cageIndex.getCageTotal(cage), cageIndex.getCageCells(cage).length,
+                combinationTable.getAllSymbols());
+
+    } // end of cageUnion()
+
+
+    /**
+     * Checks whether symbol index k can go in the cell's cage - it must not repeat a symbol
+     * already in the cage, and the cage must still be completable with it
+     *
+     * @param cell cell index
+     * @param k    symbol index
+     * @return true if allowed
+     */
+    private boolean cageAllows(int cell, int k) {
+
+        int cage = cageIndex.getCage(cell);
+        if (cage == -1) {
+            return true;
+        }
+
+        long available = combinationTable.getAllSymbols() & ~cageIndex.getCageUsed(cage);
+        return (combinationTable.completions(cageIndex.getCageTotal(cage) - cageIndex.getCageSum(cage),
+                cageIndex.getCageEmpty(cage), available) & (1L << k)) != 0L;
+
+    } // end of cageAllows()
+
+
+    /**
+     * Narrows the cages the last chosen row touched - the cage of its cell, whose sum changed,
+     * and the cages of its peers, which may have lost its symbol - or every cage at the root
+     *
+     * @param lastCell cell of the row chosen last, -1 for every cage
+     * @return false if some cage can no longer be completed
+     */
+    private boolean propagateCages(int lastCell) {
+
+        if (lastCell == -1) {
+            for (int cage = 0; cage < cageIndex.getCageCount(); cage++) {
+                if (!propagateCage(cage)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        stamp++;
+        int cage = cageIndex.getCage(lastCell);
+        if (cage != -1) {
+            cageStamp[cage] = stamp;
+            if (!propagateCage(cage)) {
+                return false;
+            }
+        }
+        for (int peer : grid.getGeometry().getPeers(lastCell)) {
+            cage = cageIndex.getCage(peer);
+            if (cage != -1 && cageStamp[cage] != stamp) {
+                cageStamp[cage] = stamp;
+                if (!propagateCage(cage)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+
+    } // end of propagateCages()
+
+
+    /**
+     * Narrows an incomplete cage down to the symbols that can still complete it - the cage's
+     * remaining total must be made up by distinct symbols not yet in the cage, one per empty
+     * cell, taken from the empty cells' candidates.  Rows of the empty cells whose symbol cannot
+     * are hidden, the caller unhides them when backtracking.  Hiding rows narrows the candidates
+     * the cage was checked with, so it is checked again until it hides nothing.
+     *
+     * @param cage cage index
+     * @return false if the cage can no longer be completed
+     */
+    private boolean propagateCage(int cage) {
+
+        int[] down = matrix.down;
+
+        boolean narrowed = true;
+        while (narrowed) {
+            narrowed = false;
+            long open = 0L;
+            int empty = 0;
+
+            // Live candidates of the empty cells - their cell columns are still linked
+            for (int cell : cageIndex.getCageCells(cage)) {
+                if (filled[cell]) {
+                    continue;
+                }
+                empty++;
+
+                long candidates = 0L;
+                int header = matrix.header(cell);
+                for (int rowNode = down[header]; rowNode != header; rowNode = down[rowNode]) {
+                    candidates |= 1L << (matrix.row[rowNode] % gridDimension);
+                }
+                if (candidates == 0L) {
+                    return false;
+                }
+
+                cellCandidates[cell] = candidates;
+                open |= candidates;
+            }
+
+            if (empty == 0) {
+                return true;
+            }
+
+            long allowed = combinationTable.completions(cageIndex.getCageTotal(cage) - cageIndex.getCageSum(cage),
+                    empty, open & ~cageIndex.getCageUsed(cage));
+            if (allowed == 0L) {
+                return false;
+            }
+
+            for (int cell : cageIndex.getCageCells(cage)) {
+                if (filled[cell] || (cellCandidates[cell] & ~allowed) == 0L) {
+                    continue;
+                }
+
+                int header = matrix.header(cell);
+                for (int rowNode = down[header]; rowNode != header; rowNode = down[rowNode]) {
+                    if ((allowed & (1L << (matrix.row[rowNode] % gridDimension))) == 0L) {
+                        matrix.hideRow(rowNode);
+                        hiddenRows[hiddenTop++] = rowNode;
+                        narrowed = true;
+                    }
+                }
+            }
+        }
+
+        return true;
+
+    } // end of propagateCage()
+
+
+    private void placeInCage(int cell, int k) {
+        filled[cell] = true;
+        grid.setCell(cell, validSymbolsList[k]);
+    }
+
+
+    private void removeFromCage(int cell) {
+        grid.setCell(cell, grid.getEmptyValue());
+        filled[cell] = false;
+    }
+
+
+    /**
+     * Relinks the hidden rows, newest first, until only the given number are left hidden
+     *
+     * @param hiddenMark number of hidden rows to keep
+     */
+    private void unhideRows(int hiddenMark) {
+
+        while (hiddenTop > hiddenMark) {
+            matrix.unhideRow(hiddenRows[--hiddenTop]);
+        }
+
+    } // end of unhideRows()
+
 } // end of class KillerAdvancedSolver
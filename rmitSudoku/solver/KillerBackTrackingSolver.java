@@ -5,195 +5,281 @@
 
 package solver;
 
+import grid.CageIndex;
 import grid.SudokuGrid;
 
-import java.util.ArrayList;
-
 
 /**
  * Backtracking solver for Killer Sudoku.
  */
 public class KillerBackTrackingSolver extends KillerSudokuSolver {
 
-    private ArrayList<String[]> cageList;
+    private CageIndex cageIndex;
     private int gridDimension;
+    private int emptyValue;
     int[] validSymbolsList;
 
+    // Row/column/box used symbols, kept in step with the grid
+    private CandidateState candidateState;
+
+    // Which empty cell to branch on, and the empty cells keyed by candidate count for MRV -
+    // the candidates the cage allows as well as the row, column and box
+    private CellOrdering ordering;
+
+    // Set while counting solutions, null when solving
+    private SolutionCount counter;
+    private EmptyCellQueue emptyCells;
+
+    private CageCombinationTable combinationTable;
+
 
     /**
      * Constructor
      */
     public KillerBackTrackingSolver() {
 
+        // Row-major order fills most cages cell after cell, so each cage narrows quickly, and
+        // costs nothing to keep up.  MRV, keyed by the cage candidates too, explores far fewer
+        // nodes on most puzzles but re-keys the peers and cage mates of every cell it fills,
+        // so which is faster depends on the puzzle - the portfolio races both
+        this(CellOrdering.FIRST_EMPTY);
+
     } // end of KillerBackTrackingSolver()
 
 
+    /**
+     * Constructor with the cell ordering heuristic to use
+     *
+     * @param ordering heuristic used to pick the next cell to fill
+     */
+    public KillerBackTrackingSolver(CellOrdering ordering) {
+
+        this.ordering = ordering;
+
+    } // end of KillerBackTrackingSolver()
+
+
+    public CellOrdering getOrdering() {
+        return ordering;
+    }
+
+
+    public void setOrdering(CellOrdering ordering) {
+        this.ordering = ordering;
+    }
+
+
     @Override
     public boolean solve(SudokuGrid grid) {
 
-        cageList = grid.getCageList();
+        cageIndex = grid.getCageIndex();
         gridDimension = grid.getGridDimension();
+        emptyValue = grid.getEmptyValue();
         validSymbolsList = grid.getValidSymbolsList();
+        stats.start();
+
+        // Reuse the state between puzzles of the same size
+        if (candidateState == null || candidateState.getGridDimension() != gridDimension) {
+            candidateState = new CandidateState(gridDimension);
+            emptyCells = new EmptyCellQueue(gridDimension);
+        }
+
+        if (!candidateState.load(grid)) {
+            return false;
+        }
+
+        // Kept from puzzle to puzzle while the symbols stay the same
+        if (combinationTable == null || !combinationTable.isFor(validSymbolsList)) {
+            combinationTable = CageCombinationTable.forSymbols(validSymbolsList);
+        }
+
+        if (ordering != CellOrdering.FIRST_EMPTY) {
+            emptyCells.clear();
+            for (int cell = 0; cell < gridDimension * gridDimension; cell++) {
+                if (grid.getCell(cell) == emptyValue) {
+                    emptyCells.add(cell, candidateCount(cell));
+                }
+            }
+        }
 
-        return backtrackingKiller(grid);
+        return backtrackingKiller(grid, 0, 0);
 
     } // end of solve()
 
 
+    /**
+     * Counts the solutions by running the search with a counter, which records each solution
+     * and tells the search to carry on until the limit is reached
+     */
+    @Override
+    public SolutionCount countSolutions(SudokuGrid grid, long limit, int keep) {
+
+        SolutionCount count = new SolutionCount(limit, keep);
+        short[] puzzle = new short[grid.getGridDimension() * grid.getGridDimension()];
+        grid.copyCells(puzzle);
+
+        counter = count;
+        try {
+            solve(grid);
+        } finally {
+            counter = null;
+            grid.restoreCells(puzzle);
+        }
+
+        return count;
+
+    } // end of countSolutions()
+
+
     /**
      * Recursive backtracking method to solve sudoku grid by validating the constraints
      *
      * @param sudokuGrid grid to be solved
+     * @param from       cell index to resume the row-major scan from (first-empty ordering only)
+     * @param depth      number of cells filled by the search so far
      * @return true if solved
      */
-    private boolean backtrackingKiller(SudokuGrid sudokuGrid) {
-
-        for (int i = 0; i < gridDimension; i++) {
-            for (int j = 0; j < gridDimension; j++) {
-                if (sudokuGrid.getGridLoc(i, j) == 0) {
-                    for (int k = 0; k < gridDimension; k++) {
-                        if (validate(i, j, validSymbolsList[k], sudokuGrid)) {
-                            sudokuGrid.setGridLoc(i, j, validSymbolsList[k]);
-                            if (solve(sudokuGrid)) {
-                                return true;
-                            } else {
-                                sudokuGrid.setGridLoc(i, j, 0);
-                            }
-                        }
-                    }
-
-                    return false;
-                }
+    private boolean backtrackingKiller(SudokuGrid sudokuGrid, int from, int depth) {
+
+        stats.node(depth);
+
+        int cell = selectCell(sudokuGrid, from);
+        if (cell == -1) {
+            stats.solutionFound();
+            if (counter != null) {
+                // Counting - record the solution, and carry on unless the limit is reached
+                return counter.record(counter.wantsSolution() ? snapshot(sudokuGrid) : null);
             }
+            return true;
         }
 
-        return true;
-    }
+        // Row, column and box are already satisfied by every candidate, the grid keeps the cage
+        // sums up to date as cells are set
+        long cageCandidates = cageCheck(cell);
+        for (int k = candidateState.nextCandidate(cell, 0); k != -1; k = candidateState.nextCandidate(cell, k + 1)) {
+            if ((cageCandidates & (1L << k)) != 0L) {
+                sudokuGrid.setCell(cell, validSymbolsList[k]);
+                candidateState.place(cell, k);
+                stats.addUpdates(1);
+                if (ordering != CellOrdering.FIRST_EMPTY) {
+                    emptyCells.remove(cell);
+                    refreshNeighbours(cell);
+                }
 
+                if (backtrackingKiller(sudokuGrid, cell + 1, depth + 1)) {
+                    return true;
+                }
 
-    /**
-     * Validates the usual constraints but also has a cage constraint to check
-     *
-     * @param i          row index to be validated
-     * @param j          column index to be validated
-     * @param num        symbol/number to be input
-     * @param sudokuGrid sudoku grid to be solved
-     * @return return true if passes all validations
-     */
-    private boolean validate(int i, int j, int num, SudokuGrid sudokuGrid) {
+                candidateState.remove(cell, k);
+                sudokuGrid.setCell(cell, emptyValue);
+                stats.addUpdates(1);
+                if (ordering != CellOrdering.FIRST_EMPTY) {
+                    emptyCells.add(cell, candidateCount(cell));
+                    refreshNeighbours(cell);
+                }
+            }
+        }
 
-        return !rowCheck(i, num, sudokuGrid) && !columnCheck(j, num, sudokuGrid)
-                && !boxCheck(i, j, num, sudokuGrid) && cageCheck(i, j, num, sudokuGrid);
+        return false;
+
+    } // end of backtrackingKiller()
 
-    } // end of validate(int i, int j, int num)
+
+    private static short[] snapshot(SudokuGrid grid) {
+        short[] cells = new short[grid.getGridDimension() * grid.getGridDimension()];
+        grid.copyCells(cells);
+        return cells;
+    }
 
 
     /**
-     * Validates the row at index i
+     * Picks the next empty cell to branch on
      *
-     * @param i          row index to be checked
-     * @param num        the symbol/number to be placed
      * @param sudokuGrid grid to be solved
-     * @return true if can be placed
+     * @param from       cell index to resume the row-major scan from, all cells before it are filled
+     * @return cell index, or -1 if the grid is full
      */
-    private boolean rowCheck(int i, int num, SudokuGrid sudokuGrid) {
-        for (int j = 0; j < gridDimension; j++) {
-            if (sudokuGrid.getGridLoc(i, j) == num) {
-                return true;
+    private int selectCell(SudokuGrid sudokuGrid, int from) {
+
+        if (ordering != CellOrdering.FIRST_EMPTY) {
+            return emptyCells.select(ordering, candidateState);
+        }
+
+        for (int cell = from; cell < gridDimension * gridDimension; cell++) {
+            if (sudokuGrid.getCell(cell) == emptyValue) {
+                return cell;
             }
         }
 
-        return false;
+        return -1;
 
-    } // end of rowCheck()
+    } // end of selectCell()
 
 
     /**
-     * Validates the column at index j
+     * Number of symbols the row, column, box and cage all still allow in a cell, the MRV key
      *
-     * @param j          column index to be checked
-     * @param num        the symbol/number to be placed
-     * @param sudokuGrid grid to be solved
-     * @return true if can be placed
+     * @param cell cell index
+     * @return candidate count
      */
-    private boolean columnCheck(int j, int num, SudokuGrid sudokuGrid) {
-        for (int i = 0; i < gridDimension; i++) {
-            if (sudokuGrid.getGridLoc(i, j) == num) {
-                return true;
-            }
+    private int candidateCount(int cell) {
+
+        // The cage mask covers word 0 only - cage tables stop at 62 symbols, so the later
+        // words of a larger grid belong to cells in no cage, whose mask is every symbol
+        int count = Long.bitCount(candidateState.candidateWord(cell, 0) & cageCheck(cell));
+        for (int w = 1; w < candidateState.getWords(); w++) {
+            count += Long.bitCount(candidateState.candidateWord(cell, w));
         }
 
-        return false;
+        return count;
 
-    } // end of columnCheck()
+    } // end of candidateCount()
 
 
     /**
-     * Validates the box constraints for placing a number. This was harder to figure out. Idea and concepts
-     * were learnt from:
-     * Reference: https://medium.com/@george.seif94/solving-sudoku-using-a-simple-search-algorithm-3ac44857fee8
+     * Re-keys the empty peers and cage mates of a cell after the cell has been filled or
+     * emptied - the cage candidates of the whole cage change with its sum
      *
-     * @param rowStart   row index of where the box starts
-     * @param colStart   column index of where box starts
-     * @param num        the symbol/number to be placed
-     * @param sudokuGrid grid to be solved
-     * @return true if can be placed
+     * @param cell cell whose value changed
      */
-    private boolean boxCheck(int rowStart, int colStart, int num, SudokuGrid sudokuGrid) {
+    private void refreshNeighbours(int cell) {
 
-        int squareRoot = (int) Math.sqrt(gridDimension);
-        int row = rowStart - rowStart % squareRoot;
-        int col = colStart - colStart % squareRoot;
+        for (int peer : candidateState.getGeometry().getPeers(cell)) {
+            if (emptyCells.contains(peer)) {
+                emptyCells.update(peer, candidateCount(peer));
+            }
+        }
 
-        for (int i = row; i < row + squareRoot; i++) {
-            for (int j = col; j < col + squareRoot; j++) {
-                if (sudokuGrid.getGridLoc(i, j) == num) {
-                    return true;
+        int cage = cageIndex.getCage(cell);
+        if (cage != -1) {
+            for (int mate : cageIndex.getCageCells(cage)) {
+                if (emptyCells.contains(mate)) {
+                    emptyCells.update(mate, candidateCount(mate));
                 }
             }
         }
 
-        return false;
-
-    } // end of boxCheck()
+    } // end of refreshNeighbours()
 
 
     /**
-     * The main check for the killer sudoku. Once all coordinates of a given cage is filled,
-     * it adds up all the symbols/numbers and checks it against the give cage total
+     * The main check for the killer sudoku.  Rather than waiting for the cage to be complete and
+     * comparing its sum with the cage total, this looks up which symbols can still complete the
+     * cell's cage - distinct from the symbols already in it, one per empty cell, adding up to what
+     * is left of the total.  This prunes as soon as any cell of the cage is placed.
      *
-     * @param row        row index of where the box starts
-     * @param col        column index of where box starts
-     * @param num        the symbol/number to be placed
-     * @param sudokuGrid grid to be solved
-     * @return true if cage total and sum total match
+     * @param cell cell index of the cell to be filled
+     * @return bitset of the symbol indexes the cage allows in the cell
      */
-    private boolean cageCheck(int row, int col, int num, SudokuGrid sudokuGrid) {
-        // Cycle through all cages in list
-        for (String[] currentCage : cageList) {
-            // Get total for cage at i
-            int currentCageTotal = Integer.parseInt(currentCage[0]);
-            // Get number of elements in cage at i
-            int currentCageLength = currentCage.length;
-            /*
-             * Obtain the coords of the last element in cage at i
-             * Given that the input file is structured in the correct format, the last
-             * element in the cage will the the last coordinate to be filled which will
-             * complete the cage numbers
-             */
-            String[] coords = currentCage[currentCageLength - 1].split(",");
-            // Check if coords match current ones
-            if ((Integer.parseInt(coords[0]) == row) && (Integer.parseInt(coords[1]) == col)) {
-                int coordsTotal = num;
-                for (int j = 1; j < currentCageLength; j++) {
-                    String[] tempCoords = currentCage[j].split(",");
-                    coordsTotal += sudokuGrid.getGridLoc(Integer.parseInt(tempCoords[0]), Integer.parseInt(tempCoords[1]));
-                }
-                return coordsTotal == currentCageTotal;
-            }
+    private long cageCheck(int cell) {
+
+        int cage = cageIndex.getCage(cell);
+        if (cage == -1) {
+            return -1L;
         }
 
-        return true;
+        return combinationTable.completions(cageIndex.getCageTotal(cage) - cageIndex.getCageSum(cage),
+                cageIndex.getCageEmpty(cage), combinationTable.getAllSymbols() & ~cageIndex.getCageUsed(cage));
 
     } // end of cageCheck()
 
@@ -0,0 +1,312 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import grid.SudokuGrid;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Races several solvers (or differently configured copies of one solver) on the same puzzle.
+ * Each configuration solves its own copy of the grid on its own thread, the first to finish
+ * - with a solution, or with proof there is none - wins, and the others are cancelled through
+ * a shared token.  Which configuration wins varies from puzzle to puzzle, so the race takes
+ * about as long as the best of them, at the cost of the others' CPU time.
+ * The winner's search effort becomes this solver's statistics, and getWins() tallies the
+ * winners over every solve.
+ */
+public class PortfolioSolver extends SudokuSolver {
+
+    private final ArrayList<String> names;
+    private final ArrayList<SudokuSolver> solvers;
+
+    // One thread per configuration, started by the first solve
+    private ExecutorService pool;
+
+    // Limits of an enclosing solve(grid, budget), null if unlimited
+    private SolveBudget budget;
+
+    private String lastWinner;
+    private final LinkedHashMap<String, Long> wins;
+
+
+    /**
+     * Constructor - an empty portfolio, until configurations are added
+     */
+    public PortfolioSolver() {
+
+        names = new ArrayList<>();
+        solvers = new ArrayList<>();
+        wins = new LinkedHashMap<>();
+
+    } // end of PortfolioSolver()
+
+
+    /**
+     * Adds a configuration to the race
+     *
+     * @param name   name reported when it wins
+     * @param solver solver of the configuration, used by no one else
+     */
+    public synchronized void add(String name, SudokuSolver solver) {
+
+        if (names.contains(name)) {
+            throw new IllegalArgumentException("Configuration " + name + " is already in the portfolio");
+        }
+        names.add(name);
+        solvers.add(solver);
+        wins.put(name, 0L);
+
+        // Resized by the next solve
+        shutdown();
+
+    } // end of add()
+
+
+    /**
+     * Races the configurations on the grid.  Outside solve(grid, budget), a race that no
+     * configuration finishes - the thread was interrupted - leaves the grid unsolved and
+     * returns false, with the thread's interrupt flag set again.
+     *
+     * @param grid Input grid to solve.  The solver will write the solution to grid.
+     * @return true if a configuration solved the grid
+     */
+    @Override
+    public synchronized boolean solve(SudokuGrid grid) {
+
+        if (solvers.isEmpty()) {
+            throw new IllegalStateException("Portfolio has no configurations");
+        }
+
+        stats.start();
+        lastWinner = null;
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(solvers.size(), runnable -> {
+                Thread thread = new Thread(runnable, "portfolio");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        // Cancelled by the winner, and along with the enclosing solve
+        CancellationToken race = new CancellationToken(budget == null ? null : budget.getCancellationToken());
+        ExecutorCompletionService<Attempt> completion = new ExecutorCompletionService<>(pool);
+        for (int i = 0; i < solvers.size(); i++) {
+            int index = i;
+            SudokuGrid copy = grid.copy();
+            SolveBudget attemptBudget = newAttemptBudget(race);
+            completion.submit(() -> new Attempt(index, copy, solvers.get(index).solve(copy, attemptBudget)));
+        }
+
+        // Every attempt is waited for, so none is still running on the next solve
+        Attempt winner = null;
+        Attempt givenUp = null;
+        RuntimeException failure = null;
+        boolean interrupted = false;
+        for (int i = 0; i < solvers.size(); i++) {
+            Attempt attempt;
+            try {
+                attempt = completion.take().get();
+            } catch (InterruptedException e) {
+                race.cancel();
+                interrupted = true;
+                i--;
+                continue;
+            } catch (ExecutionException e) {
+                // A configuration that cannot solve this grid drops out of the race
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+                }
+                continue;
+            }
+
+            if (attempt.result.isFinished()) {
+                if (winner == null) {
+                    winner = attempt;
+                    race.cancel();
+                }
+            } else if (givenUp == null) {
+                givenUp = attempt;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (winner == null) {
+            if (givenUp != null) {
+                stats.add(solvers.get(givenUp.index).getStats());
+                // Only an enclosing solve(grid, budget) catches the abort and reports its status
+                if (budget == null) {
+                    return false;
+                }
+                throw new SolveAbortedException(interrupted ? SolveResult.Status.CANCELLED
+                        : givenUp.result.getStatus());
+            }
+            throw failure;
+        }
+
+        lastWinner = names.get(winner.index);
+        wins.merge(lastWinner, 1L, Long::sum);
+        stats.add(solvers.get(winner.index).getStats());
+        if (!winner.result.isSolved()) {
+            return false;
+        }
+
+        short[] cells = new short[grid.getGridDimension() * grid.getGridDimension()];
+        winner.grid.copyCells(cells);
+        grid.restoreCells(cells);
+        stats.solutionFound();
+
+        return true;
+
+    } // end of solve()
+
+
+    /**
+     * Makes the budget of one configuration - the limits of the enclosing solve, if any, and
+     * the race's token
+     */
+    private SolveBudget newAttemptBudget(CancellationToken race) {
+
+        SolveBudget attemptBudget = new SolveBudget();
+        if (budget != null) {
+            if (budget.getTimeLimit() != Long.MAX_VALUE) {
+                attemptBudget.setTimeLimit(budget.getTimeLimit(), TimeUnit.NANOSECONDS);
+            }
+            if (budget.getNodeLimit() != Long.MAX_VALUE) {
+                attemptBudget.setNodeLimit(budget.getNodeLimit());
+            }
+        }
+        attemptBudget.setCancellationToken(race);
+
+        return attemptBudget;
+
+    } // end of newAttemptBudget()
+
+
+    /**
+     * Counts with the first configuration - a count has to search everything, so there is
+     * nothing to race for
+     */
+    @Override
+    public SolutionCount countSolutions(SudokuGrid grid, long limit, int keep) {
+
+        if (solvers.isEmpty()) {
+            throw new IllegalStateException("Portfolio has no configurations");
+        }
+        SolutionCount count = solvers.get(0).countSolutions(grid, limit, keep);
+        stats.start();
+        stats.add(solvers.get(0).getStats());
+
+        return count;
+
+    } // end of countSolutions()
+
+
+    /**
+     * Keeps the limits for the configurations, which each check their own budget
+     */
+    @Override
+    protected void setBudget(SolveBudget budget) {
+
+        super.setBudget(budget);
+        this.budget = budget;
+
+    } // end of setBudget()
+
+
+    /**
+     * Stops the threads, which are started again by the next solve
+     */
+    public synchronized void shutdown() {
+
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+
+    } // end of shutdown()
+
+
+    /**
+     * Finds the portfolio a solver races, if it is one or wraps one (in the order storing,
+     * caching, propagating solvers wrap each other)
+     *
+     * @param solver solver to run
+     * @return the portfolio, null if the solver does not race
+     */
+    public static PortfolioSolver find(SudokuSolver solver) {
+
+        if (solver instanceof StoringSolver) {
+            solver = ((StoringSolver) solver).getSolver();
+        }
+        if (solver instanceof CachingSolver) {
+            solver = ((CachingSolver) solver).getSolver();
+        }
+        if (solver instanceof PropagatingSolver) {
+            solver = ((PropagatingSolver) solver).getSolver();
+        }
+
+        return solver instanceof PortfolioSolver ? (PortfolioSolver) solver : null;
+
+    } // end of find()
+
+
+    /* ********************************************************* */
+
+    // Getters
+
+    public synchronized int getConfigurationCount() {
+        return solvers.size();
+    }
+
+    /**
+     * @return name of the configuration that won the last solve, null if none finished
+     */
+    public synchronized String getLastWinner() {
+        return lastWinner;
+    }
+
+    /**
+     * @return number of solves each configuration has won, in the order they were added
+     */
+    public synchronized Map<String, Long> getWins() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(wins));
+    }
+
+    /* ********************************************************* */
+
+
+    /**
+     * One configuration's go at the puzzle
+     */
+    private static class Attempt {
+
+        private final int index;
+        private final SudokuGrid grid;
+        private final SolveResult result;
+
+        Attempt(int index, SudokuGrid grid, SolveResult result) {
+            this.index = index;
+            this.grid = grid;
+            this.result = result;
+        }
+
+    } // end of class Attempt
+
+
+} // end of class PortfolioSolver
@@ -0,0 +1,204 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import grid.SudokuGrid;
+
+
+/**
+ * Runs constraint propagation (see Propagator) before another solver.
+ * As a pre-pass the deduced cells are written into the grid and the other solver searches
+ * what is left, or is not called at all if propagation solves the grid.  At every node, the
+ * search is done here instead - branch on the cell with the fewest candidates, propagate,
+ * roll back on failure - which only looks at rows, columns and boxes, so killer grids (whose
+ * cages it would miss) and grids larger than the propagator supports always get the pre-pass
+ * or go straight to the other solver.
+ * Either way getPropagationStats() tells how many cells each rule filled.
+ */
+public class PropagatingSolver extends SudokuSolver {
+
+    private final SudokuSolver solver;
+    private final Propagator propagator;
+    // Whether to propagate at every search node, rather than once before the other solver
+    private boolean everyNode;
+
+    // Set while counting solutions, null when solving
+    private SolutionCount counter;
+
+
+    /**
+     * Constructor
+     *
+     * @param solver solver run on the grid after the pre-pass
+     */
+    public PropagatingSolver(SudokuSolver solver) {
+
+        this.solver = solver;
+        propagator = new Propagator();
+
+    } // end of PropagatingSolver()
+
+
+    public SudokuSolver getSolver() {
+        return solver;
+    }
+
+
+    public boolean isEveryNode() {
+        return everyNode;
+    }
+
+
+    public void setEveryNode(boolean everyNode) {
+        this.everyNode = everyNode;
+    }
+
+
+    @Override
+    public boolean solve(SudokuGrid grid) {
+
+        stats.start();
+        propagator.getStats().clear();
+
+        if (!Propagator.supports(grid.getGridDimension())) {
+            return delegate(grid);
+        }
+
+        if (!propagator.load(grid) || !propagator.propagate()) {
+            return false;
+        }
+
+        if (everyNode && grid.getCageIndex() == null) {
+            return search(grid, 0);
+        }
+
+        propagator.writeTo(grid);
+        if (propagator.isSolved() && counter == null) {
+            stats.node(0);
+            stats.solutionFound();
+            return true;
+        }
+
+        return delegate(grid);
+
+    } // end of solve()
+
+
+    /**
+     * Counts the solutions after propagating, which never loses one
+     */
+    @Override
+    public SolutionCount countSolutions(SudokuGrid grid, long limit, int keep) {
+
+        SolutionCount count = new SolutionCount(limit, keep);
+        short[] puzzle = new short[grid.getGridDimension() * grid.getGridDimension()];
+        grid.copyCells(puzzle);
+
+        counter = count;
+        try {
+            solve(grid);
+        } finally {
+            counter = null;
+            grid.restoreCells(puzzle);
+        }
+
+        return count;
+
+    } // end of countSolutions()
+
+
+    /**
+     * Hands the grid to the other solver, adding its search effort to these counters
+     *
+     * @return true if it solved the grid
+     */
+    private boolean delegate(SudokuGrid grid) {
+
+        if (counter != null) {
+            SolutionCount count = solver.countSolutions(grid, counter.getLimit(), counter.getKeep());
+            stats.add(solver.getStats());
+            return counter.add(count);
+        }
+
+        boolean solved;
+        try {
+            solved = solver.solve(grid);
+        } finally {
+            // Counted even if the budget ran out part way
+            stats.add(solver.getStats());
+        }
+        if (solved) {
+            stats.solutionFound();
+        }
+
+        return solved;
+
+    } // end of delegate()
+
+
+    /**
+     * Search with propagation at every node - branches on the cell with the fewest candidates
+     * and propagates each choice, so dead ends show up as contradictions before they are
+     * searched
+     *
+     * @param grid  grid being solved
+     * @param depth number of choices made so far
+     * @return true if solved (or, counting, if the limit is reached)
+     */
+    private boolean search(SudokuGrid grid, int depth) {
+
+        stats.node(depth);
+
+        int cell = propagator.selectCell();
+        if (cell == -1) {
+            stats.solutionFound();
+            propagator.writeTo(grid);
+            if (counter != null) {
+                short[] solution = null;
+                if (counter.wantsSolution()) {
+                    solution = new short[grid.getGridDimension() * grid.getGridDimension()];
+                    grid.copyCells(solution);
+                }
+                return counter.record(solution);
+            }
+            return true;
+        }
+
+        propagator.save(depth);
+        for (long choices = propagator.getCandidates(cell); choices != 0; choices &= choices - 1) {
+            propagator.assign(cell, Long.numberOfTrailingZeros(choices));
+            stats.addUpdates(1);
+            if (propagator.propagate() && search(grid, depth + 1)) {
+                return true;
+            }
+            propagator.restore(depth);
+        }
+
+        return false;
+
+    } // end of search()
+
+
+    @Override
+    protected void setBudget(SolveBudget budget) {
+
+        super.setBudget(budget);
+        solver.setBudget(budget);
+
+    } // end of setBudget()
+
+
+    /**
+     * Counters of the rules over the last call to solve()
+     *
+     * @return the propagation statistics, updated in place by the next solve()
+     */
+    public PropagationStats getPropagationStats() {
+        return propagator.getStats();
+    }
+
+
+} // end of class PropagatingSolver
@@ -0,0 +1,159 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+
+/**
+ * Counters of what each deduction rule of the Propagator did - the cells the singles rules
+ * filled, and the candidates the other rules eliminated (they never fill a cell themselves,
+ * but their eliminations turn into singles).  Compared with the search statistics they show
+ * how much search the propagation saves.
+ */
+public class PropagationStats {
+
+    /**
+     * Deduction rules, in the order they are tried
+     */
+    public enum Rule {
+        NAKED_SINGLE("naked singles"),
+        HIDDEN_SINGLE("hidden singles"),
+        LOCKED_CANDIDATES("locked candidates"),
+        NAKED_PAIR("naked pairs");
+
+        private final String name;
+
+        Rule(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    } // end of enum Rule
+
+
+    private final long[] filled;
+    private final long[] eliminated;
+    // Times the propagation ran to a fixed point, and found a contradiction
+    private long passes;
+    private long contradictions;
+
+
+    /**
+     * Constructor
+     */
+    public PropagationStats() {
+
+        filled = new long[Rule.values().length];
+        eliminated = new long[Rule.values().length];
+
+    } // end of PropagationStats()
+
+
+    /**
+     * Clears the counters, called at the start of solve()
+     */
+    public void clear() {
+
+        for (Rule rule : Rule.values()) {
+            filled[rule.ordinal()] = 0;
+            eliminated[rule.ordinal()] = 0;
+        }
+        passes = 0;
+        contradictions = 0;
+
+    } // end of clear()
+
+
+    public void fill(Rule rule) {
+        filled[rule.ordinal()]++;
+    }
+
+
+    public void eliminate(Rule rule, int count) {
+        eliminated[rule.ordinal()] += count;
+    }
+
+
+    public void pass(boolean contradiction) {
+
+        passes++;
+        if (contradiction) {
+            contradictions++;
+        }
+
+    } // end of pass()
+
+
+    /**
+     * Adds the counters of another run, e.g. to total a batch
+     *
+     * @param other counters of the other run
+     */
+    public void add(PropagationStats other) {
+
+        for (Rule rule : Rule.values()) {
+            filled[rule.ordinal()] += other.filled[rule.ordinal()];
+            eliminated[rule.ordinal()] += other.eliminated[rule.ordinal()];
+        }
+        passes += other.passes;
+        contradictions += other.contradictions;
+
+    } // end of add()
+
+
+    /* ********************************************************* */
+
+    // Getters
+
+    public long getFilled(Rule rule) {
+        return filled[rule.ordinal()];
+    }
+
+    public long getEliminated(Rule rule) {
+        return eliminated[rule.ordinal()];
+    }
+
+    /**
+     * @return cells filled by all the rules together
+     */
+    public long getTotalFilled() {
+
+        long total = 0;
+        for (long count : filled) {
+            total += count;
+        }
+
+        return total;
+
+    } // end of getTotalFilled()
+
+    public long getPasses() {
+        return passes;
+    }
+
+    public long getContradictions() {
+        return contradictions;
+    }
+
+    /* ********************************************************* */
+
+
+    @Override
+    public String toString() {
+
+        return Rule.NAKED_SINGLE.getName() + " = " + getFilled(Rule.NAKED_SINGLE) + " filled"
+                + ", " + Rule.HIDDEN_SINGLE.getName() + " = " + getFilled(Rule.HIDDEN_SINGLE) + " filled"
+                + ", " + Rule.LOCKED_CANDIDATES.getName() + " = " + getEliminated(Rule.LOCKED_CANDIDATES)
+                + " eliminated"
+                + ", " + Rule.NAKED_PAIR.getName() + " = " + getEliminated(Rule.NAKED_PAIR) + " eliminated"
+                + ", passes = " + passes
+                + ", contradictions = " + contradictions;
+
+    } // end of toString()
+
+
+} // end of class PropagationStats
@@ -0,0 +1,602 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import grid.GridGeometry;
+import grid.SudokuGrid;
+
+import java.util.Arrays;
+
+
+/**
+ * Constraint propagation over the rows, columns and boxes of a grid - fills and narrows
+ * cells by deduction alone, applying naked singles, hidden singles, locked candidates
+ * (pointing and claiming) and naked pairs until none of them changes anything.
+ * Each cell keeps a candidate bitset of symbol indexes in a long, so grids of dimension up to
+ * 64 are supported.  Cages are not looked at, but the deductions still hold for killer
+ * grids, so propagation is safe before any solver.
+ * The state can be saved and restored by depth, so a search can propagate at every node and
+ * roll back on the way up.
+ */
+public class Propagator {
+
+    /*
+     * Notes:
+     * cells addressed by cell index (i * gridDimension + j)
+     * k used for symbol index (index into the valid symbols list), not the symbol itself
+     * houses numbered rows, then columns, then boxes - house h has cells houseCells[h]
+     */
+
+    // Largest dimension a candidate bitset holds
+    public static final int MAX_DIMENSION = 64;
+
+    private final PropagationStats stats;
+
+    private int gridDimension;
+    private int boxSize;
+    private GridGeometry geometry;
+    private int[][] houseCells;
+    private long fullMask;
+
+    // Candidates of each cell - a filled cell has the bit of its symbol only
+    private long[] candidates;
+    // Symbol index of each cell, -1 if empty
+    private int[] values;
+    private int emptyCount;
+    // Set when a cell has no candidates left, or a house has nowhere for a symbol
+    private boolean contradiction;
+
+    // Saved states, by depth
+    private long[][] savedCandidates;
+    private int[][] savedValues;
+    private int[] savedEmptyCount;
+
+
+    /**
+     * Constructor
+     */
+    public Propagator() {
+
+        stats = new PropagationStats();
+        savedCandidates = new long[0][];
+        savedValues = new int[0][];
+        savedEmptyCount = new int[0];
+
+    } // end of Propagator()
+
+
+    /**
+     * @param gridDimension dimension of a grid
+     * @return true if grids of that dimension can be propagated
+     */
+    public static boolean supports(int gridDimension) {
+        return gridDimension <= MAX_DIMENSION;
+    }
+
+
+    /**
+     * Loads the filled cells of a grid, removing each from the candidates of its peers
+     *
+     * @param grid grid to load, of a supported dimension
+     * @return false if the filled cells already break a constraint
+     */
+    public boolean load(SudokuGrid grid) {
+
+        resize(grid.getGridDimension());
+
+        int[] symbolsList = grid.getValidSymbolsList();
+        int emptyValue = grid.getEmptyValue();
+        Arrays.fill(candidates, fullMask);
+        Arrays.fill(values, -1);
+        emptyCount = candidates.length;
+        contradiction = false;
+
+        for (int cell = 0; cell < candidates.length; cell++) {
+            int value = grid.getCell(cell);
+            if (value != emptyValue) {
+                int k = CandidateState.symbolIndex(symbolsList, value);
+                if (k < 0 || (candidates[cell] & (1L << k)) == 0) {
+                    return false;
+                }
+                assign(cell, k);
+            }
+        }
+
+        return !contradiction;
+
+    } // end of load()
+
+
+    /**
+     * Applies the rules until none of them changes anything.  The simple rules are retried
+     * after every change, so the dearer ones only run when the simple ones are stuck.
+     *
+     * @return false if a contradiction was found - the grid has no solution as it stands
+     */
+    public boolean propagate() {
+
+        while (!contradiction && emptyCount > 0) {
+            if (nakedSingles() || contradiction) {
+                continue;
+            }
+            if (hiddenSingles() || contradiction) {
+                continue;
+            }
+            if (lockedCandidates() || contradiction) {
+                continue;
+            }
+            if (!nakedPairs()) {
+                break;
+            }
+        }
+        stats.pass(contradiction);
+
+        return !contradiction;
+
+    } // end of propagate()
+
+
+    /**
+     * Fills a cell with a symbol index, removing it from the candidates of the cell's peers
+     *
+     * @param cell cell index, empty
+     * @param k    symbol index, one of the cell's candidates
+     */
+    public void assign(int cell, int k) {
+
+        long bit = 1L << k;
+        values[cell] = k;
+        candidates[cell] = bit;
+        emptyCount--;
+
+        for (int peer : geometry.getPeers(cell)) {
+            if (values[peer] == -1 && (candidates[peer] & bit) != 0) {
+                candidates[peer] &= ~bit;
+                if (candidates[peer] == 0) {
+                    contradiction = true;
+                }
+            } else if (values[peer] == k) {
+                contradiction = true;
+            }
+        }
+
+    } // end of assign()
+
+
+    /**
+     * Finds the empty cell with the fewest candidates, to branch on
+     *
+     * @return cell index, or -1 if every cell is filled
+     */
+    public int selectCell() {
+
+        int best = -1;
+        int bestCount = Integer.MAX_VALUE;
+        for (int cell = 0; cell < candidates.length && bestCount > 2; cell++) {
+            if (values[cell] == -1 && Long.bitCount(candidates[cell]) < bestCount) {
+                best = cell;
+                bestCount = Long.bitCount(candidates[cell]);
+            }
+        }
+
+        return best;
+
+    } // end of selectCell()
+
+
+    /**
+     * Writes the filled cells into the grid, leaving the others as they are
+     *
+     * @param grid grid that was loaded
+     */
+    public void writeTo(SudokuGrid grid) {
+
+        int[] symbolsList = grid.getValidSymbolsList();
+        for (int cell = 0; cell < candidates.length; cell++) {
+            if (values[cell] != -1 && grid.getCell(cell) != symbolsList[values[cell]]) {
+                grid.setCell(cell, symbolsList[values[cell]]);
+            }
+        }
+
+    } // end of writeTo()
+
+
+    /**
+     * Saves the state, to be rolled back to with restore(depth)
+     *
+     * @param depth depth of the search node saving
+     */
+    public void save(int depth) {
+
+        if (depth >= savedCandidates.length) {
+            int size = Math.max(depth + 1, 2 * savedCandidates.length);
+            savedCandidates = Arrays.copyOf(savedCandidates, size);
+            savedValues = Arrays.copyOf(savedValues, size);
+            savedEmptyCount = Arrays.copyOf(savedEmptyCount, size);
+        }
+        if (savedCandidates[depth] == null || savedCandidates[depth].length != candidates.length) {
+            savedCandidates[depth] = new long[candidates.length];
+            savedValues[depth] = new int[candidates.length];
+        }
+
+        System.arraycopy(candidates, 0, savedCandidates[depth], 0, candidates.length);
+        System.arraycopy(values, 0, savedValues[depth], 0, values.length);
+        savedEmptyCount[depth] = emptyCount;
+
+    } // end of save()
+
+
+    /**
+     * Rolls back to the state saved at a depth
+     *
+     * @param depth depth the state was saved at
+     */
+    public void restore(int depth) {
+
+        System.arraycopy(savedCandidates[depth], 0, candidates, 0, candidates.length);
+        System.arraycopy(savedValues[depth], 0, values, 0, values.length);
+        emptyCount = savedEmptyCount[depth];
+        contradiction = false;
+
+    } // end of restore()
+
+
+    /**
+     * Naked singles - an empty cell with one candidate left is that symbol
+     *
+     * @return true if a cell was filled
+     */
+    private boolean nakedSingles() {
+
+        boolean changed = false;
+        for (int cell = 0; cell < candidates.length && !contradiction; cell++) {
+            if (values[cell] == -1 && Long.bitCount(candidates[cell]) == 1) {
+                assign(cell, Long.numberOfTrailingZeros(candidates[cell]));
+                stats.fill(PropagationStats.Rule.NAKED_SINGLE);
+                changed = true;
+            }
+        }
+
+        return changed;
+
+    } // end of nakedSingles()
+
+
+    /**
+     * Hidden singles - a symbol that fits in only one cell of a house goes there
+     *
+     * @return true if a cell was filled
+     */
+    private boolean hiddenSingles() {
+
+        boolean changed = false;
+        for (int[] house : houseCells) {
+            // Symbols seen in at least one cell of the house, and in at least two
+            long once = 0;
+            long twice = 0;
+            for (int cell : house) {
+                twice |= once & candidates[cell];
+                once |= candidates[cell];
+            }
+            if (once != fullMask) {
+                contradiction = true;
+                return changed;
+            }
+
+            for (long singles = once & ~twice; singles != 0; singles &= singles - 1) {
+                long bit = singles & -singles;
+                int cell = cellWith(house, bit);
+                if (cell == -1) {
+                    // Taken by a cell this house just filled with another symbol
+                    contradiction = true;
+                    return changed;
+                }
+                if (values[cell] == -1) {
+                    assign(cell, Long.numberOfTrailingZeros(bit));
+                    stats.fill(PropagationStats.Rule.HIDDEN_SINGLE);
+                    changed = true;
+                }
+            }
+        }
+
+        return changed;
+
+    } // end of hiddenSingles()
+
+
+    /**
+     * Locked candidates - a symbol whose candidates in a box all lie on one line is removed
+     * from the rest of that line (pointing), and a symbol whose candidates on a line all lie
+     * in one box is removed from the rest of that box (claiming)
+     *
+     * @return true if a candidate was eliminated
+     */
+    private boolean lockedCandidates() {
+
+        boolean changed = false;
+        long[] segments = new long[boxSize];
+
+        for (int box = 0; box < gridDimension; box++) {
+            int topLeft = houseCells[2 * gridDimension + box][0];
+            int rowStart = geometry.getRow(topLeft);
+            int colStart = geometry.getCol(topLeft);
+
+            // Pointing along rows, then along columns
+            for (int r = 0; r < boxSize; r++) {
+                segments[r] = emptyCandidates(rowStart + r, colStart, 0, 1);
+            }
+            changed |= pointing(segments, rowStart, colStart, true);
+            for (int c = 0; c < boxSize; c++) {
+                segments[c] = emptyCandidates(rowStart, colStart + c, 1, 0);
+            }
+            changed |= pointing(segments, rowStart, colStart, false);
+        }
+
+        for (int line = 0; line < gridDimension; line++) {
+            // Claiming along a row, then along a column
+            for (int b = 0; b < boxSize; b++) {
+                segments[b] = emptyCandidates(line, b * boxSize, 0, 1);
+            }
+            changed |= claiming(segments, line, true);
+            for (int b = 0; b < boxSize; b++) {
+                segments[b] = emptyCandidates(b * boxSize, line, 1, 0);
+            }
+            changed |= claiming(segments, line, false);
+        }
+
+        return changed;
+
+    } // end of lockedCandidates()
+
+
+    /**
+     * Removes the symbols confined to one line of a box from the rest of the line
+     *
+     * @param segments candidates of the box on each of its lines
+     * @param rowStart first row of the box
+     * @param colStart first column of the box
+     * @param rows     whether the lines are rows, rather than columns
+     * @return true if a candidate was eliminated
+     */
+    private boolean pointing(long[] segments, int rowStart, int colStart, boolean rows) {
+
+        long confined = onlyOne(segments);
+        boolean changed = false;
+
+        for (int s = 0; s < boxSize && confined != 0; s++) {
+            long bits = segments[s] & confined;
+            if (bits == 0) {
+                continue;
+            }
+            for (int l = 0; l < gridDimension; l++) {
+                // Skip the box's own part of the line
+                if (rows ? l >= colStart && l < colStart + boxSize : l >= rowStart && l < rowStart + boxSize) {
+                    continue;
+                }
+                int cell = rows ? (rowStart + s) * gridDimension + l : l * gridDimension + colStart + s;
+                changed |= eliminate(cell, bits, PropagationStats.Rule.LOCKED_CANDIDATES);
+            }
+        }
+
+        return changed;
+
+    } // end of pointing()
+
+
+    /**
+     * Removes the symbols confined to one box of a line from the rest of the box
+     *
+     * @param segments candidates of the line in each box it crosses
+     * @param line     row or column index
+     * @param rows     whether the line is a row, rather than a column
+     * @return true if a candidate was eliminated
+     */
+    private boolean claiming(long[] segments, int line, boolean rows) {
+
+        long confined = onlyOne(segments);
+        boolean changed = false;
+
+        for (int s = 0; s < boxSize && confined != 0; s++) {
+            long bits = segments[s] & confined;
+            if (bits == 0) {
+                continue;
+            }
+            int lineStart = line - line % boxSize;
+            for (int a = lineStart; a < lineStart + boxSize; a++) {
+                if (a == line) {
+                    continue;
+                }
+                for (int b = s * boxSize; b < (s + 1) * boxSize; b++) {
+                    int cell = rows ? a * gridDimension + b : b * gridDimension + a;
+                    changed |= eliminate(cell, bits, PropagationStats.Rule.LOCKED_CANDIDATES);
+                }
+            }
+        }
+
+        return changed;
+
+    } // end of claiming()
+
+
+    /**
+     * Naked pairs - two empty cells of a house with the same two candidates take those two
+     * symbols between them, so the rest of the house cannot have either
+     *
+     * @return true if a candidate was eliminated
+     */
+    private boolean nakedPairs() {
+
+        boolean changed = false;
+        for (int[] house : houseCells) {
+            for (int a = 0; a < house.length; a++) {
+                long pair = candidates[house[a]];
+                if (values[house[a]] != -1 || Long.bitCount(pair) != 2) {
+                    continue;
+                }
+                for (int b = a + 1; b < house.length; b++) {
+                    if (values[house[b]] != -1 || candidates[house[b]] != pair) {
+                        continue;
+                    }
+                    for (int cell : house) {
+                        if (cell != house[a] && cell != house[b]) {
+                            changed |= eliminate(cell, pair, PropagationStats.Rule.NAKED_PAIR);
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+
+        return changed;
+
+    } // end of nakedPairs()
+
+
+    /**
+     * Removes symbols from the candidates of an empty cell
+     *
+     * @return true if any were removed
+     */
+    private boolean eliminate(int cell, long bits, PropagationStats.Rule rule) {
+
+        long removed = candidates[cell] & bits;
+        if (values[cell] != -1 || removed == 0) {
+            return false;
+        }
+
+        candidates[cell] &= ~bits;
+        stats.eliminate(rule, Long.bitCount(removed));
+        if (candidates[cell] == 0) {
+            contradiction = true;
+        }
+
+        return true;
+
+    } // end of eliminate()
+
+
+    /**
+     * Union of the candidates of the empty cells of a box's line segment
+     *
+     * @param row   first cell's row
+     * @param col   first cell's column
+     * @param dRow  row step
+     * @param dCol  column step
+     * @return candidates of the boxSize cells from (row, col)
+     */
+    private long emptyCandidates(int row, int col, int dRow, int dCol) {
+
+        long union = 0;
+        for (int s = 0; s < boxSize; s++) {
+            int cell = (row + s * dRow) * gridDimension + col + s * dCol;
+            if (values[cell] == -1) {
+                union |= candidates[cell];
+            }
+        }
+
+        return union;
+
+    } // end of emptyCandidates()
+
+
+    /**
+     * @return the symbols in exactly one of the sets
+     */
+    private static long onlyOne(long[] sets) {
+
+        long once = 0;
+        long twice = 0;
+        for (long set : sets) {
+            twice |= once & set;
+            once |= set;
+        }
+
+        return once & ~twice;
+
+    } // end of onlyOne()
+
+
+    /**
+     * @return the cell of the house with a symbol among its candidates, -1 if none
+     */
+    private int cellWith(int[] house, long bit) {
+
+        for (int cell : house) {
+            if ((candidates[cell] & bit) != 0) {
+                return cell;
+            }
+        }
+
+        return -1;
+
+    } // end of cellWith()
+
+
+    /**
+     * Sizes the state and house tables for a grid dimension, kept between grids of the same
+     * dimension
+     */
+    private void resize(int dimension) {
+
+        if (!supports(dimension)) {
+            throw new IllegalArgumentException("Propagation supports grids of dimension up to " + MAX_DIMENSION);
+        }
+        if (dimension == gridDimension) {
+            return;
+        }
+
+        gridDimension = dimension;
+        geometry = GridGeometry.forDimension(dimension);
+        boxSize = geometry.getBoxSize();
+        fullMask = dimension == 64 ? -1L : (1L << dimension) - 1;
+        candidates = new long[dimension * dimension];
+        values = new int[dimension * dimension];
+
+        houseCells = new int[3 * dimension][dimension];
+        int[] boxFill = new int[dimension];
+        for (int cell = 0; cell < dimension * dimension; cell++) {
+            int row = geometry.getRow(cell);
+            int col = geometry.getCol(cell);
+            int box = geometry.getBox(cell);
+            houseCells[row][col] = cell;
+            houseCells[dimension + col][row] = cell;
+            houseCells[2 * dimension + box][boxFill[box]++] = cell;
+        }
+
+    } // end of resize()
+
+
+    /* ********************************************************* */
+
+    // Getters
+
+    /**
+     * @return counters of every propagate() since they were last cleared
+     */
+    public PropagationStats getStats() {
+        return stats;
+    }
+
+    public boolean isSolved() {
+        return emptyCount == 0 && !contradiction;
+    }
+
+    public int getEmptyCount() {
+        return emptyCount;
+    }
+
+    /**
+     * @param cell cell index
+     * @return bitset of the symbol indexes the cell can still take
+     */
+    public long getCandidates(int cell) {
+        return candidates[cell];
+    }
+
+    /* ********************************************************* */
+
+
+} // end of class Propagator
@@ -0,0 +1,164 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Search effort counters of the last call to a solver's solve(), for comparing solvers and
+ * configurations on the same puzzles.
+ * Nodes are the search nodes visited, and depth is the number of choices made below the
+ * givens.  Updates are the elementary changes the solver made to its search state - link
+ * changes for dancing links, rows and columns removed or restored for Algorithm X, and cell
+ * assignments for backtracking - so they are only comparable between runs of one solver.
+ */
+public class SearchStats {
+
+    private long nodes;
+    private long updates;
+    private int maxDepth;
+
+    private long startTime;
+    // Nanoseconds from start() to the first solution, -1 if none found yet
+    private long firstSolutionTime;
+
+    // Checked at every node, null if the search is unlimited
+    private SolveBudget budget;
+    // Nodes of every search sharing the budget, e.g. parallel tasks; null to check this one's
+    private AtomicLong sharedNodes;
+
+
+    /**
+     * Clears the counters and starts the clock, called at the start of solve()
+     */
+    public void start() {
+
+        nodes = 0;
+        updates = 0;
+        maxDepth = 0;
+        firstSolutionTime = -1;
+        startTime = System.nanoTime();
+
+    } // end of start()
+
+
+    /**
+     * Counts a search node, and checks the budget if there is one
+     *
+     * @param depth depth of the node, 0 for the root
+     * @throws SolveAbortedException if the budget has run out
+     */
+    public void node(int depth) {
+
+        // Checked before the node is counted, so a node limit of n stops at n nodes
+        if (budget != null) {
+            budget.check(sharedNodes == null ? nodes + 1 : sharedNodes.incrementAndGet());
+        }
+        nodes++;
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+
+    } // end of node()
+
+
+    public void addUpdates(long count) {
+        updates += count;
+    }
+
+
+    /**
+     * Adds the nodes and updates of another search, e.g. a parallel task, to these counters
+     *
+     * @param other counters of the other search
+     */
+    public void add(SearchStats other) {
+
+        nodes += other.nodes;
+        updates += other.updates;
+        if (other.maxDepth > maxDepth) {
+            maxDepth = other.maxDepth;
+        }
+
+    } // end of add()
+
+
+    /**
+     * Records the time to the first solution, later solutions are ignored
+     */
+    public void solutionFound() {
+
+        if (firstSolutionTime == -1) {
+            firstSolutionTime = System.nanoTime() - startTime;
+        }
+
+    } // end of solutionFound()
+
+
+    /**
+     * @param budget limits checked at every node, kept across start(), null for none
+     */
+    void setBudget(SolveBudget budget) {
+        this.budget = budget;
+    }
+
+
+    /**
+     * @param sharedNodes total the budget's node limit is checked against, counted by every
+     *                    search sharing it; null to check this search's own nodes
+     */
+    void setSharedNodes(AtomicLong sharedNodes) {
+        this.sharedNodes = sharedNodes;
+    }
+
+
+    /* ********************************************************* */
+
+    // Getters
+
+    SolveBudget getBudget() {
+        return budget;
+    }
+
+    AtomicLong getSharedNodes() {
+        return sharedNodes;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getUpdates() {
+        return updates;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return nanoseconds from the start of solve() to the first solution, -1 if none was found
+     */
+    public long getFirstSolutionTime() {
+        return firstSolutionTime;
+    }
+
+    /* ********************************************************* */
+
+
+    @Override
+    public String toString() {
+
+        return "nodes = " + nodes
+                + ", updates = " + updates
+                + ", max depth = " + maxDepth
+                + ", first solution = "
+                + (firstSolutionTime == -1 ? "none" : firstSolutionTime / Math.pow(10, 9) + " sec");
+
+    } // end of toString()
+
+
+} // end of class SearchStats
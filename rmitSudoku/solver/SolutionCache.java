@@ -0,0 +1,125 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import grid.CanonicalForm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Bounded cache of solutions, keyed by the canonical form of the puzzle, so a relabelled,
+ * transposed or permuted copy of a solved puzzle finds its solution (see CachingSolver).
+ * Solutions are kept as canonical cells.  When the cache is full the least recently used
+ * solution is dropped.  The cache is synchronized, so the workers of a batch can share one.
+ */
+public class SolutionCache {
+
+    private final int capacity;
+    // In access order, least recently used first
+    private final LinkedHashMap<CanonicalForm, short[]> solutions;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+
+    /**
+     * Constructor
+     *
+     * @param capacity number of solutions to keep
+     */
+    public SolutionCache(int capacity) {
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        solutions = new LinkedHashMap<CanonicalForm, short[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CanonicalForm, short[]> eldest) {
+                if (size() > SolutionCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+
+    } // end of SolutionCache()
+
+
+    /**
+     * Looks up the solution of a canonical form, counting a hit or a miss
+     *
+     * @param form canonical form of the puzzle
+     * @return canonical cells of its solution, null if not cached
+     */
+    public synchronized short[] get(CanonicalForm form) {
+
+        short[] solution = solutions.get(form);
+        if (solution == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+
+        return solution;
+
+    } // end of get()
+
+
+    /**
+     * Keeps the solution of a canonical form
+     *
+     * @param form     canonical form of the puzzle
+     * @param solution canonical cells of its solution, see CanonicalForm.toCanonical()
+     */
+    public synchronized void put(CanonicalForm form, short[] solution) {
+        solutions.put(form, solution);
+    }
+
+
+    /* ********************************************************* */
+
+    // Getters
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int getSize() {
+        return solutions.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /* ********************************************************* */
+
+
+    @Override
+    public synchronized String toString() {
+
+        return "hits = " + hits
+                + ", misses = " + misses
+                + ", evictions = " + evictions
+                + ", size = " + solutions.size() + "/" + capacity;
+
+    } // end of toString()
+
+
+} // end of class SolutionCache
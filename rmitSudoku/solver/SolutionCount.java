@@ -0,0 +1,140 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Result of counting the solutions of a puzzle with SudokuSolver.countSolutions().
+ * Solutions are counted up to a limit, and only the first few are kept (as flat cell arrays,
+ * cell (i, j) at index i * gridDimension + j), so counting never stores every solution.
+ * A limit of 2 is a uniqueness check - the search stops as soon as a second solution appears.
+ */
+public class SolutionCount {
+
+    // Count every solution
+    public static final long ALL = Long.MAX_VALUE;
+
+    private final long limit;
+    private final int keep;
+
+    private long count;
+    private final ArrayList<short[]> solutions;
+
+
+    /**
+     * Constructor
+     *
+     * @param limit number of solutions to stop counting at, ALL to count every solution
+     * @param keep  number of solutions to keep, from the first found
+     */
+    public SolutionCount(long limit, int keep) {
+
+        if (limit < 1 || keep < 0) {
+            throw new IllegalArgumentException("Limit must be at least 1 and keep not negative");
+        }
+
+        this.limit = limit;
+        this.keep = keep;
+        solutions = new ArrayList<>();
+
+    } // end of SolutionCount()
+
+
+    /**
+     * Whether the next solution will be kept, so the solver only builds the cell array then
+     *
+     * @return true if the next solution should be passed to record()
+     */
+    public boolean wantsSolution() {
+        return solutions.size() < keep;
+    }
+
+
+    /**
+     * Counts a solution found by a solver
+     *
+     * @param cells the solution's cells if wantsSolution(), otherwise ignored (may be null)
+     * @return true if the limit is reached and the search should stop
+     */
+    public boolean record(short[] cells) {
+
+        count++;
+        if (cells != null && solutions.size() < keep) {
+            solutions.add(cells);
+        }
+
+        return count >= limit;
+
+    } // end of record()
+
+
+    /**
+     * Adds the solutions another count found, e.g. by a solver searching part of the puzzle
+     *
+     * @param other count to add, with the same limit
+     * @return true if the limit is reached and the search should stop
+     */
+    public boolean add(SolutionCount other) {
+
+        count += other.count;
+        for (short[] cells : other.solutions) {
+            if (solutions.size() < keep) {
+                solutions.add(cells);
+            }
+        }
+
+        return count >= limit;
+
+    } // end of add()
+
+
+    /* ********************************************************* */
+
+    // Getters
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public int getKeep() {
+        return keep;
+    }
+
+    /**
+     * @return number of solutions found, at most the limit
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return true if counting stopped at the limit, so there may be more solutions
+     */
+    public boolean isLimitReached() {
+        return count >= limit;
+    }
+
+    /**
+     * @return true if the puzzle has exactly one solution, which needs a limit of at least 2
+     */
+    public boolean isUnique() {
+        return count == 1 && limit > 1;
+    }
+
+    /**
+     * @return the first solutions found, at most keep of them
+     */
+    public List<short[]> getSolutions() {
+        return solutions;
+    }
+
+    /* ********************************************************* */
+
+
+} // end of class SolutionCount
@@ -0,0 +1,35 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+
+/**
+ * Thrown from a search node when the solve budget runs out, unwinding the search in one go
+ * rather than through every solver's return values.  Caught by SudokuSolver.solve(grid,
+ * budget), which turns it into the result status.
+ */
+class SolveAbortedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SolveResult.Status status;
+
+
+    SolveAbortedException(SolveResult.Status status) {
+
+        // No stack trace, it is only ever caught
+        super(status.getName(), null, false, false);
+        this.status = status;
+
+    } // end of SolveAbortedException()
+
+
+    SolveResult.Status getStatus() {
+        return status;
+    }
+
+
+} // end of class SolveAbortedException
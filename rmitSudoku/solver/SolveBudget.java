@@ -0,0 +1,142 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Limits on one call to SudokuSolver.solve(grid, budget) - a wall-clock time limit, a number
+ * of search nodes, and a cancellation token.  Any of them can be left unset.
+ * Solvers check the budget as they count each search node: the node limit at every node, and
+ * the clock and the token every CHECK_INTERVAL nodes, so a check costs a comparison on most
+ * nodes.  In a parallel dancing links search the tasks count their nodes against one shared
+ * total, so the node limit is of the whole search.
+ */
+public class SolveBudget {
+
+    // Nodes between checks of the clock and the token, a power of 2
+    static final int CHECK_INTERVAL = 256;
+
+    private long timeLimit;
+    private long nodeLimit;
+    private CancellationToken token;
+
+    // System.nanoTime() the solve has to finish by, set by start() if there is a time limit
+    private long deadline;
+
+
+    /**
+     * Constructor - an unlimited budget, until limits are set
+     */
+    public SolveBudget() {
+
+        timeLimit = Long.MAX_VALUE;
+        nodeLimit = Long.MAX_VALUE;
+
+    } // end of SolveBudget()
+
+
+    /**
+     * @param time wall-clock time the solve may take
+     * @param unit unit of time
+     */
+    public void setTimeLimit(long time, TimeUnit unit) {
+
+        if (time < 0) {
+            throw new IllegalArgumentException("Time limit must not be negative");
+        }
+        timeLimit = unit.toNanos(time);
+
+    } // end of setTimeLimit()
+
+
+    /**
+     * @param nodeLimit search nodes the solve may explore
+     */
+    public void setNodeLimit(long nodeLimit) {
+
+        if (nodeLimit < 1) {
+            throw new IllegalArgumentException("Node limit must be at least 1");
+        }
+        this.nodeLimit = nodeLimit;
+
+    } // end of setNodeLimit()
+
+
+    /**
+     * @param token token another thread can cancel the solve with, null for none
+     */
+    public void setCancellationToken(CancellationToken token) {
+        this.token = token;
+    }
+
+
+    /**
+     * Starts the clock, called when the solve starts
+     *
+     * @throws SolveAbortedException if the token is already cancelled
+     */
+    void start() {
+
+        deadline = System.nanoTime() + timeLimit;
+        if (token != null && token.isCancelled()) {
+            throw new SolveAbortedException(SolveResult.Status.CANCELLED);
+        }
+
+    } // end of start()
+
+
+    /**
+     * Checks the budget at a search node, before the node is counted
+     *
+     * @param nodes number of the node, the nodes counted so far plus this one
+     * @throws SolveAbortedException if the budget has run out
+     */
+    void check(long nodes) {
+
+        if (nodes > nodeLimit) {
+            throw new SolveAbortedException(SolveResult.Status.NODE_LIMIT);
+        }
+        if ((nodes & (CHECK_INTERVAL - 1)) == 0) {
+            if (token != null && token.isCancelled()) {
+                throw new SolveAbortedException(SolveResult.Status.CANCELLED);
+            }
+            // Compared by difference, nanoTime() may wrap
+            if (timeLimit != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+                throw new SolveAbortedException(SolveResult.Status.TIMED_OUT);
+            }
+        }
+
+    } // end of check()
+
+
+    /* ********************************************************* */
+
+    // Getters
+
+    /**
+     * @return nanoseconds the solve may take, Long.MAX_VALUE if unlimited
+     */
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * @return nodes the solve may explore, Long.MAX_VALUE if unlimited
+     */
+    public long getNodeLimit() {
+        return nodeLimit;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return token;
+    }
+
+    /* ********************************************************* */
+
+
+} // end of class SolveBudget
@@ -0,0 +1,118 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+
+/**
+ * Outcome of SudokuSolver.solve(grid, budget) - whether the search finished (with or
+ * without a solution) or gave up, and the search effort up to then.  A search that gave up
+ * leaves the grid as it was before the solve.
+ */
+public class SolveResult {
+
+    /**
+     * How the solve ended
+     */
+    public enum Status {
+        // Finished, the grid holds the solution
+        SOLVED("solved"),
+        // Finished, there is no solution
+        NO_SOLUTION("no solution"),
+        // Gave up - the time limit passed
+        TIMED_OUT("timed out"),
+        // Gave up - the node limit was reached
+        NODE_LIMIT("node limit"),
+        // Gave up - the cancellation token was cancelled
+        CANCELLED("cancelled");
+
+        private final String name;
+
+        Status(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    } // end of enum Status
+
+
+    private final Status status;
+    private final long time;
+    private final long nodes;
+    private final long updates;
+    private final int maxDepth;
+
+
+    /**
+     * Constructor
+     *
+     * @param status how the solve ended
+     * @param time   nanoseconds the solve took
+     * @param stats  search effort of the solve, copied
+     */
+    public SolveResult(Status status, long time, SearchStats stats) {
+
+        this.status = status;
+        this.time = time;
+        nodes = stats.getNodes();
+        updates = stats.getUpdates();
+        maxDepth = stats.getMaxDepth();
+
+    } // end of SolveResult()
+
+
+    /* ********************************************************* */
+
+    // Getters
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return true if the search finished, with or without a solution, rather than giving up
+     */
+    public boolean isFinished() {
+        return status == Status.SOLVED || status == Status.NO_SOLUTION;
+    }
+
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getUpdates() {
+        return updates;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /* ********************************************************* */
+
+
+    @Override
+    public String toString() {
+
+        return status.getName()
+                + ", time = " + time / Math.pow(10, 9) + " sec"
+                + ", nodes = " + nodes
+                + ", updates = " + updates
+                + ", max depth = " + maxDepth;
+
+    } // end of toString()
+
+
+} // end of class SolveResult
@@ -0,0 +1,135 @@
+/**
+ * @author Jeffrey Chan & Minyi Li, RMIT 2020
+ * @studentAuthor Alan Lam s3436174
+ */
+
+package solver;
+
+import grid.BinaryPuzzleWriter;
+import grid.SolutionStore;
+import grid.SudokuGrid;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+
+/**
+ * Looks up a SolutionStore before another solver, so a puzzle solved in an earlier run is
+ * answered from disk without searching.  Puzzles not in the store are solved by the other
+ * solver and the result is logged - the solution if it is valid, or that there is none.  A
+ * search that gives up on its budget logs nothing.
+ * Unlike CachingSolver the store is keyed by the exact puzzle, standard or killer, of any size.
+ */
+public class StoringSolver extends SudokuSolver {
+
+    private final SudokuSolver solver;
+    private final SolutionStore store;
+
+    // Whether the last solve was answered from the store
+    private boolean lastHit;
+
+
+    /**
+     * Constructor
+     *
+     * @param solver solver run on the grids not in the store
+     * @param store  store to look up and log to, may be shared with other storing solvers
+     */
+    public StoringSolver(SudokuSolver solver, SolutionStore store) {
+
+        this.solver = solver;
+        this.store = store;
+
+    } // end of StoringSolver()
+
+
+    public SudokuSolver getSolver() {
+        return solver;
+    }
+
+
+    public SolutionStore getStore() {
+        return store;
+    }
+
+
+    public boolean isLastHit() {
+        return lastHit;
+    }
+
+
+    @Override
+    public boolean solve(SudokuGrid grid) {
+
+        stats.start();
+        lastHit = false;
+
+        byte[] key = BinaryPuzzleWriter.encodePuzzle(grid);
+        short[] cells;
+        try {
+            cells = store.get(key);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (cells != null) {
+            lastHit = true;
+            if (cells.length == 0) {
+                return false;
+            }
+            grid.restoreCells(cells);
+            stats.solutionFound();
+            return true;
+        }
+
+        boolean solved;
+        try {
+            solved = solver.solve(grid);
+        } finally {
+            stats.add(solver.getStats());
+        }
+
+        if (solved) {
+            stats.solutionFound();
+            // Only a solution that checks out is kept for later runs
+            if (grid.findViolation() != null) {
+                return true;
+            }
+            cells = new short[grid.getGridDimension() * grid.getGridDimension()];
+            grid.copyCells(cells);
+        }
+        try {
+            store.put(key, cells);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return solved;
+
+    } // end of solve()
+
+
+    /**
+     * Counts with the other solver - the store keeps one solution, not the count
+     */
+    @Override
+    public SolutionCount countSolutions(SudokuGrid grid, long limit, int keep) {
+
+        SolutionCount count = solver.countSolutions(grid, limit, keep);
+        stats.start();
+        stats.add(solver.getStats());
+
+        return count;
+
+    } // end of countSolutions()
+
+
+    @Override
+    protected void setBudget(SolveBudget budget) {
+
+        super.setBudget(budget);
+        solver.setBudget(budget);
+
+    } // end of setBudget()
+
+
+} // end of class StoringSolver
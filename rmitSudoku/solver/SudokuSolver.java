@@ -12,6 +12,10 @@ import grid.SudokuGrid;
  */
 public abstract class SudokuSolver {
 
+    // Search effort of the last call to solve(), solvers that do not count leave it at 0
+    protected final SearchStats stats = new SearchStats();
+
+
     /**
      * Solves the input grid.  Different solvers should override this to implement
      * different solving strategies.  The solver will fill the grid.
@@ -22,4 +26,114 @@ public abstract class SudokuSolver {
      */
     public abstract boolean solve(SudokuGrid grid);
 
+
+    /**
+     * Solves the input grid within a budget - a time limit, a node limit and a cancellation
+     * token, checked at every search node.  If the budget runs out the search gives up and
+     * the grid is put back as it was.
+     *
+     * @param grid   Input grid to solve.  The solver will write the solution to grid.
+     * @param budget Limits of the solve.
+     * @return whether the search finished or gave up, and its effort up to then.
+     */
+    public SolveResult solve(SudokuGrid grid, SolveBudget budget) {
+
+        short[] puzzle = new short[grid.getGridDimension() * grid.getGridDimension()];
+        grid.copyCells(puzzle);
+        long startTime = System.nanoTime();
+
+        stats.start();
+        setBudget(budget);
+        try {
+            budget.start();
+            boolean solved = solve(grid);
+            return new SolveResult(solved ? SolveResult.Status.SOLVED : SolveResult.Status.NO_SOLUTION,
+                    System.nanoTime() - startTime, stats);
+        } catch (SolveAbortedException e) {
+            grid.restoreCells(puzzle);
+            return new SolveResult(e.getStatus(), System.nanoTime() - startTime, stats);
+        } finally {
+            setBudget(null);
+        }
+
+    } // end of solve()
+
+
+    /**
+     * Makes the search nodes check a budget.  Solvers that run other solvers pass it on.
+     *
+     * @param budget limits to check, null for none
+     */
+    protected void setBudget(SolveBudget budget) {
+        stats.setBudget(budget);
+    }
+
+
+    /**
+     * Counts the solutions of the input grid, up to a limit, keeping the first few.  The grid
+     * is left as it was.
+     *
+     * @param grid  Input grid to count the solutions of.
+     * @param limit Number of solutions to stop at, SolutionCount.ALL for every solution, 2 to
+     *              check uniqueness.
+     * @param keep  Number of solutions to keep, from the first found.
+     * @return the count and the solutions kept.
+     */
+    public abstract SolutionCount countSolutions(SudokuGrid grid, long limit, int keep);
+
+
+    /**
+     * Checks whether the input grid has exactly one solution, stopping at the second.
+     *
+     * @param grid Input grid to check, left as it was.
+     * @return True if the grid has exactly one solution.
+     */
+    public boolean hasUniqueSolution(SudokuGrid grid) {
+        return countSolutions(grid, 2, 0).isUnique();
+    }
+
+
+    /**
+     * Checks whether the input grid has exactly one solution within a budget, e.g. a node
+     * limit so that checking many grids never gets stuck on one.  A check that runs out of
+     * budget counts as not unique.
+     *
+     * @param grid   Input grid to check, left as it was.
+     * @param budget Limits of the check.
+     * @return True if the grid was shown to have exactly one solution.
+     */
+    public boolean hasUniqueSolution(SudokuGrid grid, SolveBudget budget) {
+
+        setBudget(budget);
+        try {
+            budget.start();
+            return countSolutions(grid, 2, 0).isUnique();
+        } catch (SolveAbortedException e) {
+            return false;
+        } finally {
+            setBudget(null);
+        }
+
+    } // end of hasUniqueSolution()
+
+
+    /**
+     * Number of search nodes explored by the last call to solve().
+     *
+     * @return node count, 0 if the solver does not count nodes
+     */
+    public long getNodeCount() {
+        return stats.getNodes();
+    }
+
+
+    /**
+     * Search effort counters of the last call to solve().
+     *
+     * @return the solver's statistics, updated in place by the next solve()
+     */
+    public SearchStats getStats() {
+        return stats;
+    }
+
 } // end of class SudokuSolver